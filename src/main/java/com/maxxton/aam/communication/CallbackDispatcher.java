@@ -0,0 +1,452 @@
+package com.maxxton.aam.communication;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import com.maxxton.aam.monitoring.Monitor;
+import com.maxxton.aam.monitoring.Monitor.DataType;
+import com.maxxton.aam.resources.Callback;
+import com.maxxton.aam.resources.Configuration;
+import com.maxxton.aam.resources.MessageDetails;
+
+/**
+ * CallbackDispatcher class Hands received messages from the listener thread to the callback. Inline calls the callback on the listener thread, the other modes let a pool of dispatch threads call
+ * it, so a slow callback does not hold up the consumer. Messages handed to a pool are acknowledged once they are queued, so every pool holds at most the configured queue size of waiting
+ * messages. When it is full the bounded mode applies its rejection policy, the other modes block the listener thread until there is room, which holds back further messages on the broker. The
+ * ordered mode hashes a key of every message onto one of a fixed set of single threaded lanes, messages with the same key are handled one after another in the order they were received while other
+ * keys are handled in parallel. That order is the order in which dispatch is called, so it only matches the order on the queue with a single listener thread. The ordered mode therefore limits
+ * the listener to one consumer.
+ *
+ * @author Robin Hermans
+ * @copyright Maxxton 2015
+ */
+public class CallbackDispatcher
+{
+  public static final String MODE_INLINE = "inline";
+  public static final String MODE_FIXED = "fixed";
+  public static final String MODE_WORKSTEALING = "workstealing";
+  public static final String MODE_BOUNDED = "bounded";
+  public static final String MODE_ORDERED = "ordered";
+
+  public static final String REJECT_CALLERRUNS = "callerruns";
+  public static final String REJECT_DISCARD = "discard";
+  public static final String REJECT_ABORT = "abort";
+
+  public static final String KEY_SENDER = "sender";
+  public static final String KEY_RECEIVER = "receiver";
+  public static final String KEY_TYPE = "type";
+
+  private Monitor objMonitor;
+  private String strMode;
+  private ExecutorService objExecutor;
+  private BlockingQueue<Runnable> objQueue;
+  private ThreadPoolExecutor[] arrLanes;
+  private Semaphore objPermits;
+  private Function<MessageDetails, ?> objKeyExtractor;
+
+  /**
+   * Constructor for the CallbackDispatcher class.
+   *
+   * @param config
+   *          the configuration of the messenger.
+   * @param monitor
+   *          the monitor of the messenger.
+   */
+  public CallbackDispatcher(Configuration config, Monitor monitor)
+  {
+    this.objMonitor = monitor;
+    this.strMode = config.getDispatchMode() == null ? MODE_INLINE : config.getDispatchMode().toLowerCase();
+
+    int threads = Math.max(config.getDispatchThreads(), 1);
+    int queueSize = Math.max(config.getDispatchQueueSize(), 1);
+    switch (this.strMode)
+    {
+      case MODE_INLINE:
+        break;
+      case MODE_FIXED:
+        this.objQueue = new ArrayBlockingQueue<Runnable>(queueSize);
+        this.objExecutor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, this.objQueue, this.createThreadFactory(config.getName()), this.createBlockingHandler());
+        break;
+      case MODE_WORKSTEALING:
+        this.objExecutor = new ForkJoinPool(threads, (ForkJoinPool pool) -> {
+          ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+          thread.setName("CallbackDispatcher-" + config.getName() + "-" + thread.getPoolIndex());
+          thread.setDaemon(true);
+          return thread;
+        }, null, true);
+        // The pool has no bounded queue of its own, the permits count the messages waiting or being handled.
+        this.objPermits = new Semaphore(queueSize + threads);
+        break;
+      case MODE_BOUNDED:
+        this.objQueue = new ArrayBlockingQueue<Runnable>(queueSize);
+        this.objExecutor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, this.objQueue, this.createThreadFactory(config.getName()), this.createRejectionHandler(config.getDispatchRejection()));
+        break;
+      case MODE_ORDERED:
+        ThreadFactory factory = this.createThreadFactory(config.getName());
+        this.arrLanes = new ThreadPoolExecutor[threads];
+        for (int i = 0; i < threads; i++)
+        {
+          this.arrLanes[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(queueSize), factory, this.createBlockingHandler());
+        }
+        this.objKeyExtractor = this.createKeyExtractor(config.getDispatchOrderKey());
+        break;
+      default:
+        objMonitor.warn(CallbackDispatcher.class, "Unknown dispatch mode '{}'. Falling back to inline dispatching.", this.strMode);
+        this.strMode = MODE_INLINE;
+        break;
+    }
+  }
+
+  /**
+   * Dispatches a received message to the callback.
+   *
+   * @param callback
+   *          the callback to be called.
+   * @param details
+   *          the details of the received message.
+   * @throws RejectedExecutionException
+   *           when the bounded queue is full and the rejection policy is abort. The listener container requeues the message.
+   */
+  public void dispatch(Callback callback, MessageDetails details)
+  {
+    if (this.arrLanes != null)
+    {
+      this.getLane(details).execute(this.createTask(callback, details));
+    }
+    else if (this.objPermits != null)
+    {
+      if (!this.acquirePermit())
+      {
+        // Interrupted while waiting for room, handle the message on the listener thread so it is not lost.
+        this.handle(callback, details);
+        return;
+      }
+      try
+      {
+        this.objExecutor.execute(this.createTask(callback, details));
+      }
+      catch (RejectedExecutionException e)
+      {
+        this.objPermits.release();
+        throw e;
+      }
+    }
+    else if (this.objExecutor != null)
+    {
+      this.objExecutor.execute(this.createTask(callback, details));
+    }
+    else
+    {
+      this.handle(callback, details);
+      return;
+    }
+    objMonitor.data(DataType.DISPATCH_QUEUE_DEPTH, this.getQueueDepth());
+  }
+
+  /**
+   * Limits the amount of consumers feeding this dispatcher. Concurrent consumers may take messages of the same key from the queue and dispatch them in either order, so the ordered mode allows only
+   * a single consumer.
+   *
+   * @param consumers
+   *          the configured amount of consumers.
+   * @return the amount of consumers to use.
+   */
+  public int limitConsumers(int consumers)
+  {
+    if (this.arrLanes != null && consumers > 1)
+    {
+      objMonitor.warn(CallbackDispatcher.class, "The ordered dispatch mode keeps messages in order for a single consumer only. Using 1 consumer instead of '{}'.", consumers);
+      return 1;
+    }
+    return consumers;
+  }
+
+  /**
+   * Gets the lane of a message. The hash of the key is spread so keys differing only in the high bits do not all end up in the same lane.
+   *
+   * @param details
+   *          the details of the received message.
+   * @return the lane handling all messages with the same key.
+   */
+  private ThreadPoolExecutor getLane(MessageDetails details)
+  {
+    Object key = this.objKeyExtractor.apply(details);
+    if (key == null)
+    {
+      return this.arrLanes[0];
+    }
+    int hash = key.hashCode();
+    hash ^= (hash >>> 16);
+    return this.arrLanes[Math.floorMod(hash, this.arrLanes.length)];
+  }
+
+  /**
+   * Wraps a callback in a task for a dispatch thread. Exceptions are logged, the message has already been acknowledged.
+   *
+   * @param callback
+   *          the callback to be called.
+   * @param details
+   *          the details of the received message.
+   * @return the task calling the callback.
+   */
+  private Runnable createTask(final Callback callback, final MessageDetails details)
+  {
+    return new Runnable()
+    {
+      @Override
+      public void run()
+      {
+        try
+        {
+          handle(callback, details);
+        }
+        catch (RuntimeException e)
+        {
+          objMonitor.warn(CallbackDispatcher.class, "The callback failed to handle a message. See trace in the logs for more information.");
+          objMonitor.trace(CallbackDispatcher.class, e);
+        }
+        finally
+        {
+          if (objPermits != null)
+          {
+            objPermits.release();
+          }
+        }
+      }
+    };
+  }
+
+  /**
+   * Calls the callback and records the time it took.
+   *
+   * @param callback
+   *          the callback to be called.
+   * @param details
+   *          the details of the received message.
+   */
+  private void handle(Callback callback, MessageDetails details)
+  {
+    long start = System.nanoTime();
+    try
+    {
+      callback.handleMessage(details);
+    }
+    finally
+    {
+      objMonitor.data(DataType.DISPATCH_HANDLED, 1);
+      objMonitor.data(DataType.DISPATCH_HANDLER_TIME, (int) TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+    }
+  }
+
+  /**
+   * Gets the amount of messages waiting for a dispatch thread.
+   *
+   * @return the amount of waiting messages, 0 when dispatching inline.
+   */
+  public int getQueueDepth()
+  {
+    if (this.arrLanes != null)
+    {
+      int depth = 0;
+      for (ThreadPoolExecutor lane : this.arrLanes)
+      {
+        depth += lane.getQueue().size();
+      }
+      return depth;
+    }
+    if (this.objExecutor instanceof ForkJoinPool)
+    {
+      ForkJoinPool pool = (ForkJoinPool) this.objExecutor;
+      return (int) Math.min(pool.getQueuedSubmissionCount() + pool.getQueuedTaskCount(), Integer.MAX_VALUE);
+    }
+    return this.objQueue == null ? 0 : this.objQueue.size();
+  }
+
+  /**
+   * Gets the dispatch mode in use.
+   *
+   * @return the dispatch mode.
+   */
+  public String getMode()
+  {
+    return this.strMode;
+  }
+
+  /**
+   * Sets the function giving the key messages are kept in order by. Only used by the ordered mode.
+   *
+   * @param keyExtractor
+   *          the function giving the key of a message, messages with a null key share a single lane.
+   */
+  public void setKeyExtractor(Function<MessageDetails, ?> keyExtractor)
+  {
+    if (keyExtractor != null)
+    {
+      this.objKeyExtractor = keyExtractor;
+    }
+  }
+
+  /**
+   * Stops the dispatch threads after the waiting messages are handled.
+   */
+  public void shutdown()
+  {
+    if (this.objExecutor != null)
+    {
+      this.objExecutor.shutdown();
+    }
+    if (this.arrLanes != null)
+    {
+      for (ThreadPoolExecutor lane : this.arrLanes)
+      {
+        lane.shutdown();
+      }
+    }
+  }
+
+  /**
+   * Creates the function giving the key messages are kept in order by.
+   *
+   * @param orderKey
+   *          the configured key, either sender, receiver or type.
+   * @return the matching key extractor, the sender when the key is unknown.
+   */
+  private Function<MessageDetails, ?> createKeyExtractor(String orderKey)
+  {
+    String key = orderKey == null ? KEY_SENDER : orderKey.toLowerCase();
+    switch (key)
+    {
+      case KEY_RECEIVER:
+        return MessageDetails::getReceiver;
+      case KEY_TYPE:
+        return MessageDetails::getMessageType;
+      case KEY_SENDER:
+        return MessageDetails::getSender;
+      default:
+        objMonitor.warn(CallbackDispatcher.class, "Unknown dispatch order key '{}'. Keeping messages in order by sender.", key);
+        return MessageDetails::getSender;
+    }
+  }
+
+  /**
+   * Creates the factory for the dispatch threads.
+   *
+   * @param name
+   *          the name of the messenger.
+   * @return a ThreadFactory creating daemon threads.
+   */
+  private ThreadFactory createThreadFactory(final String name)
+  {
+    final AtomicInteger counter = new AtomicInteger(0);
+    return (Runnable runnable) -> {
+      Thread thread = new Thread(runnable, "CallbackDispatcher-" + name + "-" + counter.getAndIncrement());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+
+  /**
+   * Waits for room in the work stealing pool.
+   *
+   * @return true when a permit was acquired, false when the listener thread was interrupted.
+   */
+  private boolean acquirePermit()
+  {
+    if (this.objPermits.tryAcquire())
+    {
+      return true;
+    }
+    objMonitor.data(DataType.DISPATCH_REJECTED, 1);
+    try
+    {
+      this.objPermits.acquire();
+      return true;
+    }
+    catch (InterruptedException e)
+    {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
+  /**
+   * Creates the handler for messages which do not fit in the queue of the fixed pool or an ordered lane. The listener thread waits until the queue has room, which keeps the message unacknowledged
+   * and slows down consumption.
+   *
+   * @return a RejectedExecutionHandler blocking the caller.
+   */
+  private RejectedExecutionHandler createBlockingHandler()
+  {
+    return new RejectedExecutionHandler()
+    {
+      @Override
+      public void rejectedExecution(Runnable runnable, ThreadPoolExecutor executor)
+      {
+        objMonitor.data(DataType.DISPATCH_REJECTED, 1);
+        if (executor.isShutdown())
+        {
+          objMonitor.data(DataType.MESSAGE_DISCARDED, 1);
+          objMonitor.warn(CallbackDispatcher.class, "The dispatcher is shut down. Throwing away the received message.");
+          return;
+        }
+        try
+        {
+          executor.getQueue().put(runnable);
+        }
+        catch (InterruptedException e)
+        {
+          Thread.currentThread().interrupt();
+          // Run on the listener thread so the message is not lost.
+          runnable.run();
+        }
+      }
+    };
+  }
+
+  /**
+   * Creates the handler for messages which do not fit in the bounded queue.
+   *
+   * @param policy
+   *          the configured rejection policy.
+   * @return the matching RejectedExecutionHandler.
+   */
+  private RejectedExecutionHandler createRejectionHandler(String policy)
+  {
+    final String rejection = policy == null ? REJECT_CALLERRUNS : policy.toLowerCase();
+    return new RejectedExecutionHandler()
+    {
+      @Override
+      public void rejectedExecution(Runnable runnable, ThreadPoolExecutor executor)
+      {
+        objMonitor.data(DataType.DISPATCH_REJECTED, 1);
+        switch (rejection)
+        {
+          case REJECT_DISCARD:
+            objMonitor.data(DataType.MESSAGE_DISCARDED, 1);
+            objMonitor.warn(CallbackDispatcher.class, "The dispatch queue is full. Throwing away the received message.");
+            break;
+          case REJECT_ABORT:
+            throw new RejectedExecutionException("The dispatch queue is full.");
+          default:
+            // Run on the listener thread, which slows down consumption until the queue has room again.
+            if (!executor.isShutdown())
+            {
+              runnable.run();
+            }
+            break;
+        }
+      }
+    };
+  }
+}
@@ -0,0 +1,301 @@
+package com.maxxton.aam.communication;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+
+import com.maxxton.aam.monitoring.Monitor;
+import com.maxxton.aam.monitoring.MonitorFactory;
+import com.maxxton.aam.monitoring.Monitor.DataType;
+
+/**
+ * ChunkAssembler class Reassembles messages which were split into chunks by the sender. Chunks of a message share its correlation id and sender and may arrive in any order, each chunk is copied to
+ * its offset in the body as soon as it arrives. The bodies being reassembled are bounded by a maximum amount of bytes, messages which do not fit or which are not completed in time are thrown away.
+ * Chunks are acknowledged as they arrive, so a message which was being reassembled while the messenger stopped is lost. Every chunk carries at least one byte, so a message never has more chunks than
+ * bytes and the chunk bookkeeping is counted in the buffer as well.
+ *
+ * @author Robin Hermans
+ * @copyright Maxxton 2015
+ */
+public class ChunkAssembler
+{
+  private Monitor objMonitor = MonitorFactory.getMonitor("global");
+
+  private ConcurrentMap<String, Assembly> mapAssemblies;
+  private AtomicLong lngBufferedBytes;
+  private long lngMaxBytes;
+  private long lngTimeout;
+
+  /**
+   * Constructor for the ChunkAssembler class.
+   *
+   * @param maxBytes
+   *          the maximum amount of bytes held by incomplete messages.
+   * @param timeout
+   *          the time in seconds an incomplete message is kept, 0 to keep them until they are completed.
+   */
+  public ChunkAssembler(int maxBytes, int timeout)
+  {
+    this.mapAssemblies = new ConcurrentHashMap<String, Assembly>();
+    this.lngBufferedBytes = new AtomicLong(0);
+    this.setMaxBytes(maxBytes);
+    this.setTimeout(timeout);
+  }
+
+  /**
+   * Adds a received chunk.
+   *
+   * @param correlationId
+   *          the correlation id shared by the chunks of the message.
+   * @param chunk
+   *          the received chunk.
+   * @return the reassembled message once its last chunk arrived, null while chunks are missing or when the chunk was thrown away.
+   */
+  public Message add(String correlationId, Message chunk)
+  {
+    MessageProperties properties = chunk.getMessageProperties();
+    int index = MessageHeaders.getInteger(properties, MessageHeaders.CHUNK_INDEX);
+    int count = MessageHeaders.getInteger(properties, MessageHeaders.CHUNK_COUNT);
+    int offset = MessageHeaders.getInteger(properties, MessageHeaders.CHUNK_OFFSET);
+    int length = MessageHeaders.getInteger(properties, MessageHeaders.CHUNK_LENGTH);
+    byte[] body = chunk.getBody();
+    if (index < 0 || index >= count || count > Math.max(length, 1) || offset < 0 || length < 0 || body == null || offset + body.length > length)
+    {
+      objMonitor.warn(ChunkAssembler.class, "Received chunk {} of message '{}' with invalid chunk headers. Throwing away the chunk.", index, correlationId);
+      objMonitor.data(DataType.CHUNK_DROPPED, 1);
+      return null;
+    }
+
+    String key = correlationId + "|" + MessageHeaders.getSender(properties);
+    Assembly assembly = this.mapAssemblies.get(key);
+    if (assembly == null)
+    {
+      // The received flags are reserved along with the body, the header checks above keep them from outgrowing it.
+      long size = (long) length + count;
+      if (!this.reserve(size))
+      {
+        objMonitor.warn(ChunkAssembler.class, "The reassembly buffer is full. Throwing away chunk {} of message '{}'.", index, correlationId);
+        objMonitor.data(DataType.CHUNK_DROPPED, 1);
+        return null;
+      }
+
+      Assembly created = new Assembly(count, length, size);
+      assembly = this.mapAssemblies.putIfAbsent(key, created);
+      if (assembly == null)
+      {
+        assembly = created;
+      }
+      else
+      {
+        // Another listener thread received a chunk of the same message first.
+        this.lngBufferedBytes.addAndGet(-size);
+      }
+    }
+
+    synchronized (assembly)
+    {
+      if (assembly.blnDone)
+      {
+        // Expired or completed while this chunk was on its way, a redelivered chunk would start a new assembly.
+        return null;
+      }
+      if (assembly.arrReceived.length != count || assembly.arrBody.length != length)
+      {
+        objMonitor.warn(ChunkAssembler.class, "Received chunk {} of message '{}' which does not match the earlier chunks. Throwing away the chunk.", index, correlationId);
+        objMonitor.data(DataType.CHUNK_DROPPED, 1);
+        return null;
+      }
+      if (assembly.arrReceived[index])
+      {
+        return null;
+      }
+
+      System.arraycopy(body, 0, assembly.arrBody, offset, body.length);
+      assembly.arrReceived[index] = true;
+      if (assembly.objProperties == null)
+      {
+        assembly.objProperties = properties;
+      }
+      if (--assembly.intRemaining > 0)
+      {
+        return null;
+      }
+
+      assembly.blnDone = true;
+      this.mapAssemblies.remove(key, assembly);
+      this.lngBufferedBytes.addAndGet(-assembly.lngSize);
+      MessageHeaders.removeChunk(assembly.objProperties);
+      return new Message(assembly.arrBody, assembly.objProperties);
+    }
+  }
+
+  /**
+   * Throws away incomplete messages which were not completed in time.
+   *
+   * @return the amount of thrown away messages.
+   */
+  public int expire()
+  {
+    if (this.lngTimeout <= 0)
+    {
+      return 0;
+    }
+
+    int removed = 0;
+    long now = System.nanoTime();
+    Iterator<Assembly> assemblies = this.mapAssemblies.values().iterator();
+    while (assemblies.hasNext())
+    {
+      Assembly assembly = assemblies.next();
+      if (now - assembly.lngStartedAt >= this.lngTimeout)
+      {
+        synchronized (assembly)
+        {
+          if (!assembly.blnDone)
+          {
+            assembly.blnDone = true;
+            assemblies.remove();
+            this.lngBufferedBytes.addAndGet(-assembly.lngSize);
+            removed++;
+          }
+        }
+      }
+    }
+
+    if (removed > 0)
+    {
+      objMonitor.warn(ChunkAssembler.class, "{} chunked messages were not completed in time. Throwing away the received chunks.", removed);
+      objMonitor.data(DataType.CHUNK_DROPPED, removed);
+    }
+    return removed;
+  }
+
+  /**
+   * Throws away all incomplete messages.
+   */
+  public void clear()
+  {
+    this.mapAssemblies.clear();
+    this.lngBufferedBytes.set(0);
+  }
+
+  /**
+   * Gets the amount of messages being reassembled.
+   *
+   * @return the amount of incomplete messages.
+   */
+  public int size()
+  {
+    return this.mapAssemblies.size();
+  }
+
+  /**
+   * Gets the amount of bytes held by incomplete messages, including their chunk bookkeeping.
+   *
+   * @return the amount of bytes.
+   */
+  public long getBufferedBytes()
+  {
+    return this.lngBufferedBytes.get();
+  }
+
+  /**
+   * Sets the maximum amount of bytes held by incomplete messages.
+   *
+   * @param maxBytes
+   *          the maximum amount of bytes.
+   */
+  public void setMaxBytes(int maxBytes)
+  {
+    this.lngMaxBytes = Math.max(maxBytes, 0);
+  }
+
+  /**
+   * Sets the time an incomplete message is kept.
+   *
+   * @param timeout
+   *          the time in seconds, 0 to keep them until they are completed.
+   */
+  public void setTimeout(int timeout)
+  {
+    this.lngTimeout = TimeUnit.SECONDS.toNanos(Math.max(timeout, 0));
+  }
+
+  /**
+   * Sets the Monitor instance.
+   *
+   * @param monitor
+   *          the monitor instance of the messenger.
+   */
+  public void setMonitor(Monitor monitor)
+  {
+    this.objMonitor = monitor;
+  }
+
+  /**
+   * Reserves room in the buffer for a new message. Expires incomplete messages first when the buffer is full.
+   *
+   * @param size
+   *          the size of the body and its chunk bookkeeping.
+   * @return true if the message fits, false if it doesn't.
+   */
+  private boolean reserve(long size)
+  {
+    if (this.tryReserve(size))
+    {
+      return true;
+    }
+    this.expire();
+    return this.tryReserve(size);
+  }
+
+  /**
+   * Reserves room in the buffer if it fits.
+   *
+   * @param size
+   *          the size of the body and its chunk bookkeeping.
+   * @return true if the room was reserved, false if not.
+   */
+  private boolean tryReserve(long size)
+  {
+    long buffered;
+    do
+    {
+      buffered = this.lngBufferedBytes.get();
+      if (buffered + size > this.lngMaxBytes)
+      {
+        return false;
+      }
+    }
+    while (!this.lngBufferedBytes.compareAndSet(buffered, buffered + size));
+    return true;
+  }
+
+  /**
+   * Body of a message being reassembled. Guarded by its own lock.
+   */
+  private static class Assembly
+  {
+    private final byte[] arrBody;
+    private final boolean[] arrReceived;
+    private final long lngStartedAt;
+    private final long lngSize;
+    private int intRemaining;
+    private boolean blnDone;
+    private MessageProperties objProperties;
+
+    private Assembly(int count, int length, long size)
+    {
+      this.arrBody = new byte[length];
+      this.arrReceived = new boolean[count];
+      this.lngStartedAt = System.nanoTime();
+      this.lngSize = size;
+      this.intRemaining = count;
+    }
+  }
+}
@@ -1,16 +1,26 @@
 package com.maxxton.aam.communication;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
-import java.util.UUID;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 
 import org.springframework.amqp.core.Message;
 import org.springframework.amqp.core.MessageProperties;
 
 import com.maxxton.aam.messages.BaseMessage;
+import com.maxxton.aam.monitoring.Monitor;
+import com.maxxton.aam.monitoring.MonitorFactory;
+import com.maxxton.aam.resources.MessageDetails;
 import com.maxxton.aam.resources.Resources;
 
 /**
- * CommunicationController class Supports the (un)wrapping,(de/en)coding of send and received messages. Also adds the parameter values to the message body.
+ * CommunicationController class Supports the (un)wrapping,(de/en)coding of send and received messages. Also adds the parameter values to the message body. Bodies larger than the configured chunk
+ * size are send as a sequence of chunks sharing the correlation id, the ReceiveController reassembles them.
  * 
  * @author Robin Hermans
  * @copyright Maxxton 2015
@@ -20,6 +30,11 @@ public class CommunicationController
 
   private SendController objSender;
   private ReceiveController objReceiver;
+  private volatile MessageCodec objCodec;
+  private MessageCompressor objCompressor;
+  private DataContainer objContainer;
+  private Resources objResources;
+  private Monitor objMonitor;
 
   /**
    * Constructor for the CommunicationController class.
@@ -31,6 +46,12 @@ public class CommunicationController
   {
     this.objSender = new SendController(resources);
     this.objReceiver = new ReceiveController(resources);
+    this.objSender.setReplyListener(this.objReceiver);
+    this.objCodec = new EnvelopeCodec(MessageCodecs.getCodec(resources.getConfiguration().getMessageCodec()));
+    this.objCompressor = MessageCompressors.getCompressor(resources.getConfiguration().getMessageCompressor());
+    this.objContainer = DataContainer.getInstance(resources.getConfiguration().getName());
+    this.objResources = resources;
+    this.objMonitor = MonitorFactory.getMonitor(resources.getConfiguration().getName());
   }
 
   /**
@@ -45,7 +66,7 @@ public class CommunicationController
     Message message = this.objReceiver.receiveMessage(millis);
     if (message != null)
     {
-      BaseMessage baseMessage = (BaseMessage) MessageSerializer.deserialize(message.getBody());
+      BaseMessage baseMessage = (BaseMessage) MessageCodecs.decode(message, this.objCodec, this.objMonitor);
       return baseMessage;
     }
     return null;
@@ -77,20 +98,277 @@ public class CommunicationController
    * @return outcome of the send method. An valid UUID if the message was send correctly, null if it was not.
    */
   public String packAndSend(String receiver, BaseMessage baseMessage, String responseTo)
+  {
+    byte[] id = this.nextId(responseTo);
+    Message message = this.pack(id, baseMessage);
+    if (message == null)
+    {
+      return null;
+    }
+    for (Message chunk : this.split(message))
+    {
+      if (!objSender.sendMessage(receiver, chunk))
+      {
+        return null;
+      }
+    }
+    return this.idToString(id, responseTo);
+  }
+
+  /**
+   * Convert a message to the appropriate Message class and send it without waiting for the broker.
+   *
+   * @param receiver
+   *          the receiver of the message.
+   * @param baseMessage
+   *          the message to be send.
+   * @param responseTo
+   *          correlationId where the message is a response to.
+   * @return a future completing with a valid UUID once the broker confirmed the message, or with null if the message cannot be encoded or the receiver does not exist.
+   */
+  public CompletableFuture<String> packAndSendAsync(String receiver, BaseMessage baseMessage, String responseTo)
+  {
+    byte[] id = this.nextId(responseTo);
+    final String uuid = this.idToString(id, responseTo);
+    Message message = this.pack(id, baseMessage);
+    if (message == null)
+    {
+      return CompletableFuture.completedFuture(null);
+    }
+    List<Message> chunks = this.split(message);
+    return this.sendAll(chunks, chunk -> objSender.sendMessageAsync(receiver, chunk)).thenApply(sent -> sent ? uuid : null);
+  }
+
+  /**
+   * Convert a message to the appropriate Message class and send it as a request. The request is registered as pending before it is send, so a fast reply cannot be missed.
+   *
+   * @param receiver
+   *          the receiver of the message.
+   * @param baseMessage
+   *          the message to be send.
+   * @param millis
+   *          time to wait for the reply in milliseconds.
+   * @return a future completing with the details of the reply, with null if the message cannot be encoded or the receiver does not exist or exceptionally when the request failed or timed out.
+   */
+  public CompletableFuture<MessageDetails> packAndRequest(String receiver, BaseMessage baseMessage, int millis)
+  {
+    byte[] id = this.nextId(null);
+    final String uuid = this.idToString(id, null);
+    Message message = this.pack(id, baseMessage);
+    if (message == null)
+    {
+      return CompletableFuture.completedFuture(null);
+    }
+    final CompletableFuture<MessageDetails> reply = this.objContainer.addPendingRequest(uuid, millis);
+    List<Message> chunks = this.split(message);
+    this.sendAll(chunks, chunk -> objSender.sendRequest(receiver, chunk)).whenComplete((sent, error) -> {
+      if (error != null || !sent)
+      {
+        this.objContainer.removePendingRequest(uuid);
+        this.objContainer.removeIdentifier(uuid);
+        if (error != null)
+        {
+          reply.completeExceptionally(error);
+        }
+        else
+        {
+          reply.complete(null);
+        }
+      }
+    });
+    return reply;
+  }
+
+  /**
+   * Convert a batch of messages to the appropriate Message class and send them together.
+   *
+   * @param receivers
+   *          the receivers of the messages.
+   * @param baseMessages
+   *          the messages to be send.
+   * @param responseTos
+   *          correlationIds where the messages are a response to, entries may be null.
+   * @return outcome per message in the same order. An valid UUID if the message was send correctly, null if it was not.
+   */
+  public List<String> packAndSend(List<String> receivers, List<BaseMessage> baseMessages, List<String> responseTos)
+  {
+    List<String> uuids = new ArrayList<String>(baseMessages.size());
+    List<String> chunkReceivers = new ArrayList<String>(baseMessages.size());
+    List<Message> messages = new ArrayList<Message>(baseMessages.size());
+    int[] arrChunks = new int[baseMessages.size()];
+    for (int i = 0; i < baseMessages.size(); i++)
+    {
+      String responseTo = responseTos.get(i);
+      byte[] id = this.nextId(responseTo);
+      Message message = this.pack(id, baseMessages.get(i));
+      if (message == null)
+      {
+        // A message which cannot be encoded has no chunks and keeps a null outcome.
+        uuids.add(null);
+        continue;
+      }
+      uuids.add(this.idToString(id, responseTo));
+      List<Message> chunks = this.split(message);
+      arrChunks[i] = chunks.size();
+      messages.addAll(chunks);
+      chunkReceivers.addAll(Collections.nCopies(chunks.size(), receivers.get(i)));
+    }
+
+    List<Boolean> sent = objSender.sendMessages(chunkReceivers, messages);
+    int position = 0;
+    for (int i = 0; i < uuids.size(); i++)
+    {
+      boolean allSent = true;
+      for (int chunk = 0; chunk < arrChunks[i]; chunk++)
+      {
+        allSent &= sent.get(position++);
+      }
+      if (!allSent)
+      {
+        uuids.set(i, null);
+      }
+    }
+    return uuids;
+  }
+
+  /**
+   * Gets the correlationId of an outgoing message. New messages get an id from the IdGenerator, responses reuse the id of the message they respond to.
+   *
+   * @param responseTo
+   *          correlationId where the message is a response to, null or empty for a new message.
+   * @return the correlationId as the bytes send along with the message.
+   */
+  private byte[] nextId(String responseTo)
+  {
+    return responseTo == null || responseTo.isEmpty() ? this.objContainer.getIdGenerator().nextId() : responseTo.getBytes();
+  }
+
+  /**
+   * Converts a correlationId to the string handed to the user.
+   *
+   * @param id
+   *          the correlationId returned by nextId.
+   * @param responseTo
+   *          correlationId where the message is a response to, null or empty for a new message.
+   * @return the correlationId as string.
+   */
+  private String idToString(byte[] id, String responseTo)
+  {
+    return responseTo == null || responseTo.isEmpty() ? new String(id, StandardCharsets.US_ASCII) : responseTo;
+  }
+
+  /**
+   * Encodes a message with the configured codec and wraps it into an AMQP Message with the given correlationId. The envelope fields are copied into the headers.
+   *
+   * @param id
+   *          the correlationId of the message.
+   * @param baseMessage
+   *          the message to be wrapped.
+   * @return the wrapped message, null if the message cannot be encoded.
+   */
+  private Message pack(byte[] id, BaseMessage baseMessage)
   {
     MessageProperties properties = new MessageProperties();
-    String uuid = responseTo == null || responseTo == "" ? UUID.randomUUID().toString() : responseTo;
-    properties.setCorrelationId(uuid.getBytes());
+    properties.setCorrelationId(id);
     properties.setTimestamp(new Date());
+    properties.setContentType(this.objCodec.getContentType());
+    MessageHeaders.write(properties, baseMessage);
 
-    byte[] messageBytes = MessageSerializer.serialize(baseMessage);
-    Message message = new Message(messageBytes, properties);
-    if (objSender.sendMessage(receiver, message))
+    byte[] messageBytes = this.objCodec.encode(baseMessage);
+    if (messageBytes == null)
     {
-      return uuid;
+      this.objMonitor.warn(CommunicationController.class, "Unable to encode message '{}'. The message is not send.", new String(id, StandardCharsets.US_ASCII));
+      return null;
     }
+    messageBytes = MessageCompressors.compress(messageBytes, properties, this.objCompressor, this.objResources.getConfiguration().getMessageCompressThreshold(), this.objMonitor);
+    return new Message(messageBytes, properties);
+  }
 
-    return null;
+  /**
+   * Splits a packed message into chunks when its body is larger than the configured chunk size. Every chunk carries the properties and headers of the message, including its correlation id, plus
+   * its position in the body.
+   *
+   * @param message
+   *          the packed message.
+   * @return the chunks in sequence, or only the message itself if it does not need to be split.
+   */
+  private List<Message> split(Message message)
+  {
+    int chunkSize = this.objResources.getConfiguration().getMessageChunkSize();
+    byte[] body = message.getBody();
+    if (chunkSize <= 0 || body.length <= chunkSize)
+    {
+      return Collections.singletonList(message);
+    }
+
+    MessageProperties properties = message.getMessageProperties();
+    int count = (body.length - 1) / chunkSize + 1;
+    List<Message> chunks = new ArrayList<Message>(count);
+    for (int index = 0; index < count; index++)
+    {
+      int offset = index * chunkSize;
+      // Only the properties set by pack need to be copied.
+      MessageProperties chunkProperties = new MessageProperties();
+      chunkProperties.setCorrelationId(properties.getCorrelationId());
+      chunkProperties.setTimestamp(properties.getTimestamp());
+      chunkProperties.setContentType(properties.getContentType());
+      chunkProperties.setContentEncoding(properties.getContentEncoding());
+      chunkProperties.setPriority(properties.getPriority());
+      chunkProperties.getHeaders().putAll(properties.getHeaders());
+      MessageHeaders.writeChunk(chunkProperties, index, count, offset, body.length);
+      chunks.add(new Message(Arrays.copyOfRange(body, offset, offset + Math.min(chunkSize, body.length - offset)), chunkProperties));
+    }
+    return chunks;
+  }
+
+  /**
+   * Sends the chunks of a message in sequence.
+   *
+   * @param chunks
+   *          the chunks to be send.
+   * @param send
+   *          the asynchronous send method used for every chunk.
+   * @return a future completing with true once all chunks were send, false if any of them was not or exceptionally when any of them failed.
+   */
+  private CompletableFuture<Boolean> sendAll(List<Message> chunks, Function<Message, CompletableFuture<Boolean>> send)
+  {
+    CompletableFuture<Boolean> sent = send.apply(chunks.get(0));
+    for (int i = 1; i < chunks.size(); i++)
+    {
+      sent = sent.thenCombine(send.apply(chunks.get(i)), (previous, chunk) -> previous && chunk);
+    }
+    return sent;
+  }
+
+  /**
+   * Sets the MessageCodec instance used to encode messages.
+   *
+   * @param codec
+   *          instance of the MessageCodec interface
+   */
+  public void setCodec(MessageCodec codec)
+  {
+    this.objCodec = codec;
+    MessageCodecs.register(codec);
+  }
+
+  /**
+   * Gets the MessageCodec instance used to encode messages.
+   *
+   * @return an instance of the MessageCodec interface
+   */
+  public MessageCodec getCodec()
+  {
+    return this.objCodec;
+  }
+
+  /**
+   * Stops sending and receiving and hands the broker connections back to the pool.
+   */
+  public void destroy()
+  {
+    this.objReceiver.destroy();
+    this.objSender.destroy();
   }
 
   /**
@@ -123,6 +401,7 @@ public class CommunicationController
   public void setReceiver(ReceiveController receiver)
   {
     this.objReceiver = receiver;
+    this.objSender.setReplyListener(receiver);
   }
 
   /**
@@ -0,0 +1,157 @@
+package com.maxxton.aam.communication;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.rabbit.support.CorrelationData;
+
+/**
+ * ConfirmTracker class Keeps track of published messages which are not yet confirmed by the broker. The delivery tags themselves are tracked per channel by the RabbitTemplate, this class maps the
+ * confirms back to the futures handed out to the sender and limits the amount of unconfirmed messages. The broker acknowledges a message it returned as unroutable as well, such a message is
+ * marked as returned first so its acknowledgement fails the future.
+ *
+ * @author Robin Hermans
+ * @copyright Maxxton 2015
+ */
+public class ConfirmTracker
+{
+  private ConcurrentMap<String, CompletableFuture<Boolean>> mapPending;
+  private Set<String> setReturned;
+  private AtomicLong lngSequence;
+  private Semaphore objPermits;
+  private int intMaxPending;
+
+  /**
+   * Constructor for the ConfirmTracker class.
+   *
+   * @param maxPending
+   *          the maximum amount of unconfirmed messages, 0 or less means unbounded.
+   */
+  public ConfirmTracker(int maxPending)
+  {
+    this.intMaxPending = maxPending > 0 ? maxPending : Integer.MAX_VALUE;
+    this.mapPending = new ConcurrentHashMap<String, CompletableFuture<Boolean>>();
+    this.setReturned = ConcurrentHashMap.newKeySet();
+    this.lngSequence = new AtomicLong(0);
+    this.objPermits = new Semaphore(this.intMaxPending);
+  }
+
+  /**
+   * Registers a future which is completed once the broker confirms the message. Blocks while the maximum amount of unconfirmed messages is reached.
+   *
+   * @param future
+   *          the future to be completed by the confirm.
+   * @return the CorrelationData to publish the message with.
+   * @throws InterruptedException
+   *           when the thread was interrupted while waiting for room.
+   */
+  public CorrelationData register(CompletableFuture<Boolean> future) throws InterruptedException
+  {
+    this.objPermits.acquire();
+    String key = Long.toString(this.lngSequence.incrementAndGet());
+    this.mapPending.put(key, future);
+    return new CorrelationData(key);
+  }
+
+  /**
+   * Marks a pending message as returned by the broker. The broker still acknowledges a returned message afterwards, that acknowledgement fails its future.
+   *
+   * @param id
+   *          the id of the CorrelationData the message was published with.
+   */
+  public void returned(String id)
+  {
+    if (id != null && this.mapPending.containsKey(id))
+    {
+      this.setReturned.add(id);
+    }
+  }
+
+  /**
+   * Handles a confirm given by the broker.
+   *
+   * @param correlation
+   *          the CorrelationData the message was published with.
+   * @param ack
+   *          true if the broker acknowledged the message, false if it did not.
+   * @param cause
+   *          the reason given by the broker on a negative acknowledgement.
+   */
+  public void confirm(CorrelationData correlation, boolean ack, String cause)
+  {
+    boolean returned = correlation != null && correlation.getId() != null && this.setReturned.contains(correlation.getId());
+    CompletableFuture<Boolean> future = this.remove(correlation);
+    if (future != null)
+    {
+      if (!ack)
+        future.completeExceptionally(new AmqpException("The broker did not acknowledge the message: " + cause));
+      else if (returned)
+        future.completeExceptionally(new AmqpException("The broker returned the message as unroutable."));
+      else
+        future.complete(true);
+    }
+  }
+
+  /**
+   * Fails a registered future without waiting for the broker, for example when publishing itself failed.
+   *
+   * @param correlation
+   *          the CorrelationData the message was published with.
+   * @param cause
+   *          the reason of failure.
+   */
+  public void fail(CorrelationData correlation, Throwable cause)
+  {
+    CompletableFuture<Boolean> future = this.remove(correlation);
+    if (future != null)
+    {
+      future.completeExceptionally(cause);
+    }
+  }
+
+  /**
+   * Removes a future from the pending map and releases its permit. Its returned mark is removed along with it.
+   *
+   * @param correlation
+   *          the CorrelationData of the message.
+   * @return the removed future or null if it was unknown.
+   */
+  private CompletableFuture<Boolean> remove(CorrelationData correlation)
+  {
+    if (correlation == null || correlation.getId() == null)
+      return null;
+
+    CompletableFuture<Boolean> future = this.mapPending.remove(correlation.getId());
+    this.setReturned.remove(correlation.getId());
+    if (future != null)
+    {
+      this.objPermits.release();
+    }
+    return future;
+  }
+
+  /**
+   * Gets the amount of messages waiting for a confirm.
+   *
+   * @return the amount of unconfirmed messages.
+   */
+  public int getPendingCount()
+  {
+    return this.mapPending.size();
+  }
+
+  /**
+   * Gets the maximum amount of unconfirmed messages.
+   *
+   * @return the maximum amount of unconfirmed messages.
+   */
+  public int getMaxPending()
+  {
+    return this.intMaxPending;
+  }
+}
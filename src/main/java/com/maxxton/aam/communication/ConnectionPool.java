@@ -0,0 +1,156 @@
+package com.maxxton.aam.communication;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import org.springframework.amqp.rabbit.connection.CachingConnectionFactory;
+
+import com.maxxton.aam.monitoring.Monitor;
+import com.maxxton.aam.monitoring.MonitorFactory;
+import com.maxxton.aam.resources.Configuration;
+
+/**
+ * ConnectionPool class Hands out broker connections shared by the send and receive controllers. A connection is opened for the first borrower of a key and closed once the last borrower released it.
+ * The sharing mode of the borrowing messenger decides the key: jvm shares one connection between all messengers on the same broker, messenger shares one connection between the sender and receiver of
+ * a messenger and split shares one connection for publishing and one for consuming between all messengers.
+ *
+ * @author Robin Hermans
+ * @copyright Maxxton 2015
+ */
+public class ConnectionPool
+{
+  public static final String SHARING_JVM = "jvm";
+  public static final String SHARING_MESSENGER = "messenger";
+  public static final String SHARING_SPLIT = "split";
+
+  public static final String ROLE_PUBLISH = "publish";
+  public static final String ROLE_CONSUME = "consume";
+
+  private final Monitor objMonitor = MonitorFactory.getMonitor("global");
+
+  private Map<String, CachingConnectionFactory> mapConnections;
+  private Map<CachingConnectionFactory, String> mapKeys;
+  private Map<CachingConnectionFactory, Integer> mapBorrowers;
+
+  /**
+   * Constructor for the ConnectionPool class.
+   */
+  public ConnectionPool()
+  {
+    this.mapConnections = new HashMap<String, CachingConnectionFactory>();
+    this.mapKeys = new IdentityHashMap<CachingConnectionFactory, String>();
+    this.mapBorrowers = new IdentityHashMap<CachingConnectionFactory, Integer>();
+  }
+
+  /**
+   * Borrows a connection to the broker of a messenger. The connection has publisher confirms and returns enabled unless it is only used for consuming.
+   *
+   * @param config
+   *          the configuration of the borrowing messenger.
+   * @param role
+   *          either publish or consume.
+   * @return the shared connection factory.
+   */
+  public synchronized CachingConnectionFactory borrow(Configuration config, String role)
+  {
+    String addresses = this.getAddresses(config);
+    String sharing = config.getConnectionSharing() == null ? SHARING_SPLIT : config.getConnectionSharing().toLowerCase();
+    String key;
+    switch (sharing)
+    {
+      case SHARING_JVM:
+        key = addresses + "|" + config.getUsername();
+        break;
+      case SHARING_MESSENGER:
+        key = addresses + "|" + config.getUsername() + "|" + config.getName();
+        break;
+      case SHARING_SPLIT:
+        key = addresses + "|" + config.getUsername() + "|" + role;
+        break;
+      default:
+        objMonitor.warn(ConnectionPool.class, "Unknown connection sharing '{}'. Sharing a connection for publishing and one for consuming.", sharing);
+        key = addresses + "|" + config.getUsername() + "|" + role;
+        sharing = SHARING_SPLIT;
+        break;
+    }
+
+    CachingConnectionFactory connection = this.mapConnections.get(key);
+    if (connection == null)
+    {
+      connection = new CachingConnectionFactory();
+      connection.setAddresses(addresses);
+      connection.setUsername(config.getUsername());
+      connection.setPassword(config.getPassword());
+      connection.setChannelCacheSize(Math.max(config.getConnectionChannelCache(), 1));
+      if (!SHARING_SPLIT.equals(sharing) || ROLE_PUBLISH.equals(role))
+      {
+        connection.setPublisherReturns(true);
+        connection.setPublisherConfirms(true);
+      }
+      this.mapConnections.put(key, connection);
+      this.mapKeys.put(connection, key);
+      this.mapBorrowers.put(connection, 0);
+    }
+    this.mapBorrowers.put(connection, this.mapBorrowers.get(connection) + 1);
+    return connection;
+  }
+
+  /**
+   * Releases a borrowed connection. The connection is closed when nobody else borrowed it.
+   *
+   * @param connection
+   *          the connection factory returned by borrow.
+   */
+  public synchronized void release(CachingConnectionFactory connection)
+  {
+    Integer borrowers = this.mapBorrowers.get(connection);
+    if (borrowers == null)
+    {
+      objMonitor.warn(ConnectionPool.class, "Released a connection which was not borrowed from the pool.");
+      return;
+    }
+
+    if (borrowers > 1)
+    {
+      this.mapBorrowers.put(connection, borrowers - 1);
+    }
+    else
+    {
+      this.mapBorrowers.remove(connection);
+      this.mapConnections.remove(this.mapKeys.remove(connection));
+      connection.destroy();
+    }
+  }
+
+  /**
+   * Gets the amount of connections in the pool.
+   *
+   * @return the amount of connections.
+   */
+  public synchronized int size()
+  {
+    return this.mapConnections.size();
+  }
+
+  /**
+   * Builds the address list of the broker.
+   *
+   * @param config
+   *          the configuration of the messenger.
+   * @return the comma separated host and port pairs.
+   */
+  private String getAddresses(Configuration config)
+  {
+    StringBuilder addresses = new StringBuilder();
+    for (int port : config.getPorts())
+    {
+      if (addresses.length() > 0)
+      {
+        addresses.append(",");
+      }
+      addresses.append(config.getHost()).append(":").append(port);
+    }
+    return addresses.toString();
+  }
+}
@@ -0,0 +1,264 @@
+package com.maxxton.aam.communication;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.maxxton.aam.resources.Validator;
+
+/**
+ * CorrelationIndex class Keeps values by the correlation id of a message. Lookup, insert and remove are constant time, entries expire a fixed time after they were inserted. The insertion order is kept
+ * in a separate queue, so expiring and trimming only ever touch the oldest entries.
+ *
+ * @param <V>
+ *          the type of the indexed values.
+ * @author Robin Hermans
+ * @copyright Maxxton 2015
+ */
+public class CorrelationIndex<V>
+{
+  private ConcurrentMap<String, Entry<V>> mapEntries;
+  private ConcurrentLinkedQueue<Entry<V>> clqInsertions;
+  private AtomicInteger intInsertions;
+  private long lngTimeToLive;
+
+  /**
+   * Constructor for the CorrelationIndex class.
+   *
+   * @param timeToLive
+   *          the time in seconds an entry is kept after it was inserted, 0 to keep entries until they are trimmed.
+   */
+  public CorrelationIndex(int timeToLive)
+  {
+    this.mapEntries = new ConcurrentHashMap<String, Entry<V>>();
+    this.clqInsertions = new ConcurrentLinkedQueue<Entry<V>>();
+    this.intInsertions = new AtomicInteger(0);
+    this.setTimeToLive(timeToLive);
+  }
+
+  /**
+   * Adds a value to the index, replacing any value with the same correlation id.
+   *
+   * @param id
+   *          the correlation id.
+   * @param value
+   *          the value to be indexed.
+   */
+  public void put(String id, V value)
+  {
+    if (Validator.checkString(id) && value != null)
+    {
+      Entry<V> entry = new Entry<V>(id, value, System.nanoTime());
+      this.mapEntries.put(id, entry);
+      this.clqInsertions.add(entry);
+      this.intInsertions.incrementAndGet();
+    }
+  }
+
+  /**
+   * Gets the value indexed by a correlation id.
+   *
+   * @param id
+   *          the correlation id.
+   * @return the value, null if it is missing or expired.
+   */
+  public V get(String id)
+  {
+    if (Validator.checkString(id))
+    {
+      Entry<V> entry = this.mapEntries.get(id);
+      if (entry != null)
+      {
+        if (!this.isExpired(entry, System.nanoTime()))
+        {
+          return entry.objValue;
+        }
+        this.mapEntries.remove(id, entry);
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Checks whether a correlation id is indexed.
+   *
+   * @param id
+   *          the correlation id.
+   * @return true if a value which has not expired is indexed, false if not.
+   */
+  public boolean contains(String id)
+  {
+    return this.get(id) != null;
+  }
+
+  /**
+   * Removes the value indexed by a correlation id.
+   *
+   * @param id
+   *          the correlation id.
+   * @return the removed value, null if nothing was indexed.
+   */
+  public V remove(String id)
+  {
+    if (Validator.checkString(id))
+    {
+      Entry<V> entry = this.mapEntries.remove(id);
+      if (entry != null)
+      {
+        return entry.objValue;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Removes the value indexed by a correlation id, only if it is the given value.
+   *
+   * @param id
+   *          the correlation id.
+   * @param value
+   *          the value which is expected to be indexed.
+   * @return true if the value was removed, false if not.
+   */
+  public boolean remove(String id, V value)
+  {
+    if (Validator.checkString(id))
+    {
+      Entry<V> entry = this.mapEntries.get(id);
+      if (entry != null && entry.objValue.equals(value))
+      {
+        return this.mapEntries.remove(id, entry);
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Removes expired entries and the oldest entries above the given maximum. Insertion records of entries which were removed earlier are dropped along the way, or all at once when they start to
+   * outnumber the entries.
+   *
+   * @param maxElements
+   *          the maximum amount of entries to keep.
+   * @return the amount of removed entries.
+   */
+  public int expire(int maxElements)
+  {
+    int removed = 0;
+    long now = System.nanoTime();
+    Entry<V> entry;
+    while ((entry = this.clqInsertions.peek()) != null)
+    {
+      if (this.mapEntries.get(entry.strId) != entry)
+      {
+        // Already removed or replaced, only the insertion record is left.
+        this.removeInsertion(entry);
+      }
+      else if (this.isExpired(entry, now) || this.mapEntries.size() > maxElements)
+      {
+        this.removeInsertion(entry);
+        if (this.mapEntries.remove(entry.strId, entry))
+        {
+          removed++;
+        }
+      }
+      else
+      {
+        break;
+      }
+    }
+
+    if (this.intInsertions.get() > 2 * Math.max(this.mapEntries.size(), maxElements))
+    {
+      Iterator<Entry<V>> insertions = this.clqInsertions.iterator();
+      while (insertions.hasNext())
+      {
+        Entry<V> insertion = insertions.next();
+        if (this.mapEntries.get(insertion.strId) != insertion)
+        {
+          insertions.remove();
+          this.intInsertions.decrementAndGet();
+        }
+      }
+    }
+    return removed;
+  }
+
+  /**
+   * Removes all entries from the index.
+   */
+  public void clear()
+  {
+    this.mapEntries.clear();
+    this.clqInsertions.clear();
+    this.intInsertions.set(0);
+  }
+
+  /**
+   * Gets the amount of indexed entries, including entries which expired but were not removed yet.
+   *
+   * @return the amount of entries.
+   */
+  public int size()
+  {
+    return this.mapEntries.size();
+  }
+
+  /**
+   * Sets the time an entry is kept after it was inserted.
+   *
+   * @param timeToLive
+   *          the time in seconds, 0 to keep entries until they are trimmed.
+   */
+  public void setTimeToLive(int timeToLive)
+  {
+    this.lngTimeToLive = TimeUnit.SECONDS.toNanos(Math.max(timeToLive, 0));
+  }
+
+  /**
+   * Removes the insertion record of an entry.
+   *
+   * @param entry
+   *          the entry of which the record is removed.
+   */
+  private void removeInsertion(Entry<V> entry)
+  {
+    if (this.clqInsertions.remove(entry))
+    {
+      this.intInsertions.decrementAndGet();
+    }
+  }
+
+  /**
+   * Checks whether an entry has expired.
+   *
+   * @param entry
+   *          the entry to be checked.
+   * @param now
+   *          the current time in nanoseconds.
+   * @return true if the entry has expired, false if not.
+   */
+  private boolean isExpired(Entry<V> entry, long now)
+  {
+    return this.lngTimeToLive > 0 && now - entry.lngInsertedAt >= this.lngTimeToLive;
+  }
+
+  /**
+   * Immutable index entry holding a value and its insertion time.
+   */
+  private static class Entry<V>
+  {
+    private final String strId;
+    private final V objValue;
+    private final long lngInsertedAt;
+
+    private Entry(String id, V value, long insertedAt)
+    {
+      this.strId = id;
+      this.objValue = value;
+      this.lngInsertedAt = insertedAt;
+    }
+  }
+}
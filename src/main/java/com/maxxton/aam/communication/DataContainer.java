@@ -1,17 +1,30 @@
 package com.maxxton.aam.communication;
 
-import java.util.UUID;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.ConcurrentSkipListMap;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 import org.springframework.amqp.core.Message;
 
+import com.maxxton.aam.monitoring.Monitor;
+import com.maxxton.aam.monitoring.MonitorFactory;
+import com.maxxton.aam.monitoring.Monitor.DataType;
 import com.maxxton.aam.resources.Configuration;
+import com.maxxton.aam.resources.MessageDetails;
 import com.maxxton.aam.resources.Resources;
 import com.maxxton.aam.resources.Validator;
 
@@ -25,25 +38,82 @@ public class DataContainer
 {
   private static ConcurrentMap<String, DataContainer> mInstances = new ConcurrentHashMap<String, DataContainer>();
 
-  private final ScheduledExecutorService objExecutor = Executors.newScheduledThreadPool(1);
+  // Received messages are handed out by highest priority first, messages with the same priority in the order they arrived.
+  private static final Comparator<ReceivedMessage> RECEIVE_ORDER = Comparator.comparingInt((ReceivedMessage received) -> -received.intPriority)
+      .thenComparingLong((ReceivedMessage received) -> received.lngSequence);
+
+  private final ScheduledThreadPoolExecutor objExecutor = new ScheduledThreadPoolExecutor(1, (Runnable runnable) -> {
+    Thread thread = new Thread(runnable, "DataContainer-worker");
+    thread.setDaemon(true);
+    return thread;
+  });
   private ScheduledFuture<?> objScheduler;
 
+  private Monitor objMonitor = MonitorFactory.getMonitor("global");
+
   private String sName;
   private Resources objResources;
-  private ConcurrentSkipListMap<Integer, String> mapIdentifiers;
-  private ConcurrentSkipListMap<Integer, Message> mapSendMessages;
-  private ConcurrentLinkedQueue<Message> clqReceivedMessages;
+  private CorrelationIndex<String> objIdentifiers;
+  private CorrelationIndex<Message> objSendMessages;
+  private CorrelationIndex<String> objReplyAddresses;
+  private PriorityBlockingQueue<ReceivedMessage> pbqReceivedMessages;
+  private AtomicLong lngReceiveSequence = new AtomicLong(0);
+  private final Collection<Message> colReceivedMessages = new AbstractCollection<Message>()
+  {
+    @Override
+    public Iterator<Message> iterator()
+    {
+      final Iterator<ReceivedMessage> iterator = pbqReceivedMessages.iterator();
+      return new Iterator<Message>()
+      {
+        @Override
+        public boolean hasNext()
+        {
+          return iterator.hasNext();
+        }
+
+        @Override
+        public Message next()
+        {
+          return iterator.next().objMessage;
+        }
+      };
+    }
+
+    @Override
+    public int size()
+    {
+      return pbqReceivedMessages.size();
+    }
+  };
   private ConcurrentLinkedQueue<Message> clqOddMessages;
+  private ConcurrentMap<String, CompletableFuture<MessageDetails>> mapPendingRequests;
+  private ChunkAssembler objChunks;
+  private IdGenerator objIdGenerator;
+
+  private final ReentrantLock objReceiveLock = new ReentrantLock();
+  private final Condition objReceiveDrained = objReceiveLock.newCondition();
+  private volatile boolean blnReceivePaused;
+  private volatile boolean blnDestroyed;
+  private int intHighWater;
+  private int intLowWater;
 
   /**
    * DataContainer constructor Initiates elements defined in this class
    */
   private DataContainer()
   {
-    this.mapIdentifiers = new ConcurrentSkipListMap<Integer, String>();
-    this.mapSendMessages = new ConcurrentSkipListMap<Integer, Message>();
-    this.clqReceivedMessages = new ConcurrentLinkedQueue<Message>();
+    this.objIdentifiers = new CorrelationIndex<String>(0);
+    this.objSendMessages = new CorrelationIndex<Message>(0);
+    this.objReplyAddresses = new CorrelationIndex<String>(0);
+    this.pbqReceivedMessages = new PriorityBlockingQueue<ReceivedMessage>(11, RECEIVE_ORDER);
     this.clqOddMessages = new ConcurrentLinkedQueue<Message>();
+    this.mapPendingRequests = new ConcurrentHashMap<String, CompletableFuture<MessageDetails>>();
+    this.objChunks = new ChunkAssembler(0, 0);
+    this.objIdGenerator = new NodeIdGenerator();
+
+    // Request timeouts are cancelled when the reply arrives, don't keep them in the queue until they would have fired.
+    this.objExecutor.setRemoveOnCancelPolicy(true);
   }
 
   /**
@@ -56,6 +126,17 @@ public class DataContainer
   {
     this.objResources = resources;
     Configuration config = this.objResources.getConfiguration();
+    this.objIdentifiers.setTimeToLive(config.getDataExpiry());
+    this.objSendMessages.setTimeToLive(config.getDataExpiry());
+    this.objReplyAddresses.setTimeToLive(config.getDataExpiry());
+    this.objMonitor = MonitorFactory.getMonitor(config.getName());
+    this.intHighWater = config.getDataHighWater();
+    // Below the high-water mark, otherwise a resumed listener would pause again straight away.
+    this.intLowWater = Math.min(config.getDataLowWater(), config.getDataHighWater() - 1);
+    this.objChunks.setMaxBytes(config.getMessageChunkBuffer());
+    this.objChunks.setTimeout(config.getMessageChunkTimeout());
+    this.objChunks.setMonitor(this.objMonitor);
+    this.objIdGenerator = this.createIdGenerator(config.getMessageIdGenerator());
 
     if (Validator.checkObject(this.objScheduler, true))
     {
@@ -104,64 +185,36 @@ public class DataContainer
   {
     this.identifierCleanup();
     this.sendCleanup();
-    this.receiveCleanup();
+    this.replyAddressCleanup();
     this.oddCleanup();
+    this.chunkCleanup();
   }
 
   /**
-   * Cleans up the SkipListMap with identifiers.
+   * Cleans up expired identifiers and the oldest identifiers above the maximum.
    */
   private void identifierCleanup()
   {
     Configuration config = this.objResources.getConfiguration();
-    if (this.mapIdentifiers.size() > config.getDataMaxElements())
-    {
-      int diff = this.mapIdentifiers.size() - config.getDataMaxElements();
-      for (int key = diff; key < this.mapIdentifiers.size(); key++)
-      {
-        this.mapIdentifiers.put(key - diff, this.mapIdentifiers.get(key));
-        if (key >= config.getDataMaxElements())
-        {
-          this.mapIdentifiers.remove(key);
-        }
-      }
-    }
+    this.objIdentifiers.expire(config.getDataMaxElements());
   }
 
   /**
-   * Cleans up the SkipListMap with send messages.
+   * Cleans up expired send messages and the oldest send messages above the maximum.
    */
   private void sendCleanup()
   {
     Configuration config = this.objResources.getConfiguration();
-    if (this.mapSendMessages.size() > config.getDataMaxElements())
-    {
-      int diff = this.mapSendMessages.size() - config.getDataMaxElements();
-      for (int key = diff; key < this.mapSendMessages.size(); key++)
-      {
-        this.mapSendMessages.put(key - diff, this.mapSendMessages.get(key));
-        if (key >= config.getDataMaxElements())
-        {
-          this.mapSendMessages.remove(key);
-        }
-      }
-    }
+    this.objSendMessages.expire(config.getDataMaxElements());
   }
 
   /**
-   * Cleans up the LinkedQueue with received messages.
+   * Cleans up expired reply addresses and the oldest reply addresses above the maximum.
    */
-  private void receiveCleanup()
+  private void replyAddressCleanup()
   {
     Configuration config = this.objResources.getConfiguration();
-    if (this.clqReceivedMessages.size() > config.getDataMaxElements())
-    {
-      int diff = this.clqReceivedMessages.size() - config.getDataMaxElements();
-      for (int key = 0; key < diff; key++)
-      {
-        this.clqReceivedMessages.remove();
-      }
-    }
+    this.objReplyAddresses.expire(config.getDataMaxElements());
   }
 
   /**
@@ -180,6 +233,14 @@ public class DataContainer
     }
   }
 
+  /**
+   * Throws away chunked messages which were not completed in time.
+   */
+  private void chunkCleanup()
+  {
+    this.objChunks.expire();
+  }
+
   /**
    * Destroys the DataContainer object and all it's data.
    */
@@ -187,10 +248,29 @@ public class DataContainer
   {
     this.objExecutor.shutdown();
 
-    this.mapIdentifiers = new ConcurrentSkipListMap<Integer, String>();
-    this.mapSendMessages = new ConcurrentSkipListMap<Integer, Message>();
-    this.clqReceivedMessages = new ConcurrentLinkedQueue<Message>();
+    this.objReceiveLock.lock();
+    try
+    {
+      this.blnDestroyed = true;
+      this.objReceiveDrained.signalAll();
+    }
+    finally
+    {
+      this.objReceiveLock.unlock();
+    }
+
+    for (CompletableFuture<MessageDetails> future : this.mapPendingRequests.values())
+    {
+      future.cancel(false);
+    }
+
+    this.objIdentifiers = new CorrelationIndex<String>(0);
+    this.objSendMessages = new CorrelationIndex<Message>(0);
+    this.objReplyAddresses = new CorrelationIndex<String>(0);
+    this.pbqReceivedMessages = new PriorityBlockingQueue<ReceivedMessage>(11, RECEIVE_ORDER);
     this.clqOddMessages = new ConcurrentLinkedQueue<Message>();
+    this.mapPendingRequests = new ConcurrentHashMap<String, CompletableFuture<MessageDetails>>();
+    this.objChunks.clear();
 
     mInstances.remove(this.sName);
   }
@@ -223,11 +303,66 @@ public class DataContainer
    */
   public String getUniqueId()
   {
-    String id = UUID.randomUUID().toString();
+    String id = new String(this.objIdGenerator.nextId(), StandardCharsets.US_ASCII);
     this.addIdentifier(id);
     return id;
   }
 
+  /**
+   * Sets the IdGenerator used for the correlation ids of this messenger.
+   *
+   * @param generator
+   *          an instance of the IdGenerator interface.
+   */
+  public void setIdGenerator(IdGenerator generator)
+  {
+    if (Validator.checkObject(generator, IdGenerator.class))
+    {
+      this.objIdGenerator = generator;
+    }
+  }
+
+  /**
+   * Gets the IdGenerator used for the correlation ids of this messenger.
+   *
+   * @return an instance of the IdGenerator interface.
+   */
+  public IdGenerator getIdGenerator()
+  {
+    return this.objIdGenerator;
+  }
+
+  /**
+   * Creates the IdGenerator configured by class name. Keeps the current generator if the class cannot be used.
+   *
+   * @param className
+   *          the fully qualified class name of the generator.
+   * @return an instance of the IdGenerator interface.
+   */
+  private IdGenerator createIdGenerator(String className)
+  {
+    if (!Validator.checkString(className, false, false) || className.equals(this.objIdGenerator.getClass().getName()))
+    {
+      return this.objIdGenerator;
+    }
+
+    try
+    {
+      Object instance = Class.forName(className).getDeclaredConstructor().newInstance();
+      if (instance instanceof IdGenerator)
+      {
+        return (IdGenerator) instance;
+      }
+      objMonitor.warn(DataContainer.class, "The class '{}' does not implement IdGenerator. Keeping the current generator.", className);
+    }
+    catch (ReflectiveOperationException e)
+    {
+      objMonitor.warn(DataContainer.class, "Unable to create id generator '{}'. Keeping the current generator.", className);
+      objMonitor.trace(DataContainer.class, e);
+    }
+    return this.objIdGenerator;
+  }
+
   /**
    * Check whether or not a message was created and send from this client.
    * 
@@ -239,16 +374,13 @@ public class DataContainer
   {
     if (Validator.checkString(id))
     {
-      if (this.mapIdentifiers.containsValue(id))
-      {
-        return true;
-      }
+      return this.objIdentifiers.contains(id);
     }
     return false;
   }
 
   /**
-   * Adds a given messageid to the Map.
+   * Adds a given messageid to the index.
    *
    * @param id
    *          identifier of the message
@@ -257,12 +389,12 @@ public class DataContainer
   {
     if (Validator.checkString(id))
     {
-      this.mapIdentifiers.put(this.mapIdentifiers.size(), id);
+      this.objIdentifiers.put(id, id);
     }
   }
 
   /**
-   * Removes a given messageId from the maps if it exists.
+   * Removes a given messageId from the index if it exists.
    * 
    * @param id
    *          identifier to be removed.
@@ -271,62 +403,36 @@ public class DataContainer
   {
     if (Validator.checkString(id))
     {
-      if (this.mapIdentifiers.containsValue(id))
-      {
-        for (int key = 0; key > this.mapIdentifiers.size(); key++)
-        {
-          if (id == this.mapIdentifiers.get(key))
-          {
-            this.mapIdentifiers.remove(key);
-          }
-        }
-      }
-    }
-  }
-
-  /**
-   * Removes a given key and value from the Map if it exists.
-   * 
-   * @param id
-   *          identifier for the value in the map.
-   */
-  public void removeIdentifierById(Integer id)
-  {
-    if (Validator.checkInteger(id, 0, Integer.MAX_VALUE))
-    {
-      if (this.mapIdentifiers.containsKey(id))
-      {
-        this.mapIdentifiers.remove(id);
-      }
+      this.objIdentifiers.remove(id);
     }
   }
 
   /**
-   * Getter for SkipListMap with string bases identifiers.
+   * Getter for the index with string based identifiers.
    * 
-   * @return an Map of identifiers.
+   * @return an index of identifiers.
    */
-  public ConcurrentSkipListMap<Integer, String> getIdentifiers()
+  public CorrelationIndex<String> getIdentifiers()
   {
-    return this.mapIdentifiers;
+    return this.objIdentifiers;
   }
 
   /**
-   * Setter for SkipListMap with string bases identifiers.
+   * Setter for the index with string based identifiers.
    * 
    * @param identifiers
-   *          an Map of string identifiers.
+   *          an index of string identifiers.
    */
-  public void setIdentifiers(ConcurrentSkipListMap<Integer, String> identifiers)
+  public void setIdentifiers(CorrelationIndex<String> identifiers)
   {
-    if (Validator.checkObject(identifiers, ConcurrentSkipListMap.class))
+    if (Validator.checkObject(identifiers, CorrelationIndex.class))
     {
-      this.mapIdentifiers = identifiers;
+      this.objIdentifiers = identifiers;
     }
   }
 
   /**
-   * Adds a given message to the send Map.
+   * Adds a given message to the send index.
    * 
    * @param message
    *          the Message object.
@@ -337,14 +443,15 @@ public class DataContainer
     {
       if (message.getMessageProperties().getCorrelationId() != null && message.getMessageProperties().getCorrelationId().length > 0)
       {
-        this.mapSendMessages.put(this.mapSendMessages.size(), message);
-        this.addIdentifier(new String(message.getMessageProperties().getCorrelationId()));
+        String id = new String(message.getMessageProperties().getCorrelationId());
+        this.objSendMessages.put(id, message);
+        this.addIdentifier(id);
       }
     }
   }
 
   /**
-   * Removes a given message from the send Map.
+   * Removes a given message from the send index.
    * 
    * @param message
    *          the Message object.
@@ -353,21 +460,16 @@ public class DataContainer
   {
     if (Validator.checkObject(message, Message.class))
     {
-      if (this.mapSendMessages.containsValue(message))
+      byte[] correlationId = message.getMessageProperties().getCorrelationId();
+      if (correlationId != null && correlationId.length > 0)
       {
-        for (int key = 0; key < this.mapSendMessages.size(); key++)
-        {
-          if (message == this.mapSendMessages.get(key))
-          {
-            this.mapSendMessages.remove(key);
-          }
-        }
+        this.objSendMessages.remove(new String(correlationId), message);
       }
     }
   }
 
   /**
-   * Removes a given message from the send Map.
+   * Removes a given message from the send index.
    *
    * @param id
    *          identifier of the message
@@ -376,67 +478,201 @@ public class DataContainer
   {
     if (Validator.checkString(id))
     {
-      for (int key = 0; key < this.mapSendMessages.size(); key++)
-      {
-        Message message = this.mapSendMessages.get(key);
-        String messageId = new String(message.getMessageProperties().getCorrelationId());
-        if (Validator.checkObject(messageId))
-        {
-          if (messageId == id)
-          {
-            this.mapSendMessages.remove(id);
-          }
-        }
-      }
+      this.objSendMessages.remove(id);
     }
   }
 
   /**
-   * Setter for the messages send Map.
+   * Gets a send message by its identifier.
+   *
+   * @param id
+   *          identifier of the message
+   * @return the send Message, null if it is unknown or expired.
+   */
+  public Message getSendMessage(String id)
+  {
+    return this.objSendMessages.get(id);
+  }
+
+  /**
+   * Setter for the messages send index.
    * 
    * @param messages
-   *          the Map with Message objects.
+   *          the index with Message objects.
    */
-  public void setSendMessages(ConcurrentSkipListMap<Integer, Message> messages)
+  public void setSendMessages(CorrelationIndex<Message> messages)
   {
-    if (Validator.checkObject(messages, ConcurrentSkipListMap.class))
+    if (Validator.checkObject(messages, CorrelationIndex.class))
     {
-      this.mapSendMessages = messages;
+      this.objSendMessages = messages;
     }
   }
 
   /**
-   * Getter for the messages send Map.
+   * Getter for the messages send index.
    * 
-   * @return Map with messages.
+   * @return index with messages.
    */
-  public ConcurrentSkipListMap<Integer, Message> getSendMessages()
+  public CorrelationIndex<Message> getSendMessages()
   {
-    return this.mapSendMessages;
+    return this.objSendMessages;
   }
 
   /**
-   * Adds a given message to the receive LinkedQueue.
+   * Adds a given message to the receive queue. Bound by the high-water mark like putReceivedMessage.
    * 
    * @param message
    *          the Message object.
    */
   public void addReceivedMessage(Message message)
+  {
+    this.putReceivedMessage(message);
+  }
+
+  /**
+   * Adds a received message to the receive queue, waiting while the queue is above the high-water mark. The waiting listener thread does not acknowledge its message, so the broker stops delivering
+   * and excess messages stay on the broker. The wait ends once the application drained the queue to the low-water mark. The check and the add are done holding the receive lock, so concurrent
+   * listener threads never fill the queue beyond the high-water mark.
+   * 
+   * @param message
+   *          the Message object.
+   */
+  public void putReceivedMessage(Message message)
   {
     if (Validator.checkObject(message, Message.class))
     {
-      this.clqReceivedMessages.add(message);
+      this.objReceiveLock.lock();
+      try
+      {
+        while (this.intHighWater > 0 && !this.blnDestroyed && (this.blnReceivePaused || this.pbqReceivedMessages.size() >= this.intHighWater))
+        {
+          if (!this.awaitReceiveDrained())
+          {
+            // Interrupted, add the message anyway as it cannot be handed back.
+            break;
+          }
+        }
+        this.pbqReceivedMessages.add(new ReceivedMessage(message, this.lngReceiveSequence.getAndIncrement()));
+      }
+      finally
+      {
+        this.objReceiveLock.unlock();
+      }
     }
   }
 
   /**
-   * Pops the oldest received message from the LinkedQueue
+   * Pauses the calling listener thread until the received messages are drained to the low-water mark. Must be called holding the receive lock.
    * 
-   * @return the oldest message from the LinkedQueue
+   * @return true once drained, false if the thread was interrupted.
+   */
+  private boolean awaitReceiveDrained()
+  {
+    try
+    {
+      if (!this.blnReceivePaused)
+      {
+        this.blnReceivePaused = true;
+        objMonitor.data(DataType.RECEIVE_HIGH_WATER, 1);
+        objMonitor.warn(DataContainer.class, "The received messages reached the high-water mark of '{}'. Pausing consumption until they are drained.", this.intHighWater);
+      }
+      objMonitor.data(DataType.RECEIVE_PAUSED, 1);
+
+      while (this.blnReceivePaused && !this.blnDestroyed)
+      {
+        if (this.pbqReceivedMessages.size() <= this.intLowWater)
+        {
+          this.resumeReceiving();
+        }
+        else
+        {
+          this.objReceiveDrained.await(100, TimeUnit.MILLISECONDS);
+        }
+      }
+      return true;
+    }
+    catch (InterruptedException e)
+    {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
+  /**
+   * Resumes paused listener threads when the received messages are drained to the low-water mark.
+   */
+  private void checkReceiveDrained()
+  {
+    if (this.blnReceivePaused && this.pbqReceivedMessages.size() <= this.intLowWater)
+    {
+      this.objReceiveLock.lock();
+      try
+      {
+        if (this.blnReceivePaused)
+        {
+          this.resumeReceiving();
+        }
+      }
+      finally
+      {
+        this.objReceiveLock.unlock();
+      }
+    }
+  }
+
+  /**
+   * Wakes all paused listener threads. Must be called holding the receive lock.
+   */
+  private void resumeReceiving()
+  {
+    this.blnReceivePaused = false;
+    objMonitor.data(DataType.RECEIVE_LOW_WATER, 1);
+    objMonitor.info(DataContainer.class, "The received messages are drained to the low-water mark of '{}'. Resuming consumption.", this.intLowWater);
+    this.objReceiveDrained.signalAll();
+  }
+
+  /**
+   * Checks whether consumption is paused because the received messages reached the high-water mark.
+   * 
+   * @return true if paused, false if not.
+   */
+  public boolean isReceivePaused()
+  {
+    return this.blnReceivePaused;
+  }
+
+  /**
+   * Pops the received message with the highest priority from the receive queue, the oldest one when several share that priority.
+   * 
+   * @return the next message from the receive queue
    */
   public Message popReceivedMessage()
   {
-    return this.clqReceivedMessages.poll();
+    ReceivedMessage received = this.pbqReceivedMessages.poll();
+    this.checkReceiveDrained();
+    return received == null ? null : received.objMessage;
+  }
+
+  /**
+   * Takes the received message with the highest priority from the receive queue, waiting until one arrives or the timeout passes. The waiting thread is woken as soon as a message is added.
+   * 
+   * @param millis
+   *          timeout given in milliseconds.
+   * @return the next message from the receive queue, null if none arrived in time or the thread was interrupted.
+   */
+  public Message takeReceivedMessage(long millis)
+  {
+    try
+    {
+      ReceivedMessage received = this.pbqReceivedMessages.poll(millis, TimeUnit.MILLISECONDS);
+      this.checkReceiveDrained();
+      return received == null ? null : received.objMessage;
+    }
+    catch (InterruptedException e)
+    {
+      Thread.currentThread().interrupt();
+      return null;
+    }
   }
 
   /**
@@ -449,35 +685,188 @@ public class DataContainer
   {
     if (Validator.checkObject(message, Message.class))
     {
-      if (this.clqReceivedMessages.contains(message))
+      if (this.pbqReceivedMessages.removeIf((ReceivedMessage received) -> received.objMessage == message))
       {
-        this.clqReceivedMessages.remove(message);
+        this.checkReceiveDrained();
       }
     }
   }
 
   /**
-   * Setter for the messages receive LinkedQueue.
+   * Setter for the messages receive queue. Replaces the received messages by the given messages, which are ordered as if they arrived in the order given.
    * 
    * @param messages
-   *          the LinkedQueue with Message objects.
+   *          the Collection with Message objects.
    */
-  public void setReceivedMessages(ConcurrentLinkedQueue<Message> messages)
+  public void setReceivedMessages(Collection<Message> messages)
   {
-    if (Validator.checkObject(messages, ConcurrentLinkedQueue.class))
+    if (Validator.checkObject(messages, Collection.class))
     {
-      this.clqReceivedMessages = messages;
+      PriorityBlockingQueue<ReceivedMessage> queue = new PriorityBlockingQueue<ReceivedMessage>(Math.max(messages.size(), 1), RECEIVE_ORDER);
+      for (Message message : messages)
+      {
+        queue.add(new ReceivedMessage(message, this.lngReceiveSequence.getAndIncrement()));
+      }
+      this.pbqReceivedMessages = queue;
     }
   }
 
   /**
-   * Getter for the messages receive LinkedQueue.
+   * Getter for the messages receive queue.
    * 
-   * @return the LinkedQueue with received messages.
+   * @return a live view of the received messages, in no particular order.
    */
-  public ConcurrentLinkedQueue<Message> getReceivedMessages()
+  public Collection<Message> getReceivedMessages()
   {
-    return this.clqReceivedMessages;
+    return this.colReceivedMessages;
+  }
+
+  // PENDING REQUESTS.
+
+  /**
+   * Adds a pending request waiting for its reply. The returned future fails with a TimeoutException when no reply arrived in time. The identifier is added as well, so the reply is recognized.
+   *
+   * @param id
+   *          identifier of the request message.
+   * @param millis
+   *          timeout given in milliseconds.
+   * @return a future completing with the details of the reply.
+   */
+  public CompletableFuture<MessageDetails> addPendingRequest(final String id, int millis)
+  {
+    final CompletableFuture<MessageDetails> future = new CompletableFuture<MessageDetails>();
+    if (!Validator.checkString(id))
+    {
+      future.completeExceptionally(new IllegalArgumentException("A pending request needs a valid identifier."));
+      return future;
+    }
+
+    this.addIdentifier(id);
+    this.mapPendingRequests.put(id, future);
+    try
+    {
+      final ScheduledFuture<?> timeout = this.objExecutor.schedule(new Runnable()
+      {
+        @Override
+        public void run()
+        {
+          if (mapPendingRequests.remove(id, future))
+          {
+            future.completeExceptionally(new TimeoutException("No reply received for request '" + id + "' within " + millis + " ms."));
+          }
+        }
+      }, millis, TimeUnit.MILLISECONDS);
+      future.whenComplete((details, error) -> timeout.cancel(false));
+    }
+    catch (RejectedExecutionException e)
+    {
+      this.mapPendingRequests.remove(id, future);
+      future.completeExceptionally(e);
+    }
+    return future;
+  }
+
+  /**
+   * Checks whether a request is waiting for a reply with the given identifier.
+   *
+   * @param id
+   *          identifier of the request message.
+   * @return true if a request is pending, false if not.
+   */
+  public boolean hasPendingRequest(String id)
+  {
+    return Validator.checkString(id) && this.mapPendingRequests.containsKey(id);
+  }
+
+  /**
+   * Completes a pending request with its reply.
+   *
+   * @param id
+   *          identifier of the request message.
+   * @param details
+   *          the details of the received reply.
+   * @return true if a pending request was completed, false if no request was waiting (anymore).
+   */
+  public boolean completePendingRequest(String id, MessageDetails details)
+  {
+    if (Validator.checkString(id))
+    {
+      CompletableFuture<MessageDetails> future = this.mapPendingRequests.remove(id);
+      if (future != null)
+      {
+        this.removeIdentifier(id);
+        return future.complete(details);
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Removes a pending request without completing it.
+   *
+   * @param id
+   *          identifier of the request message.
+   * @return the future of the removed request, null if no request was pending.
+   */
+  public CompletableFuture<MessageDetails> removePendingRequest(String id)
+  {
+    if (Validator.checkString(id))
+    {
+      return this.mapPendingRequests.remove(id);
+    }
+    return null;
+  }
+
+  /**
+   * Gets the amount of requests waiting for their reply.
+   *
+   * @return the amount of pending requests.
+   */
+  public int getPendingRequestCount()
+  {
+    return this.mapPendingRequests.size();
+  }
+
+  // REPLY ADDRESSES.
+
+  /**
+   * Remembers the address a received request wants its reply to be send to.
+   *
+   * @param id
+   *          identifier of the request message.
+   * @param address
+   *          the reply-to address of the request.
+   */
+  public void addReplyAddress(String id, String address)
+  {
+    if (Validator.checkString(address))
+    {
+      this.objReplyAddresses.put(id, address);
+    }
+  }
+
+  /**
+   * Returns the address a reply to the given request should be send to, without removing it.
+   *
+   * @param id
+   *          identifier of the request message.
+   * @return the reply-to address, null if the request did not ask for one.
+   */
+  public String getReplyAddress(String id)
+  {
+    return this.objReplyAddresses.get(id);
+  }
+
+  /**
+   * Removes and returns the address a reply to the given request should be send to.
+   *
+   * @param id
+   *          identifier of the request message.
+   * @return the reply-to address, null if the request did not ask for one.
+   */
+  public String removeReplyAddress(String id)
+  {
+    return this.objReplyAddresses.remove(id);
   }
 
   // ODD and DISCARDED MESSAGES.
@@ -546,4 +935,31 @@ public class DataContainer
       this.clqOddMessages = messages;
     }
   }
+
+  /**
+   * Gets the ChunkAssembler which reassembles chunked messages.
+   *
+   * @return an instance of the ChunkAssembler class.
+   */
+  public ChunkAssembler getChunkAssembler()
+  {
+    return this.objChunks;
+  }
+
+  /**
+   * Received message waiting in the receive queue, with the priority and local arrival sequence it is ordered by.
+   */
+  private static final class ReceivedMessage
+  {
+    private final Message objMessage;
+    private final int intPriority;
+    private final long lngSequence;
+
+    private ReceivedMessage(Message message, long sequence)
+    {
+      this.objMessage = message;
+      this.intPriority = MessageHeaders.getPriority(message.getMessageProperties());
+      this.lngSequence = sequence;
+    }
+  }
 }
@@ -0,0 +1,148 @@
+package com.maxxton.aam.communication;
+
+import java.io.IOException;
+
+import org.springframework.amqp.core.Address;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageListener;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.connection.CachingConnectionFactory;
+import org.springframework.amqp.rabbit.connection.Connection;
+import org.springframework.amqp.rabbit.connection.ConnectionProxy;
+import org.springframework.amqp.rabbit.core.RabbitTemplate.ReturnCallback;
+import org.springframework.amqp.rabbit.support.DefaultMessagePropertiesConverter;
+import org.springframework.amqp.rabbit.support.MessagePropertiesConverter;
+
+import com.maxxton.aam.monitoring.Monitor;
+import com.rabbitmq.client.AMQP.BasicProperties;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.DefaultConsumer;
+import com.rabbitmq.client.Envelope;
+import com.rabbitmq.client.ReturnListener;
+
+/**
+ * DirectReplyChannel class Publishes requests which ask for their reply on the RabbitMQ direct reply-to pseudo queue. The broker only delivers those replies to a consumer on the channel the request
+ * was published on, so a single dedicated channel is used for publishing and consuming. Replies skip the queue of the messenger and are handed to the reply listener directly.
+ *
+ * @author Robin Hermans
+ * @copyright Maxxton 2015
+ */
+public class DirectReplyChannel
+{
+  private Monitor objMonitor;
+
+  private CachingConnectionFactory objConnection;
+  private MessageListener objReplyListener;
+  private ReturnCallback objReturnCallback;
+  private MessagePropertiesConverter objPropertiesConverter = new DefaultMessagePropertiesConverter();
+  private Channel objChannel;
+
+  /**
+   * Constructor for the DirectReplyChannel class.
+   *
+   * @param connection
+   *          the connection factory the channel is created on.
+   * @param replyListener
+   *          the listener receiving the replies.
+   * @param returnCallback
+   *          the callback receiving requests returned by the broker as unroutable.
+   * @param monitor
+   *          the monitor of the messenger.
+   */
+  public DirectReplyChannel(CachingConnectionFactory connection, MessageListener replyListener, ReturnCallback returnCallback, Monitor monitor)
+  {
+    this.objConnection = connection;
+    this.objReplyListener = replyListener;
+    this.objReturnCallback = returnCallback;
+    this.objMonitor = monitor;
+  }
+
+  /**
+   * Publishes a request asking for the reply on the direct reply-to pseudo queue.
+   *
+   * @param exchange
+   *          the exchange to publish to.
+   * @param routingKey
+   *          the routing key of the receiver.
+   * @param message
+   *          the request to be published.
+   * @throws IOException
+   *           when the channel could not be opened or the publish failed.
+   */
+  public synchronized void publish(String exchange, String routingKey, Message message) throws IOException
+  {
+    Channel channel = this.getChannel();
+    MessageProperties properties = message.getMessageProperties();
+    properties.setReplyTo(Address.AMQ_RABBITMQ_REPLY_TO);
+    channel.basicPublish(exchange, routingKey, true, this.objPropertiesConverter.fromMessageProperties(properties, "UTF-8"), message.getBody());
+  }
+
+  /**
+   * Closes the channel. A new channel is opened on the next publish.
+   */
+  public synchronized void close()
+  {
+    if (this.objChannel != null && this.objChannel.isOpen())
+    {
+      try
+      {
+        this.objChannel.close();
+      }
+      catch (Exception e)
+      {
+        objMonitor.trace(DirectReplyChannel.class, e);
+      }
+    }
+    this.objChannel = null;
+  }
+
+  /**
+   * Gets the open channel, opening a new one and consuming from the pseudo queue when needed. The channel is not taken from the channel cache, replies would be lost once the channel is handed out
+   * to someone else.
+   *
+   * @return the channel to publish requests on.
+   * @throws IOException
+   *           when the channel could not be opened.
+   */
+  private Channel getChannel() throws IOException
+  {
+    if (this.objChannel == null || !this.objChannel.isOpen())
+    {
+      Connection connection = this.objConnection.createConnection();
+      if (connection instanceof ConnectionProxy)
+      {
+        connection = ((ConnectionProxy) connection).getTargetConnection();
+      }
+
+      Channel channel = connection.createChannel(false);
+      channel.addReturnListener(new ReturnListener()
+      {
+        @Override
+        public void handleReturn(int replyCode, String replyText, String exchange, String routingKey, BasicProperties properties, byte[] body) throws IOException
+        {
+          MessageProperties messageProperties = objPropertiesConverter.toMessageProperties(properties, null, "UTF-8");
+          objReturnCallback.returnedMessage(new Message(body, messageProperties), replyCode, replyText, exchange, routingKey);
+        }
+      });
+      channel.basicConsume(Address.AMQ_RABBITMQ_REPLY_TO, true, new DefaultConsumer(channel)
+      {
+        @Override
+        public void handleDelivery(String consumerTag, Envelope envelope, BasicProperties properties, byte[] body) throws IOException
+        {
+          try
+          {
+            MessageProperties messageProperties = objPropertiesConverter.toMessageProperties(properties, envelope, "UTF-8");
+            objReplyListener.onMessage(new Message(body, messageProperties));
+          }
+          catch (RuntimeException e)
+          {
+            objMonitor.warn(DirectReplyChannel.class, "Failed to handle a direct reply. See trace in the logs for more information.");
+            objMonitor.trace(DirectReplyChannel.class, e);
+          }
+        }
+      });
+      this.objChannel = channel;
+    }
+    return this.objChannel;
+  }
+}
@@ -0,0 +1,175 @@
+package com.maxxton.aam.communication;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import com.maxxton.aam.messages.BaseMessage;
+import com.maxxton.aam.messages.MessageType;
+import com.maxxton.aam.monitoring.Monitor;
+import com.maxxton.aam.monitoring.MonitorFactory;
+import com.maxxton.aam.resources.MessageFactory;
+
+/**
+ * EnvelopeCodec class. Writes the envelope fields of a BaseMessage by hand and only passes the payload to a pluggable payload codec. The layout is a version byte, the message type ordinal, the
+ * priority, a flag byte, the length prefixed UTF-8 sender and receiver, followed by the encoded payload.
+ *
+ * @author Robin Hermans
+ * @copyright Maxxton 2015
+ */
+public class EnvelopeCodec implements MessageCodec
+{
+  public static final String CONTENT_TYPE = "application/x-aam-envelope";
+  public static final String PAYLOAD_PARAMETER = "; payload=";
+
+  private static final byte VERSION = 1;
+  private static final byte FLAG_PAYLOAD = 1;
+  private static final int MAX_NAME_LENGTH = 0xFFFF;
+
+  private static Monitor objMonitor = MonitorFactory.getMonitor("global");
+  private static MessageType[] arrMessageTypes = MessageType.values();
+
+  private final MessageCodec objPayloadCodec;
+  private final String strContentType;
+
+  /**
+   * Constructor for the EnvelopeCodec class using the default payload codec.
+   */
+  public EnvelopeCodec()
+  {
+    this(MessageCodecs.getDefault());
+  }
+
+  /**
+   * Constructor for the EnvelopeCodec class.
+   *
+   * @param payloadCodec
+   *          the codec used for the payload of the messages.
+   */
+  public EnvelopeCodec(MessageCodec payloadCodec)
+  {
+    this.objPayloadCodec = payloadCodec;
+    this.strContentType = CONTENT_TYPE + PAYLOAD_PARAMETER + payloadCodec.getContentType();
+  }
+
+  /**
+   * Gets the codec used for the payload of the messages.
+   *
+   * @return an instance of the MessageCodec interface.
+   */
+  public MessageCodec getPayloadCodec()
+  {
+    return this.objPayloadCodec;
+  }
+
+  @Override
+  public String getContentType()
+  {
+    return this.strContentType;
+  }
+
+  @Override
+  public byte[] encode(Object object)
+  {
+    SerializationBuffer buffer = SerializationBuffer.acquire();
+    try
+    {
+      return this.encode(object, buffer) ? buffer.toByteArray() : null;
+    }
+    finally
+    {
+      buffer.release();
+    }
+  }
+
+  @Override
+  public boolean encode(Object object, SerializationBuffer buffer)
+  {
+    if (!(object instanceof BaseMessage) || ((BaseMessage) object).getMessageType() == null)
+    {
+      objMonitor.warn(EnvelopeCodec.class, "Only messages with a messagetype can be encoded into an envelope.");
+      return false;
+    }
+
+    BaseMessage message = (BaseMessage) object;
+    byte[] sender = EnvelopeCodec.toBytes(message.getSender());
+    byte[] receiver = EnvelopeCodec.toBytes(message.getReceiver());
+    if (sender.length > MAX_NAME_LENGTH || receiver.length > MAX_NAME_LENGTH)
+    {
+      objMonitor.warn(EnvelopeCodec.class, "Unable to encode the message, the sender ({} bytes) and receiver ({} bytes) may be at most {} bytes long.", sender.length, receiver.length, MAX_NAME_LENGTH);
+      return false;
+    }
+
+    buffer.write(VERSION);
+    buffer.write(message.getMessageType().ordinal());
+    buffer.write(message.getPriority());
+    buffer.write(message.getPayload() == null ? 0 : FLAG_PAYLOAD);
+    buffer.writeShort(sender.length);
+    buffer.write(sender);
+    buffer.writeShort(receiver.length);
+    buffer.write(receiver);
+
+    // The payload codec writes right behind the header, the payload is never copied into the envelope.
+    return message.getPayload() == null || this.objPayloadCodec.encode(message.getPayload(), buffer);
+  }
+
+  @Override
+  public Object decode(byte[] bytes)
+  {
+    try
+    {
+      ByteBuffer buffer = ByteBuffer.wrap(bytes);
+      byte version = buffer.get();
+      if (version != VERSION)
+      {
+        objMonitor.warn(EnvelopeCodec.class, "Unable to decode an envelope with version '{}'.", version);
+        return null;
+      }
+
+      BaseMessage message = MessageFactory.createMessage(arrMessageTypes[buffer.get()]);
+      message.setPriority(buffer.get());
+      byte flags = buffer.get();
+      message.setSender(EnvelopeCodec.readString(buffer));
+      message.setReceiver(EnvelopeCodec.readString(buffer));
+      if ((flags & FLAG_PAYLOAD) != 0)
+      {
+        message.setPayload(this.objPayloadCodec.decode(Arrays.copyOfRange(bytes, buffer.position(), bytes.length)));
+      }
+      return message;
+    }
+    catch (BufferUnderflowException | IndexOutOfBoundsException e)
+    {
+      objMonitor.warn(EnvelopeCodec.class, "Failed to decode a malformed envelope. See trace in the logs for more information.");
+      objMonitor.trace(EnvelopeCodec.class, e);
+    }
+    return null;
+  }
+
+  /**
+   * Converts a string to UTF-8 bytes, treating null as an empty string.
+   *
+   * @param value
+   *          the string to be converted.
+   * @return the UTF-8 bytes.
+   */
+  private static byte[] toBytes(String value)
+  {
+    return value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Reads a length prefixed UTF-8 string from a buffer.
+   *
+   * @param buffer
+   *          the buffer positioned at the length prefix.
+   * @return the read string.
+   */
+  private static String readString(ByteBuffer buffer)
+  {
+    int length = buffer.getShort() & 0xFFFF;
+    String value = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+    buffer.position(buffer.position() + length);
+    return value;
+  }
+}
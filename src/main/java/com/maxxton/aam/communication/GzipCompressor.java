@@ -0,0 +1,68 @@
+package com.maxxton.aam.communication;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import com.maxxton.aam.monitoring.Monitor;
+import com.maxxton.aam.monitoring.MonitorFactory;
+
+/**
+ * GzipCompressor class. The default MessageCompressor which uses the gzip format of java.util.zip.
+ * 
+ * @author Robin Hermans
+ * @copyright Maxxton 2015
+ */
+public class GzipCompressor implements MessageCompressor
+{
+  public static final String ENCODING = "gzip";
+
+  private static Monitor objMonitor = MonitorFactory.getMonitor("global");
+
+  @Override
+  public String getEncoding()
+  {
+    return ENCODING;
+  }
+
+  @Override
+  public byte[] compress(byte[] bytes)
+  {
+    ByteArrayOutputStream byteStream = new ByteArrayOutputStream(bytes.length / 2 + 64);
+    try (GZIPOutputStream zipStream = new GZIPOutputStream(byteStream))
+    {
+      zipStream.write(bytes);
+    }
+    catch (IOException e)
+    {
+      objMonitor.warn(GzipCompressor.class, "Failed to compress a message body. See trace in the logs for more information.");
+      objMonitor.trace(GzipCompressor.class, e);
+      return null;
+    }
+    return byteStream.toByteArray();
+  }
+
+  @Override
+  public byte[] decompress(byte[] bytes)
+  {
+    ByteArrayOutputStream byteStream = new ByteArrayOutputStream(bytes.length * 4);
+    try (GZIPInputStream zipStream = new GZIPInputStream(new ByteArrayInputStream(bytes)))
+    {
+      byte[] buffer = new byte[8192];
+      int read;
+      while ((read = zipStream.read(buffer)) != -1)
+      {
+        byteStream.write(buffer, 0, read);
+      }
+    }
+    catch (IOException e)
+    {
+      objMonitor.warn(GzipCompressor.class, "Failed to decompress a message body. See trace in the logs for more information.");
+      objMonitor.trace(GzipCompressor.class, e);
+      return null;
+    }
+    return byteStream.toByteArray();
+  }
+}
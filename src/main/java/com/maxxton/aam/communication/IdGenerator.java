@@ -0,0 +1,20 @@
+package com.maxxton.aam.communication;
+
+/**
+ * IdGenerator interface Generates the correlation ids of outgoing messages. Ids are generated in the format they are send in, they only become strings where they are handed to the user or used as
+ * key. A generator is shared by all sending threads of a messenger, so implementations must be thread-safe.
+ *
+ * @author Robin Hermans
+ * @copyright Maxxton 2015
+ */
+public interface IdGenerator
+{
+
+  /**
+   * Generates a new id which is unique across all messengers talking to each other.
+   *
+   * @return the id as the bytes of the correlation id.
+   */
+  public byte[] nextId();
+
+}
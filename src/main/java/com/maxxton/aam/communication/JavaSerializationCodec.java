@@ -0,0 +1,78 @@
+package com.maxxton.aam.communication;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import org.springframework.amqp.core.MessageProperties;
+
+import com.maxxton.aam.monitoring.Monitor;
+import com.maxxton.aam.monitoring.MonitorFactory;
+
+/**
+ * JavaSerializationCodec class. The default MessageCodec which uses Java serialization for the conversion of objects.
+ * 
+ * @author Robin Hermans
+ * @copyright Maxxton 2015
+ */
+public class JavaSerializationCodec implements MessageCodec
+{
+  private static Monitor objMonitor = MonitorFactory.getMonitor("global");
+
+  @Override
+  public String getContentType()
+  {
+    return MessageProperties.CONTENT_TYPE_SERIALIZED_OBJECT;
+  }
+
+  @Override
+  public byte[] encode(Object object)
+  {
+    SerializationBuffer buffer = SerializationBuffer.acquire();
+    try
+    {
+      return this.encode(object, buffer) ? buffer.toByteArray() : null;
+    }
+    finally
+    {
+      buffer.release();
+    }
+  }
+
+  @Override
+  public boolean encode(Object object, SerializationBuffer buffer)
+  {
+    try
+    {
+      ObjectOutputStream objectStream = new ObjectOutputStream(buffer);
+      objectStream.writeObject(object);
+      objectStream.flush();
+      return true;
+    }
+    catch (IOException e)
+    {
+      objMonitor.warn(JavaSerializationCodec.class, "Failed to serialize certain object to bytes. See trace in the logs for more information.");
+      objMonitor.trace(JavaSerializationCodec.class, e);
+    }
+    return false;
+  }
+
+  @Override
+  public Object decode(byte[] bytes)
+  {
+    Object object = null;
+    try
+    {
+      ByteArrayInputStream byteStream = new ByteArrayInputStream(bytes);
+      ObjectInputStream objectStream = new ObjectInputStream(byteStream);
+      object = objectStream.readObject();
+    }
+    catch (IOException | ClassNotFoundException e)
+    {
+      objMonitor.warn(JavaSerializationCodec.class, "Failed to deserialize certain bytes to object. See trace in the logs for more information.");
+      objMonitor.trace(JavaSerializationCodec.class, e);
+    }
+    return object;
+  }
+}
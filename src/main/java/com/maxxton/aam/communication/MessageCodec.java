@@ -0,0 +1,58 @@
+package com.maxxton.aam.communication;
+
+/**
+ * MessageCodec interface Converts messages to bytes and back. The content type of the codec is sent along with every message so the receiving side can pick the matching codec. A codec is shared by
+ * all sending and receiving threads of a messenger, so implementations must be thread-safe.
+ * 
+ * @author Robin Hermans
+ * @copyright Maxxton 2015
+ */
+public interface MessageCodec
+{
+
+  /**
+   * Gets the content type which identifies the format written by this codec.
+   *
+   * @return the content type as string.
+   */
+  public String getContentType();
+
+  /**
+   * Encodes a given object into a byte array.
+   *
+   * @param object
+   *          Object to be encoded.
+   * @return encoded object as array of bytes, null if encoding failed.
+   */
+  public byte[] encode(Object object);
+
+  /**
+   * Encodes a given object into a buffer which may already hold other bytes of the message. Codecs which can write into the buffer directly override this to skip the intermediate byte array.
+   *
+   * @param object
+   *          Object to be encoded.
+   * @param buffer
+   *          the buffer the encoded object is appended to.
+   * @return true if the object was encoded, false if encoding failed.
+   */
+  public default boolean encode(Object object, SerializationBuffer buffer)
+  {
+    byte[] bytes = this.encode(object);
+    if (bytes == null)
+    {
+      return false;
+    }
+    buffer.write(bytes);
+    return true;
+  }
+
+  /**
+   * Decodes an array of bytes to an object.
+   *
+   * @param bytes
+   *          array of bytes to be decoded.
+   * @return decoded byte array as object, null if decoding failed.
+   */
+  public Object decode(byte[] bytes);
+
+}
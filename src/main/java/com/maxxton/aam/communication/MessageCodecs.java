@@ -0,0 +1,163 @@
+package com.maxxton.aam.communication;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+
+import com.maxxton.aam.monitoring.Monitor;
+import com.maxxton.aam.monitoring.MonitorFactory;
+import com.maxxton.aam.resources.Validator;
+
+/**
+ * MessageCodecs class. Keeps track of the available MessageCodec implementations, both by class name for the configuration and by content type for received messages.
+ *
+ * @author Robin Hermans
+ * @copyright Maxxton 2015
+ */
+public class MessageCodecs
+{
+  private static Monitor objMonitor = MonitorFactory.getMonitor("global");
+
+  private static ConcurrentMap<String, MessageCodec> mapByClass = new ConcurrentHashMap<String, MessageCodec>();
+  private static ConcurrentMap<String, MessageCodec> mapByContentType = new ConcurrentHashMap<String, MessageCodec>();
+  private static MessageCodec objDefault = new JavaSerializationCodec();
+
+  static
+  {
+    MessageCodecs.register(MessageCodecs.objDefault);
+  }
+
+  /**
+   * Registers a codec so received messages with its content type can be decoded.
+   *
+   * @param codec
+   *          the codec to be registered.
+   */
+  public static void register(MessageCodec codec)
+  {
+    if (Validator.checkObject(codec, MessageCodec.class))
+    {
+      MessageCodecs.mapByClass.put(codec.getClass().getName(), codec);
+      MessageCodecs.mapByContentType.put(codec.getContentType(), codec);
+    }
+  }
+
+  /**
+   * Gets the default codec, which uses Java serialization.
+   *
+   * @return the default MessageCodec.
+   */
+  public static MessageCodec getDefault()
+  {
+    return MessageCodecs.objDefault;
+  }
+
+  /**
+   * Gets a codec by class name. Unknown classes are instantiated and registered. Returns the default codec if the class cannot be used.
+   *
+   * @param className
+   *          the fully qualified class name of the codec.
+   * @return an instance of the requested MessageCodec.
+   */
+  public static MessageCodec getCodec(String className)
+  {
+    if (!Validator.checkString(className, false, false))
+    {
+      return MessageCodecs.objDefault;
+    }
+
+    MessageCodec codec = MessageCodecs.mapByClass.get(className);
+    if (codec == null)
+    {
+      try
+      {
+        Object instance = Class.forName(className).getDeclaredConstructor().newInstance();
+        if (instance instanceof MessageCodec)
+        {
+          codec = (MessageCodec) instance;
+          MessageCodecs.register(codec);
+        }
+        else
+        {
+          objMonitor.warn(MessageCodecs.class, "The class '{}' does not implement MessageCodec. Falling back to the default codec.", className);
+          codec = MessageCodecs.objDefault;
+        }
+      }
+      catch (ReflectiveOperationException e)
+      {
+        objMonitor.warn(MessageCodecs.class, "Unable to create codec '{}'. Falling back to the default codec.", className);
+        objMonitor.trace(MessageCodecs.class, e);
+        codec = MessageCodecs.objDefault;
+      }
+    }
+    return codec;
+  }
+
+  /**
+   * Gets the codec matching a content type. Envelope content types are resolved through the codec of their payload.
+   *
+   * @param contentType
+   *          the content type of a received message.
+   * @param fallback
+   *          the codec to use when the content type is not set or unknown.
+   * @return the matching MessageCodec.
+   */
+  public static MessageCodec getDecoder(String contentType, MessageCodec fallback)
+  {
+    if (contentType == null)
+    {
+      return fallback;
+    }
+
+    MessageCodec codec = MessageCodecs.mapByContentType.get(contentType);
+    if (codec == null && contentType.startsWith(EnvelopeCodec.CONTENT_TYPE + EnvelopeCodec.PAYLOAD_PARAMETER))
+    {
+      String payloadType = contentType.substring(EnvelopeCodec.CONTENT_TYPE.length() + EnvelopeCodec.PAYLOAD_PARAMETER.length());
+      MessageCodec payloadCodec = MessageCodecs.mapByContentType.get(payloadType);
+      if (payloadCodec != null)
+      {
+        codec = new EnvelopeCodec(payloadCodec);
+        MessageCodecs.mapByContentType.putIfAbsent(contentType, codec);
+      }
+    }
+    return codec == null ? fallback : codec;
+  }
+
+  /**
+   * Decodes the body of a received message with the codec matching its content type.
+   *
+   * @param message
+   *          the received message.
+   * @param fallback
+   *          the codec to use when the content type is not set or unknown.
+   * @return the decoded body, null if decoding failed.
+   */
+  public static Object decode(Message message, MessageCodec fallback)
+  {
+    return MessageCodecs.decode(message, fallback, MessageCodecs.objMonitor);
+  }
+
+  /**
+   * Decodes the body of a received message with the codec matching its content type. Compressed bodies are restored first.
+   *
+   * @param message
+   *          the received message.
+   * @param fallback
+   *          the codec to use when the content type is not set or unknown.
+   * @param monitor
+   *          the monitor of the receiving messenger.
+   * @return the decoded body, null if restoring or decoding failed.
+   */
+  public static Object decode(Message message, MessageCodec fallback, Monitor monitor)
+  {
+    MessageProperties properties = message.getMessageProperties();
+    byte[] body = MessageCompressors.decompress(message.getBody(), properties, monitor);
+    if (body == null)
+    {
+      return null;
+    }
+    return MessageCodecs.getDecoder(properties.getContentType(), fallback).decode(body);
+  }
+}
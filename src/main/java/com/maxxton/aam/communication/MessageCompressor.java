@@ -0,0 +1,37 @@
+package com.maxxton.aam.communication;
+
+/**
+ * MessageCompressor interface Compresses encoded message bodies and restores them again. The encoding of the compressor is sent along as content encoding of every compressed message so the receiving
+ * side can pick the matching compressor. A compressor is shared by all threads of a messenger, so implementations must be thread-safe.
+ * 
+ * @author Robin Hermans
+ * @copyright Maxxton 2015
+ */
+public interface MessageCompressor
+{
+
+  /**
+   * Gets the content encoding which identifies the format written by this compressor.
+   *
+   * @return the content encoding as string.
+   */
+  public String getEncoding();
+
+  /**
+   * Compresses an encoded message body.
+   *
+   * @param bytes
+   *          the bytes to be compressed.
+   * @return compressed bytes, null if compressing failed.
+   */
+  public byte[] compress(byte[] bytes);
+
+  /**
+   * Restores a compressed message body.
+   *
+   * @param bytes
+   *          the compressed bytes.
+   * @return the original bytes, null if decompressing failed.
+   */
+  public byte[] decompress(byte[] bytes);
+}
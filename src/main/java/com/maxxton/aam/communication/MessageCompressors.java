@@ -0,0 +1,173 @@
+package com.maxxton.aam.communication;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.amqp.core.MessageProperties;
+
+import com.maxxton.aam.monitoring.Monitor;
+import com.maxxton.aam.monitoring.MonitorFactory;
+import com.maxxton.aam.monitoring.Monitor.DataType;
+import com.maxxton.aam.resources.Validator;
+
+/**
+ * MessageCompressors class. Keeps track of the available MessageCompressor implementations, both by class name for the configuration and by content encoding for received messages. Compresses
+ * outgoing bodies above a threshold and restores received bodies by their content encoding.
+ *
+ * @author Robin Hermans
+ * @copyright Maxxton 2015
+ */
+public class MessageCompressors
+{
+  private static Monitor objMonitor = MonitorFactory.getMonitor("global");
+
+  private static ConcurrentMap<String, MessageCompressor> mapByClass = new ConcurrentHashMap<String, MessageCompressor>();
+  private static ConcurrentMap<String, MessageCompressor> mapByEncoding = new ConcurrentHashMap<String, MessageCompressor>();
+  private static MessageCompressor objDefault = new GzipCompressor();
+
+  static
+  {
+    MessageCompressors.register(MessageCompressors.objDefault);
+  }
+
+  /**
+   * Registers a compressor so received messages with its content encoding can be restored.
+   *
+   * @param compressor
+   *          the compressor to be registered.
+   */
+  public static void register(MessageCompressor compressor)
+  {
+    if (Validator.checkObject(compressor, MessageCompressor.class))
+    {
+      MessageCompressors.mapByClass.put(compressor.getClass().getName(), compressor);
+      MessageCompressors.mapByEncoding.put(compressor.getEncoding(), compressor);
+    }
+  }
+
+  /**
+   * Gets the default compressor, which uses gzip.
+   *
+   * @return the default MessageCompressor.
+   */
+  public static MessageCompressor getDefault()
+  {
+    return MessageCompressors.objDefault;
+  }
+
+  /**
+   * Gets a compressor by class name. Unknown classes are instantiated and registered. Returns the default compressor if the class cannot be used.
+   *
+   * @param className
+   *          the fully qualified class name of the compressor.
+   * @return an instance of the requested MessageCompressor.
+   */
+  public static MessageCompressor getCompressor(String className)
+  {
+    if (!Validator.checkString(className, false, false))
+    {
+      return MessageCompressors.objDefault;
+    }
+
+    MessageCompressor compressor = MessageCompressors.mapByClass.get(className);
+    if (compressor == null)
+    {
+      try
+      {
+        Object instance = Class.forName(className).getDeclaredConstructor().newInstance();
+        if (instance instanceof MessageCompressor)
+        {
+          compressor = (MessageCompressor) instance;
+          MessageCompressors.register(compressor);
+        }
+        else
+        {
+          objMonitor.warn(MessageCompressors.class, "The class '{}' does not implement MessageCompressor. Falling back to the default compressor.", className);
+          compressor = MessageCompressors.objDefault;
+        }
+      }
+      catch (ReflectiveOperationException e)
+      {
+        objMonitor.warn(MessageCompressors.class, "Unable to create compressor '{}'. Falling back to the default compressor.", className);
+        objMonitor.trace(MessageCompressors.class, e);
+        compressor = MessageCompressors.objDefault;
+      }
+    }
+    return compressor;
+  }
+
+  /**
+   * Gets the compressor matching a content encoding.
+   *
+   * @param encoding
+   *          the content encoding of a received message.
+   * @return the matching MessageCompressor, null if the encoding is unknown.
+   */
+  public static MessageCompressor getDecompressor(String encoding)
+  {
+    return encoding == null ? null : MessageCompressors.mapByEncoding.get(encoding);
+  }
+
+  /**
+   * Compresses an encoded body when it reaches the threshold and compressing makes it smaller. The content encoding is set on the properties when the compressed body is used.
+   *
+   * @param body
+   *          the encoded body.
+   * @param properties
+   *          the properties of the outgoing message.
+   * @param compressor
+   *          the compressor to be used.
+   * @param threshold
+   *          the minimum body size in bytes, 0 to never compress.
+   * @param monitor
+   *          the monitor the compression metrics are recorded in.
+   * @return the body to be send.
+   */
+  public static byte[] compress(byte[] body, MessageProperties properties, MessageCompressor compressor, int threshold, Monitor monitor)
+  {
+    if (threshold <= 0 || body == null || body.length < threshold)
+    {
+      return body;
+    }
+
+    long start = System.nanoTime();
+    byte[] compressed = compressor.compress(body);
+    monitor.data(DataType.COMPRESS_TIME, (int) TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+    if (compressed == null || compressed.length >= body.length)
+    {
+      return body;
+    }
+
+    monitor.data(DataType.COMPRESS_BYTES_IN, body.length);
+    monitor.data(DataType.COMPRESS_BYTES_OUT, compressed.length);
+    properties.setContentEncoding(compressor.getEncoding());
+    return compressed;
+  }
+
+  /**
+   * Restores a received body according to its content encoding. Bodies without a known compression encoding are returned as is.
+   *
+   * @param body
+   *          the received body.
+   * @param properties
+   *          the properties of the received message.
+   * @param monitor
+   *          the monitor the decompression time is recorded in.
+   * @return the restored body, null if decompressing failed.
+   */
+  public static byte[] decompress(byte[] body, MessageProperties properties, Monitor monitor)
+  {
+    MessageCompressor compressor = MessageCompressors.getDecompressor(properties.getContentEncoding());
+    if (compressor == null)
+    {
+      // Not compressed, other senders may use the content encoding for the character set of the body.
+      return body;
+    }
+
+    long start = System.nanoTime();
+    byte[] restored = compressor.decompress(body);
+    monitor.data(DataType.DECOMPRESS_TIME, (int) TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+    return restored;
+  }
+}
@@ -0,0 +1,225 @@
+package com.maxxton.aam.communication;
+
+import java.util.Map;
+
+import org.springframework.amqp.core.MessageProperties;
+
+import com.maxxton.aam.messages.BaseMessage;
+import com.maxxton.aam.messages.MessageType;
+
+/**
+ * MessageHeaders class. Copies the envelope fields of a BaseMessage into the AMQP headers, so received messages can be classified and routed without decoding their body. Chunks of split bodies
+ * carry their position in the headers as well, and messages waiting for a publisher confirm carry their confirm id so a return by the broker can be matched to it.
+ *
+ * @author Robin Hermans
+ * @copyright Maxxton 2015
+ */
+public class MessageHeaders
+{
+  public static final String TYPE = "aam-type";
+  public static final String SENDER = "aam-sender";
+  public static final String RECEIVER = "aam-receiver";
+  public static final String PRIORITY = "aam-priority";
+  public static final String CHUNK_INDEX = "aam-chunk-index";
+  public static final String CHUNK_COUNT = "aam-chunk-count";
+  public static final String CHUNK_OFFSET = "aam-chunk-offset";
+  public static final String CHUNK_LENGTH = "aam-chunk-length";
+  public static final String CONFIRM = "aam-confirm";
+  public static final String BATCH_INDEX = "aam-batch-index";
+
+  /**
+   * Writes the envelope fields of a message into the headers.
+   *
+   * @param properties
+   *          the properties of the outgoing AMQP message.
+   * @param message
+   *          the message which is being send.
+   */
+  public static void write(MessageProperties properties, BaseMessage message)
+  {
+    properties.setHeader(TYPE, message.getMessageType().name());
+    properties.setHeader(SENDER, message.getSender());
+    properties.setHeader(RECEIVER, message.getReceiver());
+    properties.setHeader(PRIORITY, message.getPriority());
+    properties.setPriority(message.getPriority());
+  }
+
+  /**
+   * Checks whether the envelope fields are available in the headers. Messages send by older messengers do not have them.
+   *
+   * @param properties
+   *          the properties of a received AMQP message.
+   * @return true if the headers contain a valid message type, false if they don't.
+   */
+  public static boolean hasEnvelope(MessageProperties properties)
+  {
+    return MessageHeaders.getMessageType(properties) != null;
+  }
+
+  /**
+   * Gets the message type from the headers.
+   *
+   * @param properties
+   *          the properties of a received AMQP message.
+   * @return the message type, null if it is missing or unknown.
+   */
+  public static MessageType getMessageType(MessageProperties properties)
+  {
+    Object type = properties.getHeaders().get(TYPE);
+    if (type != null)
+    {
+      try
+      {
+        return MessageType.valueOf(type.toString());
+      }
+      catch (IllegalArgumentException e)
+      {
+        return null;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Gets the sender from the headers.
+   *
+   * @param properties
+   *          the properties of a received AMQP message.
+   * @return the sender as string, null if it is missing.
+   */
+  public static String getSender(MessageProperties properties)
+  {
+    return MessageHeaders.getString(properties.getHeaders(), SENDER);
+  }
+
+  /**
+   * Gets the receiver from the headers.
+   *
+   * @param properties
+   *          the properties of a received AMQP message.
+   * @return the receiver as string, null if it is missing.
+   */
+  public static String getReceiver(MessageProperties properties)
+  {
+    return MessageHeaders.getString(properties.getHeaders(), RECEIVER);
+  }
+
+  /**
+   * Gets the priority from the headers, falling back to the AMQP priority of the message.
+   *
+   * @param properties
+   *          the properties of a received AMQP message.
+   * @return the priority, 0 if it is missing.
+   */
+  public static int getPriority(MessageProperties properties)
+  {
+    Object priority = properties.getHeaders().get(PRIORITY);
+    if (priority instanceof Number)
+    {
+      return ((Number) priority).intValue();
+    }
+    return properties.getPriority() == null ? 0 : properties.getPriority();
+  }
+
+  /**
+   * Marks a message as a chunk of a larger body.
+   *
+   * @param properties
+   *          the properties of the outgoing chunk.
+   * @param index
+   *          the sequence number of the chunk, starting at 0.
+   * @param count
+   *          the amount of chunks the body was split into.
+   * @param offset
+   *          the position of the chunk in the body.
+   * @param length
+   *          the length of the whole body.
+   */
+  public static void writeChunk(MessageProperties properties, int index, int count, int offset, int length)
+  {
+    properties.setHeader(CHUNK_INDEX, index);
+    properties.setHeader(CHUNK_COUNT, count);
+    properties.setHeader(CHUNK_OFFSET, offset);
+    properties.setHeader(CHUNK_LENGTH, length);
+  }
+
+  /**
+   * Removes the chunk headers from the properties of a reassembled message.
+   *
+   * @param properties
+   *          the properties of the reassembled message.
+   */
+  public static void removeChunk(MessageProperties properties)
+  {
+    properties.getHeaders().remove(CHUNK_INDEX);
+    properties.getHeaders().remove(CHUNK_COUNT);
+    properties.getHeaders().remove(CHUNK_OFFSET);
+    properties.getHeaders().remove(CHUNK_LENGTH);
+  }
+
+  /**
+   * Checks whether a message is a chunk of a larger body.
+   *
+   * @param properties
+   *          the properties of an AMQP message.
+   * @return true if the message is a chunk, false if it carries a whole body.
+   */
+  public static boolean isChunk(MessageProperties properties)
+  {
+    return properties.getHeaders().containsKey(CHUNK_COUNT);
+  }
+
+  /**
+   * Checks whether a message is the last chunk of a larger body. Messages which are not chunked count as their own last chunk.
+   *
+   * @param properties
+   *          the properties of an AMQP message.
+   * @return true if no more chunks of the body follow, false if they do.
+   */
+  public static boolean isLastChunk(MessageProperties properties)
+  {
+    return !MessageHeaders.isChunk(properties) || MessageHeaders.getInteger(properties, CHUNK_INDEX) == MessageHeaders.getInteger(properties, CHUNK_COUNT) - 1;
+  }
+
+  /**
+   * Gets a numeric header.
+   *
+   * @param properties
+   *          the properties of a received AMQP message.
+   * @param key
+   *          the name of the header.
+   * @return the value, -1 if it is missing or not a number.
+   */
+  public static int getInteger(MessageProperties properties, String key)
+  {
+    Object value = properties.getHeaders().get(key);
+    return value instanceof Number ? ((Number) value).intValue() : -1;
+  }
+
+  /**
+   * Gets the confirm id a message was published with.
+   *
+   * @param properties
+   *          the properties of a returned AMQP message.
+   * @return the confirm id, null if the message did not wait for a confirm.
+   */
+  public static String getConfirm(MessageProperties properties)
+  {
+    return MessageHeaders.getString(properties.getHeaders(), MessageHeaders.CONFIRM);
+  }
+
+  /**
+   * Gets a header as string.
+   *
+   * @param headers
+   *          the headers of a received AMQP message.
+   * @param key
+   *          the name of the header.
+   * @return the value as string, null if it is missing.
+   */
+  private static String getString(Map<String, Object> headers, String key)
+  {
+    Object value = headers.get(key);
+    return value == null ? null : value.toString();
+  }
+}
@@ -21,6 +21,7 @@ public class MessagingFactory
   private static MessagingFactory objInstance = null;
 
   private Map<String, Messenger> mapMessengerMap;
+  private ConnectionPool objConnectionPool;
 
   /**
    * Private constructor for the MessagingFactory class.
@@ -28,6 +29,7 @@ public class MessagingFactory
   private MessagingFactory()
   {
     this.mapMessengerMap = new HashMap<String, Messenger>();
+    this.objConnectionPool = new ConnectionPool();
   }
 
   /**
@@ -106,12 +108,12 @@ public class MessagingFactory
     {
       if (this.mapMessengerMap.containsKey(name))
       {
-        this.mapMessengerMap.remove(name);
+        this.mapMessengerMap.remove(name).getCommunication().destroy();
         return true;
       }
       else
       {
-        objMonitor.info(MessagingFactory.class, "No Messenger found with name '" + name + "'");
+        objMonitor.info(MessagingFactory.class, "No Messenger found with name '{}'", name);
       }
     }
     else
@@ -121,4 +123,13 @@ public class MessagingFactory
     return false;
   }
 
+  /**
+   * Gets the pool of broker connections shared by all messengers.
+   *
+   * @return the ConnectionPool instance.
+   */
+  public ConnectionPool getConnectionPool()
+  {
+    return this.objConnectionPool;
+  }
 }
@@ -1,5 +1,10 @@
 package com.maxxton.aam.communication;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 import com.maxxton.aam.messages.BaseMessage;
 import com.maxxton.aam.messages.MessageType;
 import com.maxxton.aam.monitoring.Monitor;
@@ -7,6 +12,7 @@ import com.maxxton.aam.monitoring.MonitorFactory;
 import com.maxxton.aam.resources.Callback;
 import com.maxxton.aam.resources.MessageDetails;
 import com.maxxton.aam.resources.MessageFactory;
+import com.maxxton.aam.resources.OutboundMessage;
 import com.maxxton.aam.resources.Resources;
 import com.maxxton.aam.resources.Validator;
 
@@ -102,6 +108,132 @@ public class Messenger
     return null;
   }
 
+  /**
+   * Send a batch of messages. All messages are published on a single channel and confirmed by the broker at once, which is a lot cheaper than sending them one by one.
+   *
+   * @param outboundMessages
+   *          the messages to be send.
+   * @return outcome per message in the iteration order of the collection. An valid UUID if the message was send correctly, null if it was not.
+   */
+  public List<String> sendMessages(Collection<OutboundMessage> outboundMessages)
+  {
+    List<String> results = new ArrayList<String>(outboundMessages.size());
+    List<Integer> positions = new ArrayList<Integer>(outboundMessages.size());
+    List<String> receivers = new ArrayList<String>(outboundMessages.size());
+    List<BaseMessage> messages = new ArrayList<BaseMessage>(outboundMessages.size());
+    List<String> responseTos = new ArrayList<String>(outboundMessages.size());
+
+    for (OutboundMessage outbound : outboundMessages)
+    {
+      results.add(null);
+      BaseMessage message = outbound.getMessageType() == null ? null : MessageFactory.createMessage(outbound.getMessageType());
+      if (Validator.checkObject(message, BaseMessage.class) && Validator.checkString(outbound.getReceiver(), false, false))
+      {
+        String receiver = outbound.getReceiver().toLowerCase();
+        message.setPayload(outbound.getPayload());
+        message.setSender(this.objResources.getConfiguration().getName());
+        message.setReceiver(receiver);
+
+        positions.add(results.size() - 1);
+        receivers.add(receiver);
+        messages.add(message);
+        responseTos.add(outbound.getResponseTo());
+      }
+      else
+      {
+        objMonitor.warn(Messenger.class, "A message in the batch has no valid messagetype or receiver. Be sure to fill all parameters correctly.");
+      }
+    }
+
+    if (!messages.isEmpty())
+    {
+      List<String> uuids = this.objCommunication.packAndSend(receivers, messages, responseTos);
+      for (int i = 0; i < uuids.size(); i++)
+      {
+        results.set(positions.get(i), uuids.get(i));
+      }
+    }
+    return results;
+  }
+
+  /**
+   * Send a specific message type with payload to a given receiver without waiting for the broker.
+   *
+   * @param type
+   *          enumeration type of the to be send message.
+   * @param receiver
+   *          the receiver of the message as string
+   * @param payload
+   *          the contents of the message (can be any object)
+   * @return a future completing with a valid UUID once the broker confirmed the message, or with null if it could not be send.
+   */
+  public CompletableFuture<String> sendMessageAsync(MessageType type, String receiver, Object payload)
+  {
+    return this.sendMessageAsync(type, receiver, payload, null);
+  }
+
+  /**
+   * Send a specific message type with payload to a given receiver referring to another message without waiting for the broker. The future completes exceptionally when the broker rejects the
+   * message. Blocks while the configured maximum of unconfirmed messages (confirm.maxpending) is reached.
+   *
+   * @param messageType
+   *          enumeration type of the to be send message.
+   * @param receiver
+   *          the receiver of the message as string
+   * @param payload
+   *          the contents of the message (can be any object)
+   * @param responseTo
+   *          correlationId where the message is a response to.
+   * @return a future completing with a valid UUID once the broker confirmed the message, or with null if it could not be send.
+   */
+  public CompletableFuture<String> sendMessageAsync(MessageType messageType, String receiver, Object payload, String responseTo)
+  {
+    BaseMessage message = MessageFactory.createMessage(messageType);
+    if (Validator.checkObject(message, BaseMessage.class))
+    {
+      message.setPayload(payload);
+      message.setSender(this.objResources.getConfiguration().getName());
+      message.setReceiver(receiver.toLowerCase());
+      return this.objCommunication.packAndSendAsync(receiver.toLowerCase(), message, responseTo);
+    }
+    else
+    {
+      objMonitor.warn(Messenger.class, "The messagetype you are sending is null. Be sure to fill all parameters correctly.");
+    }
+    return CompletableFuture.completedFuture(null);
+  }
+
+  /**
+   * Send a specific message type with payload to a given receiver and wait for its reply without polling. The future completes when a ResponseMessage referring to this message arrives, it is
+   * not passed to the callback or the receive queue.
+   *
+   * @param messageType
+   *          enumeration type of the to be send message.
+   * @param receiver
+   *          the receiver of the message as string
+   * @param payload
+   *          the contents of the message (can be any object)
+   * @param millis
+   *          time to wait for the reply in milliseconds.
+   * @return a future completing with the details of the reply, with null if the message could not be send or exceptionally with a TimeoutException when no reply arrived in time.
+   */
+  public CompletableFuture<MessageDetails> request(MessageType messageType, String receiver, Object payload, int millis)
+  {
+    BaseMessage message = MessageFactory.createMessage(messageType);
+    if (Validator.checkObject(message, BaseMessage.class))
+    {
+      message.setPayload(payload);
+      message.setSender(this.objResources.getConfiguration().getName());
+      message.setReceiver(receiver.toLowerCase());
+      return this.objCommunication.packAndRequest(receiver.toLowerCase(), message, millis);
+    }
+    else
+    {
+      objMonitor.warn(Messenger.class, "The messagetype you are sending is null. Be sure to fill all parameters correctly.");
+    }
+    return CompletableFuture.completedFuture(null);
+  }
+
   /**
    * Checks if there are any message stored in the DataContainer. Returns BaseMessage on true and null on false.
    * 
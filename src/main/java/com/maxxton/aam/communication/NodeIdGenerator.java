@@ -0,0 +1,76 @@
+package com.maxxton.aam.communication;
+
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * NodeIdGenerator class The default IdGenerator. An id is a random node id drawn once, the time the generator was created and a counter, written as 40 hexadecimal characters. Only the counter changes
+ * per id, so generating an id is a single atomic increment and filling a small array, unlike UUID.randomUUID which draws from a shared SecureRandom for every id. The creation time keeps a node from
+ * repeating the ids of an earlier run, even with a fixed node id.
+ *
+ * @author Robin Hermans
+ * @copyright Maxxton 2015
+ */
+public class NodeIdGenerator implements IdGenerator
+{
+  private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+  private static final int NODE_DIGITS = 12;
+  private static final int TIME_DIGITS = 12;
+  private static final int COUNTER_DIGITS = 16;
+
+  private final byte[] arrPrefix;
+  private final AtomicLong lngCounter;
+
+  /**
+   * Constructor for the NodeIdGenerator class using a random node id.
+   */
+  public NodeIdGenerator()
+  {
+    this(new SecureRandom().nextLong());
+  }
+
+  /**
+   * Constructor for the NodeIdGenerator class.
+   *
+   * @param nodeId
+   *          the id of this node, only the lower 48 bits are used.
+   */
+  public NodeIdGenerator(long nodeId)
+  {
+    this.arrPrefix = new byte[NODE_DIGITS + TIME_DIGITS];
+    NodeIdGenerator.writeHex(this.arrPrefix, 0, nodeId, NODE_DIGITS);
+    NodeIdGenerator.writeHex(this.arrPrefix, NODE_DIGITS, System.currentTimeMillis(), TIME_DIGITS);
+    this.lngCounter = new AtomicLong(0);
+  }
+
+  @Override
+  public byte[] nextId()
+  {
+    byte[] id = Arrays.copyOf(this.arrPrefix, NODE_DIGITS + TIME_DIGITS + COUNTER_DIGITS);
+    NodeIdGenerator.writeHex(id, NODE_DIGITS + TIME_DIGITS, this.lngCounter.getAndIncrement(), COUNTER_DIGITS);
+    return id;
+  }
+
+  /**
+   * Writes the lower digits of a value as hexadecimal characters.
+   *
+   * @param bytes
+   *          the array to write to.
+   * @param offset
+   *          the position of the first digit.
+   * @param value
+   *          the value to be written.
+   * @param digits
+   *          the amount of digits to write.
+   */
+  private static void writeHex(byte[] bytes, int offset, long value, int digits)
+  {
+    for (int i = offset + digits - 1; i >= offset; i--)
+    {
+      bytes[i] = HEX[(int) (value & 0xF)];
+      value >>>= 4;
+    }
+  }
+}
@@ -1,5 +1,9 @@
 package com.maxxton.aam.communication;
 
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import org.springframework.amqp.core.Address;
 import org.springframework.amqp.core.Binding;
 import org.springframework.amqp.core.Message;
 import org.springframework.amqp.core.MessageListener;
@@ -9,10 +13,10 @@ import org.springframework.amqp.core.Binding.DestinationType;
 import org.springframework.amqp.rabbit.connection.CachingConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitAdmin;
 import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+import org.springframework.amqp.support.converter.MessageConversionException;
 
 import com.maxxton.aam.messages.BaseMessage;
-import com.maxxton.aam.messages.ResponseMessage;
-import com.maxxton.aam.messages.StatusMessage;
+import com.maxxton.aam.messages.MessageType;
 import com.maxxton.aam.monitoring.Monitor;
 import com.maxxton.aam.monitoring.MonitorFactory;
 import com.maxxton.aam.monitoring.Monitor.DataType;
@@ -35,6 +39,8 @@ public class ReceiveController implements MessageListener
   private Resources objResources;
   private DataContainer objContainer;
   private Callback objCallback;
+  private CallbackDispatcher objDispatcher;
+  private MessageCodec objCodec;
   private SimpleMessageListenerContainer objListener;
   private CachingConnectionFactory objConnection;
   private RabbitAdmin objAdmin;
@@ -52,8 +58,11 @@ public class ReceiveController implements MessageListener
   {
     this.objResources = resources;
     this.objContainer = DataContainer.getInstance(this.objResources.getConfiguration().getName());
+    this.objContainer.setResources(this.objResources);
     this.objMonitor = MonitorFactory.getMonitor(this.objResources.getConfiguration().getName());
     this.objCallback = null;
+    this.objDispatcher = new CallbackDispatcher(this.objResources.getConfiguration(), this.objMonitor);
+    this.objCodec = new EnvelopeCodec(MessageCodecs.getCodec(this.objResources.getConfiguration().getMessageCodec()));
 
     this.connectToBroker();
     this.configureQueue();
@@ -72,8 +81,9 @@ public class ReceiveController implements MessageListener
     boolean queueDurability = config.getQueueDurability();
     boolean queueAutoDelete = config.getQueueAutoDelete();
     boolean queueExclusive = config.getQueueExclusive();
+    Map<String, Object> queueArguments = config.getQueueArguments();
 
-    this.objQueue = new Queue(queueName, queueDurability, queueAutoDelete, queueExclusive);
+    this.objQueue = new Queue(queueName, queueDurability, queueAutoDelete, queueExclusive, queueArguments);
     this.objAdmin.declareQueue(this.objQueue);
 
     String bindingName = config.getBindingPrefix() + config.getName() + config.getBindingSuffix();
@@ -90,42 +100,63 @@ public class ReceiveController implements MessageListener
    */
   private SimpleMessageListenerContainer configureMessageListener()
   {
+    Configuration config = this.objResources.getConfiguration();
+    int minConsumers = Math.max(config.getListenerConcurrencyMin(), 1);
+    int maxConsumers = this.objDispatcher.limitConsumers(Math.max(config.getListenerConcurrencyMax(), minConsumers));
+    minConsumers = Math.min(minConsumers, maxConsumers);
+
     SimpleMessageListenerContainer container = new SimpleMessageListenerContainer();
     container.setConnectionFactory(this.objConnection);
     container.setQueueNames(this.objQueue.getName());
     container.setMessageListener(this);
+    container.setConcurrentConsumers(minConsumers);
+    if (maxConsumers > minConsumers)
+    {
+      // The container starts extra consumers while all are busy and stops them again once they are idle.
+      container.setMaxConcurrentConsumers(maxConsumers);
+    }
+    int txSize = Math.max(config.getListenerTxSize(), 1);
+    container.setTxSize(txSize);
+    container.setPrefetchCount(Math.max(config.getListenerPrefetch(), txSize));
     container.afterPropertiesSet();
     container.start();
     return container;
   }
 
   /**
-   * Creates a new connection to an AMQP broker with the given information.
+   * Borrows a connection to the AMQP broker from the shared connection pool.
    */
   private void connectToBroker()
   {
     if (this.objConnection == null)
     {
-      this.objConnection = new CachingConnectionFactory();
-      String host = this.objResources.getConfiguration().getHost();
-      String addresses = "";
-      for (int port : this.objResources.getConfiguration().getPorts())
-      {
-        addresses = addresses + host + ":" + port + ",";
-      }
-      this.objConnection.setAddresses(addresses);
-      this.objConnection.setUsername(this.objResources.getConfiguration().getUsername());
-      this.objConnection.setPassword(this.objResources.getConfiguration().getPassword());
-      this.objConnection.setChannelCacheSize(25);
+      this.objConnection = MessagingFactory.getInstance().getConnectionPool().borrow(this.objResources.getConfiguration(), ConnectionPool.ROLE_CONSUME);
+    }
+  }
+
+  /**
+   * Stops the listener and the dispatch threads and hands the connection back to the pool.
+   */
+  public synchronized void destroy()
+  {
+    if (this.objListener != null)
+    {
+      this.objListener.stop();
+    }
+    this.objDispatcher.shutdown();
+    if (this.objConnection != null)
+    {
+      MessagingFactory.getInstance().getConnectionPool().release(this.objConnection);
+      this.objConnection = null;
     }
   }
 
   /**
-   * Get the oldest message available from the DataContainer.
+   * Get the oldest message available from the DataContainer. Waits up to the timeout for a message to arrive and returns as soon as one does.
    * 
    * @param millis
    *          timeout given in milliseconds.
-   * @return The received message
+   * @return The received message, null if none arrived in time.
    */
   public Message receiveMessage(int millis)
   {
@@ -137,23 +168,9 @@ public class ReceiveController implements MessageListener
       millis = 0;
     }
 
-    while (message == null && millis > 0)
+    if (message == null && millis > 0)
     {
-      int time = millis % 100;
-      if (time == 0)
-        time = 10;
-
-      millis = millis - time;
-      try
-      {
-        Thread.sleep(time);
-      }
-      catch (InterruptedException e)
-      {
-        objMonitor.error(ReceiveController.class, "Unable to make the thread sleep for '10' milliseconds. Giving stack trace...");
-        objMonitor.trace(ReceiveController.class, e);
-      }
-      message = this.objContainer.popReceivedMessage();
+      message = this.objContainer.takeReceivedMessage(millis);
     }
     return message;
   }
@@ -200,6 +217,16 @@ public class ReceiveController implements MessageListener
     return this.objCallback;
   }
 
+  /**
+   * Gets the CallbackDispatcher instance.
+   * 
+   * @return an instance of the CallbackDispatcher class
+   */
+  public CallbackDispatcher getDispatcher()
+  {
+    return this.objDispatcher;
+  }
+
   /**
    * Sets the Resources class
    * 
@@ -249,22 +276,132 @@ public class ReceiveController implements MessageListener
    *          the id of the message.
    * @param message
    *          the message to be handled.
+   * @param messageBody
+   *          the already decoded message, or null if it has not been decoded yet.
    */
-  private void handleMessageCallback(String correlationId, Message message)
+  private void handleMessageCallback(String correlationId, Message message, BaseMessage messageBody)
   {
     objMonitor.data(DataType.MESSAGE_RECEIVED, 1);
     if (this.objCallback != null)
     {
       this.objContainer.removeSendMessageById(correlationId);
-      BaseMessage messageBody = (BaseMessage) MessageSerializer.deserialize(message.getBody());
-      MessageDetails details = new MessageDetails(correlationId, messageBody.getSender(), messageBody.getReceiver(), messageBody.getMessageType(), messageBody.getPayload());
-      this.objCallback.handleMessage(details);
+      this.objDispatcher.dispatch(this.objCallback, this.createDetails(correlationId, message, messageBody));
     }
     else
     {
       this.objContainer.removeSendMessageById(correlationId);
-      this.objContainer.addReceivedMessage(message);
+      this.objContainer.putReceivedMessage(message);
+    }
+  }
+
+  /**
+   * Completes the pending request the received reply belongs to. Falls back to the regular handling when the request timed out in the meantime, a late direct reply is thrown away.
+   * 
+   * @param correlationId
+   *          the id of the message.
+   * @param message
+   *          the reply to be handled.
+   * @param messageBody
+   *          the already decoded message, or null if it has not been decoded yet.
+   */
+  private void handleRequestReply(String correlationId, Message message, BaseMessage messageBody)
+  {
+    MessageDetails details = this.createDetails(correlationId, message, messageBody);
+    if (this.objContainer.completePendingRequest(correlationId, details))
+    {
+      objMonitor.data(DataType.MESSAGE_RECEIVED, 1);
+      this.objContainer.removeSendMessageById(correlationId);
+    }
+    else if (ReceiveController.isDirectReply(message.getMessageProperties()))
+    {
+      this.discardLateReply(correlationId);
+    }
+    else
+    {
+      this.handleMessageCallback(correlationId, message, messageBody);
+    }
+  }
+
+  /**
+   * Throws away a direct reply whose request is no longer waiting. Direct replies are delivered on the thread of the AMQP client and acknowledged automatically, so handing them to the receive
+   * queue or a callback could block that thread without holding back the broker.
+   * 
+   * @param correlationId
+   *          the id of the reply.
+   */
+  private void discardLateReply(String correlationId)
+  {
+    this.objContainer.removeSendMessageById(correlationId);
+    objMonitor.data(DataType.MESSAGE_DISCARDED, 1);
+    objMonitor.warn(ReceiveController.class, "Received a direct reply to request '{}' after it timed out. Throwing away the reply.", correlationId);
+  }
+
+  /**
+   * Checks whether a message was delivered through the direct reply-to pseudo queue.
+   * 
+   * @param properties
+   *          the properties of the received message.
+   * @return true for a direct reply, false for a message from the queue of the messenger.
+   */
+  private static boolean isDirectReply(MessageProperties properties)
+  {
+    String routingKey = properties.getReceivedRoutingKey();
+    return routingKey != null && routingKey.startsWith(Address.AMQ_RABBITMQ_REPLY_TO);
+  }
+
+  /**
+   * Creates the MessageDetails handed to the callback. Messages with envelope headers get a payload which is decoded on first access, messages without them were already decoded by onMessage and
+   * are used as is. Never decodes the message itself.
+   * 
+   * @param correlationId
+   *          the id of the message.
+   * @param message
+   *          the received message instance.
+   * @param messageBody
+   *          the already decoded message, or null if the message has envelope headers and has not been decoded yet.
+   * @return the details of the message.
+   */
+  private MessageDetails createDetails(String correlationId, final Message message, BaseMessage messageBody)
+  {
+    if (messageBody == null)
+    {
+      MessageProperties properties = message.getMessageProperties();
+      return MessageDetails.lazy(correlationId, MessageHeaders.getSender(properties), MessageHeaders.getReceiver(properties), MessageHeaders.getMessageType(properties), () -> {
+        BaseMessage decoded = this.decode(message);
+        return decoded == null ? null : decoded.getPayload();
+      });
     }
+    return new MessageDetails(correlationId, messageBody.getSender(), messageBody.getReceiver(), messageBody.getMessageType(), messageBody.getPayload());
+  }
+
+  /**
+   * Throws away a received message which could not be decoded. A request waiting for it as its reply fails straight away instead of timing out.
+   * 
+   * @param correlationId
+   *          the id of the message.
+   */
+  private void discardUndecodable(String correlationId)
+  {
+    objMonitor.data(DataType.MESSAGE_DISCARDED, 1);
+    objMonitor.warn(ReceiveController.class, "Unable to decode the received message. Throwing away unknown message.");
+    CompletableFuture<MessageDetails> future = this.objContainer.removePendingRequest(correlationId);
+    if (future != null)
+    {
+      future.completeExceptionally(new MessageConversionException("Unable to decode the reply to request '" + correlationId + "'."));
+    }
+  }
+
+  /**
+   * Decodes the body of a received message.
+   * 
+   * @param message
+   *          the received message instance.
+   * @return the decoded message, null if it could not be decoded.
+   */
+  private BaseMessage decode(Message message)
+  {
+    Object messageBody = MessageCodecs.decode(message, this.objCodec, this.objMonitor);
+    return messageBody instanceof BaseMessage ? (BaseMessage) messageBody : null;
   }
 
   /**
@@ -284,12 +421,51 @@ public class ReceiveController implements MessageListener
       if (ciBytes.length > 0)
       {
         String correlationId = new String(ciBytes);
-        Object messageBody = MessageSerializer.deserialize(message.getBody());
-        if (messageBody instanceof StatusMessage || messageBody instanceof ResponseMessage)
+        if (MessageHeaders.isChunk(properties))
+        {
+          // Handled once the last chunk arrived, the reassembled message carries the properties of its chunks.
+          message = this.objContainer.getChunkAssembler().add(correlationId, message);
+          if (message == null)
+          {
+            return;
+          }
+          properties = message.getMessageProperties();
+        }
+
+        String replyTo = properties.getReplyTo();
+        if (replyTo != null && replyTo.startsWith(Address.AMQ_RABBITMQ_REPLY_TO))
+        {
+          // The requester waits on a direct reply-to channel, the reply is send there instead of to its queue.
+          this.objContainer.addReplyAddress(correlationId, replyTo);
+        }
+
+        BaseMessage messageBody = null;
+        MessageType messageType = MessageHeaders.getMessageType(properties);
+        if (messageType == null)
+        {
+          // Send by a messenger without envelope headers, decode once and pass the result along.
+          messageBody = this.decode(message);
+          if (messageBody == null)
+          {
+            this.discardUndecodable(correlationId);
+            return;
+          }
+          messageType = messageBody.getMessageType();
+        }
+
+        if (messageType == MessageType.RESPONSE_MESSAGE && this.objContainer.hasPendingRequest(correlationId))
+        {
+          this.handleRequestReply(correlationId, message, messageBody);
+        }
+        else if (ReceiveController.isDirectReply(properties))
+        {
+          this.discardLateReply(correlationId);
+        }
+        else if (messageType == MessageType.STATUS_MESSAGE || messageType == MessageType.RESPONSE_MESSAGE)
         {
           if (this.objContainer.isOwnedByMe(correlationId))
           {
-            this.handleMessageCallback(correlationId, message);
+            this.handleMessageCallback(correlationId, message, messageBody);
           }
           else
           {
@@ -302,13 +478,13 @@ public class ReceiveController implements MessageListener
             else
             {
               this.objContainer.addIdentifier(correlationId);
-              this.handleMessageCallback(correlationId, message);
+              this.handleMessageCallback(correlationId, message, messageBody);
             }
           }
         }
         else
         {
-          this.handleMessageCallback(correlationId, message);
+          this.handleMessageCallback(correlationId, message, messageBody);
         }
       }
       else
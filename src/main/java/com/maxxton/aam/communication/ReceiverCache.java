@@ -0,0 +1,148 @@
+package com.maxxton.aam.communication;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import com.maxxton.aam.resources.Validator;
+
+/**
+ * ReceiverCache class Remembers the outcome of receiver existence checks for a limited amount of time, so not every send has to wait for a passive queue declare on the broker.
+ *
+ * @author Robin Hermans
+ * @copyright Maxxton 2015
+ */
+public class ReceiverCache
+{
+  private ConcurrentMap<String, Entry> mapEntries;
+  private long lngTimeToLive;
+  private long lngNegativeTimeToLive;
+
+  /**
+   * Constructor for the ReceiverCache class.
+   *
+   * @param timeToLive
+   *          the time in seconds an existing receiver is remembered.
+   * @param negativeTimeToLive
+   *          the time in seconds a missing receiver is remembered.
+   */
+  public ReceiverCache(int timeToLive, int negativeTimeToLive)
+  {
+    this.mapEntries = new ConcurrentHashMap<String, Entry>();
+    this.setTimeToLive(timeToLive);
+    this.setNegativeTimeToLive(negativeTimeToLive);
+  }
+
+  /**
+   * Looks up the cached existence of a receiver.
+   *
+   * @param receiver
+   *          the name of the receiver.
+   * @return true or false if a valid entry is cached, null if the receiver has to be checked on the broker.
+   */
+  public Boolean lookup(String receiver)
+  {
+    if (Validator.checkString(receiver, false, false))
+    {
+      Entry entry = this.mapEntries.get(receiver);
+      if (entry != null)
+      {
+        if (entry.lngExpiresAt > System.nanoTime())
+        {
+          return entry.blnExists;
+        }
+        this.mapEntries.remove(receiver, entry);
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Stores the existence of a receiver. Nothing is stored when the matching time to live is zero.
+   *
+   * @param receiver
+   *          the name of the receiver.
+   * @param exists
+   *          whether or not the receiver exists.
+   */
+  public void store(String receiver, boolean exists)
+  {
+    if (Validator.checkString(receiver, false, false))
+    {
+      long ttl = exists ? this.lngTimeToLive : this.lngNegativeTimeToLive;
+      if (ttl > 0)
+      {
+        this.mapEntries.put(receiver, new Entry(exists, System.nanoTime() + ttl));
+      }
+    }
+  }
+
+  /**
+   * Removes a receiver from the cache, forcing the next send to check the broker again.
+   *
+   * @param receiver
+   *          the name of the receiver.
+   */
+  public void invalidate(String receiver)
+  {
+    if (Validator.checkString(receiver, false, false))
+    {
+      this.mapEntries.remove(receiver);
+    }
+  }
+
+  /**
+   * Removes all receivers from the cache.
+   */
+  public void invalidateAll()
+  {
+    this.mapEntries.clear();
+  }
+
+  /**
+   * Gets the amount of receivers currently cached.
+   *
+   * @return the amount of cached receivers.
+   */
+  public int size()
+  {
+    return this.mapEntries.size();
+  }
+
+  /**
+   * Sets the time to live for existing receivers.
+   *
+   * @param timeToLive
+   *          the time in seconds.
+   */
+  public void setTimeToLive(int timeToLive)
+  {
+    this.lngTimeToLive = TimeUnit.SECONDS.toNanos(Math.max(timeToLive, 0));
+  }
+
+  /**
+   * Sets the time to live for missing receivers.
+   *
+   * @param negativeTimeToLive
+   *          the time in seconds.
+   */
+  public void setNegativeTimeToLive(int negativeTimeToLive)
+  {
+    this.lngNegativeTimeToLive = TimeUnit.SECONDS.toNanos(Math.max(negativeTimeToLive, 0));
+  }
+
+  /**
+   * Immutable cache entry holding the outcome of a single check.
+   */
+  private static class Entry
+  {
+    private final boolean blnExists;
+    private final long lngExpiresAt;
+
+    private Entry(boolean exists, long expiresAt)
+    {
+      this.blnExists = exists;
+      this.lngExpiresAt = expiresAt;
+    }
+  }
+}
@@ -1,19 +1,42 @@
 package com.maxxton.aam.communication;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.amqp.AmqpException;
 import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageListener;
+import org.springframework.amqp.core.MessageProperties;
 import org.springframework.amqp.rabbit.connection.CachingConnectionFactory;
 import org.springframework.amqp.rabbit.core.ChannelCallback;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.core.RabbitTemplate.ConfirmCallback;
+import org.springframework.amqp.rabbit.core.RabbitTemplate.ReturnCallback;
+import org.springframework.amqp.rabbit.support.CorrelationData;
+import org.springframework.amqp.rabbit.support.DefaultMessagePropertiesConverter;
+import org.springframework.amqp.rabbit.support.MessagePropertiesConverter;
+import org.springframework.amqp.rabbit.support.PublisherCallbackChannel;
 
+import com.maxxton.aam.messages.MessageType;
 import com.maxxton.aam.monitoring.Monitor;
 import com.maxxton.aam.monitoring.MonitorFactory;
 import com.maxxton.aam.monitoring.Monitor.DataType;
 import com.maxxton.aam.resources.Configuration;
+import com.maxxton.aam.resources.MessageDetails;
 import com.maxxton.aam.resources.Resources;
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.ReturnListener;
 import com.rabbitmq.client.AMQP.Queue.DeclareOk;
 
 /**
- * SendController class Handles all message communication which involves sending.
+ * SendController class Handles all message communication which involves sending. Safe for concurrent use, every publish borrows its own channel from the connection cache.
  * 
  * @author Robin Hermans
  * @copyright Maxxton 2015
@@ -26,6 +49,11 @@ public class SendController
   private DataContainer objContainer;
   private RabbitTemplate objTemplate;
   private CachingConnectionFactory objConnection;
+  private ReceiverCache objReceiverCache;
+  private ConfirmTracker objConfirms;
+  private MessagePropertiesConverter objPropertiesConverter = new DefaultMessagePropertiesConverter();
+  private MessageListener objReplyListener;
+  private DirectReplyChannel objReplyChannel;
 
   /**
    * SendController constructor Initiates elements defined in this class
@@ -39,41 +67,123 @@ public class SendController
     this.objContainer = DataContainer.getInstance(this.objResources.getConfiguration().getName());
     this.objMonitor = MonitorFactory.getMonitor(this.objResources.getConfiguration().getName());
 
+    Configuration config = this.objResources.getConfiguration();
+    this.objReceiverCache = new ReceiverCache(config.getCacheTimeToLive(), config.getCacheNegativeTimeToLive());
+    this.objConfirms = new ConfirmTracker(config.getConfirmMaxPending());
+
     this.connectToBroker();
     this.objTemplate = new RabbitTemplate(this.objConnection);
+    this.objTemplate.setMandatory(true);
+    this.objTemplate.setReturnCallback(new ReturnCallback()
+    {
+      @Override
+      public void returnedMessage(Message message, int replyCode, String replyText, String exchange, String routingKey)
+      {
+        handleReturnedMessage(routingKey, replyText);
+        objConfirms.returned(MessageHeaders.getConfirm(message.getMessageProperties()));
+      }
+    });
+    this.objTemplate.setConfirmCallback(new ConfirmCallback()
+    {
+      @Override
+      public void confirm(CorrelationData correlationData, boolean ack, String cause)
+      {
+        objConfirms.confirm(correlationData, ack, cause);
+      }
+    });
   }
 
   /**
-   * Creates a new connection to an AMQP broker with the given information.
+   * Borrows a connection to the AMQP broker from the shared connection pool.
    */
   private void connectToBroker()
   {
     if (this.objConnection == null)
     {
-      this.objConnection = new CachingConnectionFactory();
+      this.objConnection = MessagingFactory.getInstance().getConnectionPool().borrow(this.objResources.getConfiguration(), ConnectionPool.ROLE_PUBLISH);
+    }
+  }
 
-      Configuration config = this.objResources.getConfiguration();
-      String host = config.getHost();
-      String addresses = "";
-      for (int port : config.getPorts())
-      {
-        addresses = addresses + host + ":" + port + ", ";
-      }
-      this.objConnection.setAddresses(addresses);
-      this.objConnection.setUsername(config.getUsername());
-      this.objConnection.setPassword(config.getPassword());
-      this.objConnection.setChannelCacheSize(25);
+  /**
+   * Closes the direct reply-to channel and hands the connection back to the pool.
+   */
+  public synchronized void destroy()
+  {
+    if (this.objReplyChannel != null)
+    {
+      this.objReplyChannel.close();
+      this.objReplyChannel = null;
+    }
+    if (this.objConnection != null)
+    {
+      MessagingFactory.getInstance().getConnectionPool().release(this.objConnection);
+      this.objConnection = null;
     }
   }
 
   /**
-   * Check if a certain receiver (queue) exists.
+   * Handles a message that was returned by the broker as unroutable. The receiver is removed from the cache so the next send checks the broker again.
+   *
+   * @param routingKey
+   *          the routing key the message was published with.
+   * @param replyText
+   *          the reason given by the broker.
+   */
+  private void handleReturnedMessage(String routingKey, String replyText)
+  {
+    Configuration config = this.objResources.getConfiguration();
+    String receiver = routingKey;
+    if (receiver.startsWith(config.getBindingPrefix()) && receiver.endsWith(config.getBindingSuffix()))
+    {
+      receiver = receiver.substring(config.getBindingPrefix().length(), receiver.length() - config.getBindingSuffix().length());
+    }
+    this.objReceiverCache.invalidate(receiver);
+
+    objMonitor.data(DataType.MESSAGE_DISCARDED, 1);
+    objMonitor.warn(SendController.class, "A message for receiver '{}' was returned by the broker as unroutable ({}).", receiver, replyText);
+  }
+
+  /**
+   * Check if a certain receiver (queue) exists. The outcome is cached for the configured time to live.
    *
    * @param receiver
    *          the name of the receiver.
    * @return true if it does, false if it doesn't exists.
    */
   public boolean doesReceiverExist(final String receiver)
+  {
+    Boolean cached = this.objReceiverCache.lookup(receiver);
+    if (cached != null)
+    {
+      objMonitor.data(DataType.CACHE_HIT, 1);
+      return cached;
+    }
+    objMonitor.data(DataType.CACHE_MISS, 1);
+
+    boolean exists = this.checkReceiverExists(receiver);
+    this.objReceiverCache.store(receiver, exists);
+    return exists;
+  }
+
+  /**
+   * Removes a receiver from the existence cache, forcing the next send to check the broker again.
+   *
+   * @param receiver
+   *          the name of the receiver.
+   */
+  public void invalidateReceiver(String receiver)
+  {
+    this.objReceiverCache.invalidate(receiver);
+  }
+
+  /**
+   * Check on the broker if a certain receiver (queue) exists.
+   *
+   * @param receiver
+   *          the name of the receiver.
+   * @return true if it does, false if it doesn't exists.
+   */
+  private boolean checkReceiverExists(final String receiver)
   {
     if (objTemplate != null)
     {
@@ -100,7 +210,27 @@ public class SendController
   }
 
   /**
-   * Sends a converted message to a given receiver.
+   * Gets the direct reply-to address of the request a message replies to. The address is removed, as only one reply is expected. Chunks of a reply all go to the same address, it is removed with
+   * the last chunk.
+   *
+   * @param message
+   *          The converted message to be send out.
+   * @return the reply-to address, null if the message is no reply or the request did not ask for a direct reply.
+   */
+  private String getReplyAddress(Message message)
+  {
+    MessageProperties properties = message.getMessageProperties();
+    if (MessageHeaders.getMessageType(properties) == MessageType.RESPONSE_MESSAGE && properties.getCorrelationId() != null)
+    {
+      String id = new String(properties.getCorrelationId());
+      return MessageHeaders.isLastChunk(properties) ? this.objContainer.removeReplyAddress(id) : this.objContainer.getReplyAddress(id);
+    }
+    return null;
+  }
+
+  /**
+   * Sends a converted message to a given receiver. The exchange and routing key are passed along with every send, the shared RabbitTemplate is never changed, so any amount of threads can send at
+   * the same time.
    * 
    * @param receiver
    *          The receiver of the message.
@@ -110,24 +240,269 @@ public class SendController
    */
   public boolean sendMessage(String receiver, Message message)
   {
+    String replyAddress = this.getReplyAddress(message);
+    if (replyAddress != null)
+    {
+      // Direct replies go through the default exchange to the channel of the requester.
+      objTemplate.send("", replyAddress, message);
+      objMonitor.data(DataType.MESSAGE_SENT, 1);
+      return true;
+    }
+
     Configuration config = objResources.getConfiguration();
     String name = config.getBindingPrefix() + receiver + config.getBindingSuffix();
     String exchange = config.getBindingExchange();
 
-    objTemplate.setExchange(exchange);
-    objTemplate.setRoutingKey(name);
-
     boolean exists = this.doesReceiverExist(receiver);
 
     if (exists)
     {
-      objTemplate.send(message);
+      objTemplate.send(exchange, name, message);
       this.objContainer.addSendMessage(message);
       objMonitor.data(DataType.MESSAGE_SENT, 1);
     }
     return exists;
   }
 
+  /**
+   * Sends a converted message to a given receiver without waiting for the broker. The returned future completes once the broker confirmed the message. Blocks while the maximum amount of
+   * unconfirmed messages is reached.
+   *
+   * @param receiver
+   *          The receiver of the message.
+   * @param message
+   *          The converted message to be send out.
+   * @return a future completing with true when confirmed, false if the receiver does not exist or exceptionally when the broker rejected or returned the message.
+   */
+  public CompletableFuture<Boolean> sendMessageAsync(String receiver, Message message)
+  {
+    CompletableFuture<Boolean> future = new CompletableFuture<Boolean>();
+    Configuration config = objResources.getConfiguration();
+    String exchange = config.getBindingExchange();
+    String name = config.getBindingPrefix() + receiver + config.getBindingSuffix();
+
+    String replyAddress = this.getReplyAddress(message);
+    if (replyAddress != null)
+    {
+      exchange = "";
+      name = replyAddress;
+    }
+    else if (!this.doesReceiverExist(receiver))
+    {
+      future.complete(false);
+      return future;
+    }
+
+    CorrelationData correlation;
+    try
+    {
+      correlation = this.objConfirms.register(future);
+    }
+    catch (InterruptedException e)
+    {
+      Thread.currentThread().interrupt();
+      future.completeExceptionally(e);
+      return future;
+    }
+
+    try
+    {
+      // A returned message is acknowledged as well, the confirm id lets the return mark it before the acknowledgement arrives.
+      MessageProperties properties = message.getMessageProperties();
+      properties.setHeader(PublisherCallbackChannel.RETURN_CORRELATION, objTemplate.getUUID());
+      properties.setHeader(MessageHeaders.CONFIRM, correlation.getId());
+      objTemplate.send(exchange, name, message, correlation);
+      this.objContainer.addSendMessage(message);
+      objMonitor.data(DataType.MESSAGE_SENT, 1);
+    }
+    catch (AmqpException e)
+    {
+      objMonitor.warn(SendController.class, "Failed to publish a message to receiver '{}'. See trace in the logs for more information.", receiver);
+      objMonitor.trace(SendController.class, e);
+      this.objConfirms.fail(correlation, e);
+    }
+    return future;
+  }
+
+  /**
+   * Sends a converted request to a given receiver. With direct reply-to enabled the request is published on the DirectReplyChannel and the future completes as soon as it is published, the reply
+   * itself acknowledges the request. Otherwise it is send like any other asynchronous message.
+   *
+   * @param receiver
+   *          The receiver of the request.
+   * @param message
+   *          The converted request to be send out.
+   * @return a future completing with true when send, false if the receiver does not exist or exceptionally when publishing failed.
+   */
+  public CompletableFuture<Boolean> sendRequest(String receiver, Message message)
+  {
+    Configuration config = objResources.getConfiguration();
+    if (!config.getRpcDirectReplyTo() || this.objReplyListener == null)
+    {
+      return this.sendMessageAsync(receiver, message);
+    }
+
+    CompletableFuture<Boolean> future = new CompletableFuture<Boolean>();
+    if (!this.doesReceiverExist(receiver))
+    {
+      future.complete(false);
+      return future;
+    }
+
+    String name = config.getBindingPrefix() + receiver + config.getBindingSuffix();
+    try
+    {
+      this.getReplyChannel().publish(config.getBindingExchange(), name, message);
+      this.objContainer.addSendMessage(message);
+      objMonitor.data(DataType.MESSAGE_SENT, 1);
+      future.complete(true);
+    }
+    catch (IOException | AmqpException e)
+    {
+      objMonitor.warn(SendController.class, "Failed to publish a request to receiver '{}'. See trace in the logs for more information.", receiver);
+      objMonitor.trace(SendController.class, e);
+      future.completeExceptionally(e);
+    }
+    return future;
+  }
+
+  /**
+   * Gets the DirectReplyChannel, creating it on first use. Requests returned as unroutable complete their pending request with null.
+   *
+   * @return an instance of the DirectReplyChannel class.
+   */
+  private synchronized DirectReplyChannel getReplyChannel()
+  {
+    if (this.objReplyChannel == null)
+    {
+      this.objReplyChannel = new DirectReplyChannel(this.objConnection, this.objReplyListener, new ReturnCallback()
+      {
+        @Override
+        public void returnedMessage(Message message, int replyCode, String replyText, String exchange, String routingKey)
+        {
+          handleReturnedMessage(routingKey, replyText);
+          byte[] correlationId = message.getMessageProperties().getCorrelationId();
+          if (correlationId != null)
+          {
+            CompletableFuture<MessageDetails> reply = objContainer.removePendingRequest(new String(correlationId));
+            if (reply != null)
+            {
+              reply.complete(null);
+            }
+          }
+        }
+      }, this.objMonitor);
+    }
+    return this.objReplyChannel;
+  }
+
+  /**
+   * Sends a batch of converted messages on a single channel and waits for one publisher confirm covering the whole batch. The broker acknowledges messages it returned as unroutable as well,
+   * those are recognised by their batch index and reported as not send.
+   *
+   * @param receivers
+   *          the receivers of the messages, in the same order as the messages.
+   * @param messages
+   *          the converted messages to be send out.
+   * @return a result per message, true if it was send and confirmed, false if the receiver does not exist, the message was returned or the batch was not confirmed.
+   */
+  public List<Boolean> sendMessages(final List<String> receivers, final List<Message> messages)
+  {
+    final Configuration config = objResources.getConfiguration();
+    final List<Boolean> results = new ArrayList<Boolean>(messages.size());
+
+    Map<String, Boolean> mapExists = new HashMap<String, Boolean>();
+    for (String receiver : receivers)
+    {
+      if (!mapExists.containsKey(receiver))
+      {
+        mapExists.put(receiver, this.doesReceiverExist(receiver));
+      }
+      results.add(mapExists.get(receiver));
+    }
+
+    if (!results.contains(true))
+    {
+      return results;
+    }
+
+    final Set<Integer> setReturned = ConcurrentHashMap.newKeySet();
+    boolean confirmed;
+    try
+    {
+      confirmed = objTemplate.execute(new ChannelCallback<Boolean>()
+      {
+        @Override
+        public Boolean doInRabbit(Channel channel) throws Exception
+        {
+          // The broker sends a return before the acknowledgement of the same message, so every return is seen once waitForConfirms is done.
+          ReturnListener listener = new ReturnListener()
+          {
+            @Override
+            public void handleReturn(int replyCode, String replyText, String exchange, String routingKey, AMQP.BasicProperties properties, byte[] body)
+            {
+              Object index = properties.getHeaders() == null ? null : properties.getHeaders().get(MessageHeaders.BATCH_INDEX);
+              if (index instanceof Number)
+              {
+                setReturned.add(((Number) index).intValue());
+              }
+            }
+          };
+          channel.addReturnListener(listener);
+          try
+          {
+            for (int i = 0; i < messages.size(); i++)
+            {
+              if (results.get(i))
+              {
+                String name = config.getBindingPrefix() + receivers.get(i) + config.getBindingSuffix();
+                MessageProperties properties = messages.get(i).getMessageProperties();
+                properties.setHeader(PublisherCallbackChannel.RETURN_CORRELATION, objTemplate.getUUID());
+                properties.setHeader(MessageHeaders.BATCH_INDEX, i);
+                channel.basicPublish(config.getBindingExchange(), name, true, objPropertiesConverter.fromMessageProperties(properties, "UTF-8"), messages.get(i).getBody());
+              }
+            }
+            return channel.waitForConfirms(config.getConfirmTimeout());
+          }
+          finally
+          {
+            channel.removeReturnListener(listener);
+          }
+        }
+      });
+
+      if (!confirmed)
+      {
+        objMonitor.warn(SendController.class, "The broker did not acknowledge all messages of a batch. The batch is reported as not send.");
+      }
+    }
+    catch (Exception e)
+    {
+      objMonitor.warn(SendController.class, "Failed to publish a batch of messages. See trace in the logs for more information.");
+      objMonitor.trace(SendController.class, e);
+      confirmed = false;
+    }
+
+    int sent = 0;
+    for (int i = 0; i < messages.size(); i++)
+    {
+      if (results.get(i))
+      {
+        if (confirmed && !setReturned.contains(i))
+        {
+          this.objContainer.addSendMessage(messages.get(i));
+          sent++;
+        }
+        else
+        {
+          results.set(i, false);
+        }
+      }
+    }
+    objMonitor.data(DataType.MESSAGE_SENT, sent);
+    return results;
+  }
+
   public String generateUniqueId()
   {
     return this.objContainer.getUniqueId();
@@ -154,6 +529,48 @@ public class SendController
     return this.objContainer;
   }
 
+  /**
+   * Sets the ReceiverCache
+   *
+   * @param cache
+   *          Instance of ReceiverCache class
+   */
+  public void setReceiverCache(ReceiverCache cache)
+  {
+    this.objReceiverCache = cache;
+  }
+
+  /**
+   * Gets the ReceiverCache
+   *
+   * @return an instance of ReceiverCache class
+   */
+  public ReceiverCache getReceiverCache()
+  {
+    return this.objReceiverCache;
+  }
+
+  /**
+   * Sets the listener receiving replies to requests send with direct reply-to.
+   *
+   * @param listener
+   *          Instance of the MessageListener interface
+   */
+  public void setReplyListener(MessageListener listener)
+  {
+    this.objReplyListener = listener;
+  }
+
+  /**
+   * Gets the ConfirmTracker
+   *
+   * @return an instance of ConfirmTracker class
+   */
+  public ConfirmTracker getConfirmTracker()
+  {
+    return this.objConfirms;
+  }
+
   /**
    * Sets the Resource class
    * 
@@ -0,0 +1,139 @@
+package com.maxxton.aam.communication;
+
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * SerializationBuffer class A growable byte buffer codecs encode into. Every thread keeps one buffer which is reused for all messages it encodes, so encoding a message only allocates the final
+ * byte array handed to the AMQP client, which needs the body as an array of its exact size. Buffers which grew beyond the retained size for a large message are dropped again on release.
+ *
+ * @author Robin Hermans
+ * @copyright Maxxton 2015
+ */
+public class SerializationBuffer extends OutputStream
+{
+  private static final int INITIAL_SIZE = 512;
+  private static final int RETAINED_SIZE = 1024 * 1024;
+
+  private static ThreadLocal<SerializationBuffer> objBuffers = ThreadLocal.withInitial(() -> new SerializationBuffer(INITIAL_SIZE));
+
+  private byte[] arrBytes;
+  private int intSize;
+  private boolean blnInUse;
+
+  /**
+   * Constructor for the SerializationBuffer class.
+   *
+   * @param capacity
+   *          the initial capacity in bytes.
+   */
+  public SerializationBuffer(int capacity)
+  {
+    this.arrBytes = new byte[Math.max(capacity, 16)];
+    this.intSize = 0;
+  }
+
+  /**
+   * Acquires the empty buffer of the current thread. A thread which is already encoding into its buffer, for example when a codec encodes through another codec, gets a new buffer instead. Every
+   * acquired buffer must be released.
+   *
+   * @return an empty buffer.
+   */
+  public static SerializationBuffer acquire()
+  {
+    SerializationBuffer buffer = objBuffers.get();
+    if (buffer.blnInUse)
+    {
+      return new SerializationBuffer(INITIAL_SIZE);
+    }
+    buffer.blnInUse = true;
+    buffer.intSize = 0;
+    return buffer;
+  }
+
+  /**
+   * Releases an acquired buffer so the thread can reuse it.
+   */
+  public void release()
+  {
+    this.blnInUse = false;
+    this.intSize = 0;
+    if (this.arrBytes.length > RETAINED_SIZE)
+    {
+      this.arrBytes = new byte[INITIAL_SIZE];
+    }
+  }
+
+  @Override
+  public void write(int value)
+  {
+    this.ensureCapacity(this.intSize + 1);
+    this.arrBytes[this.intSize++] = (byte) value;
+  }
+
+  @Override
+  public void write(byte[] bytes)
+  {
+    this.write(bytes, 0, bytes.length);
+  }
+
+  @Override
+  public void write(byte[] bytes, int offset, int length)
+  {
+    this.ensureCapacity(this.intSize + length);
+    System.arraycopy(bytes, offset, this.arrBytes, this.intSize, length);
+    this.intSize += length;
+  }
+
+  /**
+   * Writes a big endian short.
+   *
+   * @param value
+   *          the value of which the lower two bytes are written.
+   */
+  public void writeShort(int value)
+  {
+    this.ensureCapacity(this.intSize + 2);
+    this.arrBytes[this.intSize++] = (byte) (value >>> 8);
+    this.arrBytes[this.intSize++] = (byte) value;
+  }
+
+  /**
+   * Gets the amount of written bytes.
+   *
+   * @return the size in bytes.
+   */
+  public int size()
+  {
+    return this.intSize;
+  }
+
+  /**
+   * Copies the written bytes into an array of their exact size.
+   *
+   * @return the written bytes.
+   */
+  public byte[] toByteArray()
+  {
+    return Arrays.copyOf(this.arrBytes, this.intSize);
+  }
+
+  /**
+   * Grows the buffer to fit at least the given amount of bytes, doubling its capacity where possible.
+   *
+   * @param capacity
+   *          the required capacity in bytes.
+   */
+  private void ensureCapacity(int capacity)
+  {
+    if (capacity < 0)
+    {
+      throw new OutOfMemoryError("Unable to encode a message larger than " + Integer.MAX_VALUE + " bytes.");
+    }
+    if (capacity > this.arrBytes.length)
+    {
+      int grown = this.arrBytes.length << 1;
+      this.arrBytes = Arrays.copyOf(this.arrBytes, grown < capacity || grown < 0 ? capacity : grown);
+    }
+  }
+}
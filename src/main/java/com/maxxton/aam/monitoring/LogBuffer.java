@@ -0,0 +1,122 @@
+package com.maxxton.aam.monitoring;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * LogBuffer class Keeps the latest log entries of a single level in a ring of fixed capacity. Logging threads claim a sequence number with one atomic increment and swap their entry into the slot of
+ * that number, they never lock or copy the stored entries. When the ring is full the oldest entry is overwritten and counted as dropped. Draining walks the sequence numbers written since the
+ * previous drain, so it takes time linear in the amount of entries.
+ *
+ * @author Robin Hermans
+ * @copyright Maxxton 2015
+ */
+public class LogBuffer
+{
+  private static final int MAX_CAPACITY = 1 << 30;
+
+  private final AtomicReferenceArray<Entry> arrEntries;
+  private final int intMask;
+  private final AtomicLong lngTail;
+  private final AtomicLong lngDrops;
+  private long lngHead;
+
+  /**
+   * Constructor for the LogBuffer class.
+   *
+   * @param capacity
+   *          the maximum amount of entries kept, rounded up to a power of two.
+   */
+  public LogBuffer(int capacity)
+  {
+    int size = 1;
+    while (size < Math.min(capacity, MAX_CAPACITY))
+    {
+      size <<= 1;
+    }
+    this.arrEntries = new AtomicReferenceArray<Entry>(size);
+    this.intMask = size - 1;
+    this.lngTail = new AtomicLong(0);
+    this.lngDrops = new AtomicLong(0);
+    this.lngHead = 0;
+  }
+
+  /**
+   * Adds an entry, overwriting the oldest entry when the buffer is full.
+   *
+   * @param text
+   *          the log entry.
+   */
+  public void add(String text)
+  {
+    long sequence = this.lngTail.getAndIncrement();
+    Entry previous = this.arrEntries.getAndSet((int) sequence & this.intMask, new Entry(sequence, text));
+    if (previous != null)
+    {
+      this.lngDrops.incrementAndGet();
+    }
+  }
+
+  /**
+   * Removes the stored entries and joins them into a string, oldest first. Entries which are still being written by a logging thread are left for the next drain.
+   *
+   * @return the entries, each followed by a newline.
+   */
+  public synchronized String drain()
+  {
+    StringBuilder log = new StringBuilder();
+    long end = this.lngTail.get();
+    long sequence = Math.max(this.lngHead, end - this.arrEntries.length());
+    for (; sequence < end; sequence++)
+    {
+      int index = (int) sequence & this.intMask;
+      Entry entry = this.arrEntries.get(index);
+      if (entry == null || entry.lngSequence < sequence)
+      {
+        // The sequence number was claimed, but the entry is not written yet.
+        break;
+      }
+      if (entry.lngSequence == sequence && this.arrEntries.compareAndSet(index, entry, null))
+      {
+        log.append(entry.strText).append('\n');
+      }
+    }
+    this.lngHead = sequence;
+    return log.toString();
+  }
+
+  /**
+   * Gets the amount of overwritten entries and resets it.
+   *
+   * @return the amount of entries dropped since the previous call.
+   */
+  public long drainDrops()
+  {
+    return this.lngDrops.getAndSet(0);
+  }
+
+  /**
+   * Gets the maximum amount of entries kept.
+   *
+   * @return the capacity.
+   */
+  public int getCapacity()
+  {
+    return this.arrEntries.length();
+  }
+
+  /**
+   * Log entry with the sequence number it was written under.
+   */
+  private static class Entry
+  {
+    private final long lngSequence;
+    private final String strText;
+
+    private Entry(long sequence, String text)
+    {
+      this.lngSequence = sequence;
+      this.strText = text;
+    }
+  }
+}
@@ -65,6 +65,36 @@ public class MessengerProvider implements MetricsProvider
         return objMonitor.drainData(DataType.MESSAGE_RECEIVED);
       case "discarded":
         return objMonitor.drainData(DataType.MESSAGE_DISCARDED);
+      case "cachehit":
+        return objMonitor.drainData(DataType.CACHE_HIT);
+      case "cachemiss":
+        return objMonitor.drainData(DataType.CACHE_MISS);
+      case "receivehighwater":
+        return objMonitor.drainData(DataType.RECEIVE_HIGH_WATER);
+      case "receivelowwater":
+        return objMonitor.drainData(DataType.RECEIVE_LOW_WATER);
+      case "receivepaused":
+        return objMonitor.drainData(DataType.RECEIVE_PAUSED);
+      case "dispatchqueuedepth":
+        return objMonitor.drainData(DataType.DISPATCH_QUEUE_DEPTH);
+      case "dispatchhandled":
+        return objMonitor.drainData(DataType.DISPATCH_HANDLED);
+      case "dispatchhandlertime":
+        return objMonitor.drainData(DataType.DISPATCH_HANDLER_TIME);
+      case "dispatchrejected":
+        return objMonitor.drainData(DataType.DISPATCH_REJECTED);
+      case "compressbytesin":
+        return objMonitor.drainData(DataType.COMPRESS_BYTES_IN);
+      case "compressbytesout":
+        return objMonitor.drainData(DataType.COMPRESS_BYTES_OUT);
+      case "compresstime":
+        return objMonitor.drainData(DataType.COMPRESS_TIME);
+      case "decompresstime":
+        return objMonitor.drainData(DataType.DECOMPRESS_TIME);
+      case "chunkdropped":
+        return objMonitor.drainData(DataType.CHUNK_DROPPED);
+      case "logdropped":
+        return objMonitor.drainData(DataType.LOG_DROPPED);
       default:
         throw new MetricsException("Unknown parameter: " + type);
     }
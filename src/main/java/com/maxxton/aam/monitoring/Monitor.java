@@ -2,10 +2,10 @@ package com.maxxton.aam.monitoring;
 
 import java.io.PrintWriter;
 import java.io.StringWriter;
-import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicInteger;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.slf4j.helpers.MessageFormatter;
 
 import com.maxxton.aam.resources.Validator;
 
@@ -36,22 +36,48 @@ public class Monitor
    */
   public static enum DataType
   {
-    MESSAGE_SENT, MESSAGE_RECEIVED, MESSAGE_DISCARDED
+    MESSAGE_SENT, MESSAGE_RECEIVED, MESSAGE_DISCARDED, CACHE_HIT, CACHE_MISS, RECEIVE_HIGH_WATER, RECEIVE_LOW_WATER, RECEIVE_PAUSED, DISPATCH_QUEUE_DEPTH, DISPATCH_HANDLED, DISPATCH_HANDLER_TIME, DISPATCH_REJECTED, COMPRESS_BYTES_IN, COMPRESS_BYTES_OUT, COMPRESS_TIME, DECOMPRESS_TIME, CHUNK_DROPPED, LOG_DROPPED
+  };
+
+  public static final int DEFAULT_LOG_CAPACITY = 1000;
+
+  private static final ClassValue<Logger> LOGGERS = new ClassValue<Logger>()
+  {
+    @Override
+    protected Logger computeValue(Class<?> type)
+    {
+      return LoggerFactory.getLogger(type);
+    }
   };
 
   private String strName;
   private boolean blnEnabled;
   private MonitorLevel enmLevel;
 
-  private CopyOnWriteArrayList<String> arlErrorLog;
-  private CopyOnWriteArrayList<String> arlWarnLog;
-  private CopyOnWriteArrayList<String> arlInfoLog;
-  private CopyOnWriteArrayList<String> arlDebugLog;
-  private CopyOnWriteArrayList<String> arlTraceLog;
+  private int intLogCapacity;
+  private volatile LogBuffer objErrorLog;
+  private volatile LogBuffer objWarnLog;
+  private volatile LogBuffer objInfoLog;
+  private volatile LogBuffer objDebugLog;
+  private volatile LogBuffer objTraceLog;
 
   private AtomicInteger intSentMessages;
   private AtomicInteger intReceivedMessages;
   private AtomicInteger intDiscardedMessages;
+  private AtomicInteger intCacheHits;
+  private AtomicInteger intCacheMisses;
+  private AtomicInteger intReceiveHighWater;
+  private AtomicInteger intReceiveLowWater;
+  private AtomicInteger intReceivePauses;
+  private AtomicInteger intDispatchQueueDepth;
+  private AtomicInteger intDispatchHandled;
+  private AtomicInteger intDispatchHandlerTime;
+  private AtomicInteger intDispatchRejected;
+  private AtomicInteger intCompressBytesIn;
+  private AtomicInteger intCompressBytesOut;
+  private AtomicInteger intCompressTime;
+  private AtomicInteger intDecompressTime;
+  private AtomicInteger intChunkDrops;
 
   /**
    * Constructor of the Monitor class.
@@ -62,20 +88,68 @@ public class Monitor
    *          the enabled state of this monitor.
    */
   public Monitor(String name, boolean enabled)
+  {
+    this(name, enabled, DEFAULT_LOG_CAPACITY);
+  }
+
+  /**
+   * Constructor of the Monitor class.
+   * 
+   * @param name
+   *          the name of the messenger which uses the monitor class.
+   * @param enabled
+   *          the enabled state of this monitor.
+   * @param logCapacity
+   *          the maximum amount of log entries kept per level between drains.
+   */
+  public Monitor(String name, boolean enabled, int logCapacity)
   {
     this.strName = name;
     this.blnEnabled = enabled;
     this.enmLevel = MonitorLevel.ALL;
 
-    this.arlErrorLog = new CopyOnWriteArrayList<String>();
-    this.arlWarnLog = new CopyOnWriteArrayList<String>();
-    this.arlInfoLog = new CopyOnWriteArrayList<String>();
-    this.arlDebugLog = new CopyOnWriteArrayList<String>();
-    this.arlTraceLog = new CopyOnWriteArrayList<String>();
+    this.setLogCapacity(logCapacity);
 
     this.intSentMessages = new AtomicInteger(0);
     this.intReceivedMessages = new AtomicInteger(0);
     this.intDiscardedMessages = new AtomicInteger(0);
+    this.intCacheHits = new AtomicInteger(0);
+    this.intCacheMisses = new AtomicInteger(0);
+    this.intReceiveHighWater = new AtomicInteger(0);
+    this.intReceiveLowWater = new AtomicInteger(0);
+    this.intReceivePauses = new AtomicInteger(0);
+    this.intDispatchQueueDepth = new AtomicInteger(0);
+    this.intDispatchHandled = new AtomicInteger(0);
+    this.intDispatchHandlerTime = new AtomicInteger(0);
+    this.intDispatchRejected = new AtomicInteger(0);
+    this.intCompressBytesIn = new AtomicInteger(0);
+    this.intCompressBytesOut = new AtomicInteger(0);
+    this.intCompressTime = new AtomicInteger(0);
+    this.intDecompressTime = new AtomicInteger(0);
+    this.intChunkDrops = new AtomicInteger(0);
+  }
+
+  /**
+   * Sets the maximum amount of log entries kept per level between drains. Changing the capacity throws away the kept entries.
+   * 
+   * @param logCapacity
+   *          the maximum amount of entries, rounded up to a power of two. 0 or less uses the default capacity.
+   */
+  public synchronized void setLogCapacity(int logCapacity)
+  {
+    if (logCapacity <= 0)
+    {
+      logCapacity = DEFAULT_LOG_CAPACITY;
+    }
+    if (this.intLogCapacity != logCapacity)
+    {
+      this.intLogCapacity = logCapacity;
+      this.objErrorLog = new LogBuffer(logCapacity);
+      this.objWarnLog = new LogBuffer(logCapacity);
+      this.objInfoLog = new LogBuffer(logCapacity);
+      this.objDebugLog = new LogBuffer(logCapacity);
+      this.objTraceLog = new LogBuffer(logCapacity);
+    }
   }
 
   /**
@@ -120,6 +194,20 @@ public class Monitor
     return this.blnEnabled;
   }
 
+  /**
+   * Checks if a log of a certain level would be written by either the logger of the class or this monitor. Can be used to skip building an expensive log message.
+   * 
+   * @param objClass
+   *          The class from which the log is given.
+   * @param level
+   *          The level of the log.
+   * @return True if the log would be written, False if not.
+   */
+  public boolean isEnabled(Class<?> objClass, MonitorLevel level)
+  {
+    return this.checkLevelPass(level) || Monitor.isLoggerEnabled(LOGGERS.get(objClass), level);
+  }
+
   /**
    * Log a trace using a certain class.
    * 
@@ -130,14 +218,9 @@ public class Monitor
    */
   public void trace(Class<?> objClass, String trace)
   {
-    if (Validator.checkString(trace, false, false))
+    if (this.isEnabled(objClass, MonitorLevel.TRACE))
     {
-      Logger logger = LoggerFactory.getLogger(objClass);
-      logger.trace("[" + this.strName + "] " + trace);
-      if (this.checkLevelPass(MonitorLevel.TRACE))
-      {
-        this.arlTraceLog.add("(" + objClass.getName() + ") " + trace);
-      }
+      this.log(MonitorLevel.TRACE, objClass, trace);
     }
   }
 
@@ -151,18 +234,67 @@ public class Monitor
    */
   public void trace(Class<?> objClass, Exception e)
   {
-    if (Validator.checkObject(e, Exception.class))
+    if (Validator.checkObject(e, Exception.class) && this.isEnabled(objClass, MonitorLevel.TRACE))
     {
       StringWriter trace = new StringWriter();
       e.printStackTrace(new PrintWriter(trace));
+      this.log(MonitorLevel.TRACE, objClass, trace.toString());
+    }
+  }
 
-      Logger logger = LoggerFactory.getLogger(objClass);
-      logger.trace("[" + this.strName + "] " + trace.toString());
+  /**
+   * Log a trace using a certain class. The message is only formatted when the level is enabled.
+   * 
+   * @param objClass
+   *          The class from which the trace is given.
+   * @param format
+   *          The message with a '{}' placeholder for the argument.
+   * @param arg
+   *          The argument.
+   */
+  public void trace(Class<?> objClass, String format, Object arg)
+  {
+    if (this.isEnabled(objClass, MonitorLevel.TRACE))
+    {
+      this.log(MonitorLevel.TRACE, objClass, MessageFormatter.format(format, arg).getMessage());
+    }
+  }
 
-      if (this.checkLevelPass(MonitorLevel.TRACE))
-      {
-        this.arlTraceLog.add("(" + objClass.getName() + ") " + trace.toString());
-      }
+  /**
+   * Log a trace using a certain class. The message is only formatted when the level is enabled.
+   * 
+   * @param objClass
+   *          The class from which the trace is given.
+   * @param format
+   *          The message with a '{}' placeholder for each argument.
+   * @param arg1
+   *          The first argument.
+   * @param arg2
+   *          The second argument.
+   */
+  public void trace(Class<?> objClass, String format, Object arg1, Object arg2)
+  {
+    if (this.isEnabled(objClass, MonitorLevel.TRACE))
+    {
+      this.log(MonitorLevel.TRACE, objClass, MessageFormatter.format(format, arg1, arg2).getMessage());
+    }
+  }
+
+  /**
+   * Log a trace using a certain class. The message is only formatted when the level is enabled.
+   * 
+   * @param objClass
+   *          The class from which the trace is given.
+   * @param format
+   *          The message with a '{}' placeholder for each argument.
+   * @param args
+   *          The arguments.
+   */
+  public void trace(Class<?> objClass, String format, Object... args)
+  {
+    if (this.isEnabled(objClass, MonitorLevel.TRACE))
+    {
+      this.log(MonitorLevel.TRACE, objClass, MessageFormatter.arrayFormat(format, args).getMessage());
     }
   }
 
@@ -176,14 +308,65 @@ public class Monitor
    */
   public void debug(Class<?> objClass, String strDebug)
   {
-    if (Validator.checkString(strDebug, false, false))
+    if (this.isEnabled(objClass, MonitorLevel.DEBUG))
     {
-      Logger logger = LoggerFactory.getLogger(objClass);
-      logger.debug("[" + this.strName + "] " + strDebug);
-      if (this.checkLevelPass(MonitorLevel.DEBUG))
-      {
-        this.arlDebugLog.add("(" + objClass.getName() + ") " + strDebug);
-      }
+      this.log(MonitorLevel.DEBUG, objClass, strDebug);
+    }
+  }
+
+  /**
+   * Log a debug using a certain class. The message is only formatted when the level is enabled.
+   * 
+   * @param objClass
+   *          The class from which the debug is given.
+   * @param format
+   *          The message with a '{}' placeholder for the argument.
+   * @param arg
+   *          The argument.
+   */
+  public void debug(Class<?> objClass, String format, Object arg)
+  {
+    if (this.isEnabled(objClass, MonitorLevel.DEBUG))
+    {
+      this.log(MonitorLevel.DEBUG, objClass, MessageFormatter.format(format, arg).getMessage());
+    }
+  }
+
+  /**
+   * Log a debug using a certain class. The message is only formatted when the level is enabled.
+   * 
+   * @param objClass
+   *          The class from which the debug is given.
+   * @param format
+   *          The message with a '{}' placeholder for each argument.
+   * @param arg1
+   *          The first argument.
+   * @param arg2
+   *          The second argument.
+   */
+  public void debug(Class<?> objClass, String format, Object arg1, Object arg2)
+  {
+    if (this.isEnabled(objClass, MonitorLevel.DEBUG))
+    {
+      this.log(MonitorLevel.DEBUG, objClass, MessageFormatter.format(format, arg1, arg2).getMessage());
+    }
+  }
+
+  /**
+   * Log a debug using a certain class. The message is only formatted when the level is enabled.
+   * 
+   * @param objClass
+   *          The class from which the debug is given.
+   * @param format
+   *          The message with a '{}' placeholder for each argument.
+   * @param args
+   *          The arguments.
+   */
+  public void debug(Class<?> objClass, String format, Object... args)
+  {
+    if (this.isEnabled(objClass, MonitorLevel.DEBUG))
+    {
+      this.log(MonitorLevel.DEBUG, objClass, MessageFormatter.arrayFormat(format, args).getMessage());
     }
   }
 
@@ -197,14 +380,65 @@ public class Monitor
    */
   public void info(Class<?> objClass, String strInfo)
   {
-    if (Validator.checkString(strInfo, false, false))
+    if (this.isEnabled(objClass, MonitorLevel.INFO))
     {
-      Logger logger = LoggerFactory.getLogger(objClass);
-      logger.info("[" + this.strName + "] " + strInfo);
-      if (this.checkLevelPass(MonitorLevel.INFO))
-      {
-        this.arlInfoLog.add("(" + objClass.getName() + ") " + strInfo);
-      }
+      this.log(MonitorLevel.INFO, objClass, strInfo);
+    }
+  }
+
+  /**
+   * Log an info using a certain class. The message is only formatted when the level is enabled.
+   * 
+   * @param objClass
+   *          The class from which the info is given.
+   * @param format
+   *          The message with a '{}' placeholder for the argument.
+   * @param arg
+   *          The argument.
+   */
+  public void info(Class<?> objClass, String format, Object arg)
+  {
+    if (this.isEnabled(objClass, MonitorLevel.INFO))
+    {
+      this.log(MonitorLevel.INFO, objClass, MessageFormatter.format(format, arg).getMessage());
+    }
+  }
+
+  /**
+   * Log an info using a certain class. The message is only formatted when the level is enabled.
+   * 
+   * @param objClass
+   *          The class from which the info is given.
+   * @param format
+   *          The message with a '{}' placeholder for each argument.
+   * @param arg1
+   *          The first argument.
+   * @param arg2
+   *          The second argument.
+   */
+  public void info(Class<?> objClass, String format, Object arg1, Object arg2)
+  {
+    if (this.isEnabled(objClass, MonitorLevel.INFO))
+    {
+      this.log(MonitorLevel.INFO, objClass, MessageFormatter.format(format, arg1, arg2).getMessage());
+    }
+  }
+
+  /**
+   * Log an info using a certain class. The message is only formatted when the level is enabled.
+   * 
+   * @param objClass
+   *          The class from which the info is given.
+   * @param format
+   *          The message with a '{}' placeholder for each argument.
+   * @param args
+   *          The arguments.
+   */
+  public void info(Class<?> objClass, String format, Object... args)
+  {
+    if (this.isEnabled(objClass, MonitorLevel.INFO))
+    {
+      this.log(MonitorLevel.INFO, objClass, MessageFormatter.arrayFormat(format, args).getMessage());
     }
   }
 
@@ -214,18 +448,69 @@ public class Monitor
    * @param objClass
    *          The class from which the warn is given.
    * @param strWarn
-   *          The debug message as string.
+   *          The warn message as string.
    */
   public void warn(Class<?> objClass, String strWarn)
   {
-    if (Validator.checkString(strWarn, false, false))
+    if (this.isEnabled(objClass, MonitorLevel.WARN))
     {
-      Logger logger = LoggerFactory.getLogger(objClass);
-      logger.warn("[" + this.strName + "] " + strWarn);
-      if (this.checkLevelPass(MonitorLevel.WARN))
-      {
-        this.arlWarnLog.add("(" + objClass.getName() + ") " + strWarn);
-      }
+      this.log(MonitorLevel.WARN, objClass, strWarn);
+    }
+  }
+
+  /**
+   * Log a warn using a certain class. The message is only formatted when the level is enabled.
+   * 
+   * @param objClass
+   *          The class from which the warn is given.
+   * @param format
+   *          The message with a '{}' placeholder for the argument.
+   * @param arg
+   *          The argument.
+   */
+  public void warn(Class<?> objClass, String format, Object arg)
+  {
+    if (this.isEnabled(objClass, MonitorLevel.WARN))
+    {
+      this.log(MonitorLevel.WARN, objClass, MessageFormatter.format(format, arg).getMessage());
+    }
+  }
+
+  /**
+   * Log a warn using a certain class. The message is only formatted when the level is enabled.
+   * 
+   * @param objClass
+   *          The class from which the warn is given.
+   * @param format
+   *          The message with a '{}' placeholder for each argument.
+   * @param arg1
+   *          The first argument.
+   * @param arg2
+   *          The second argument.
+   */
+  public void warn(Class<?> objClass, String format, Object arg1, Object arg2)
+  {
+    if (this.isEnabled(objClass, MonitorLevel.WARN))
+    {
+      this.log(MonitorLevel.WARN, objClass, MessageFormatter.format(format, arg1, arg2).getMessage());
+    }
+  }
+
+  /**
+   * Log a warn using a certain class. The message is only formatted when the level is enabled.
+   * 
+   * @param objClass
+   *          The class from which the warn is given.
+   * @param format
+   *          The message with a '{}' placeholder for each argument.
+   * @param args
+   *          The arguments.
+   */
+  public void warn(Class<?> objClass, String format, Object... args)
+  {
+    if (this.isEnabled(objClass, MonitorLevel.WARN))
+    {
+      this.log(MonitorLevel.WARN, objClass, MessageFormatter.arrayFormat(format, args).getMessage());
     }
   }
 
@@ -239,14 +524,65 @@ public class Monitor
    */
   public void error(Class<?> objClass, String strError)
   {
-    if (Validator.checkString(strError, false, false))
+    if (this.isEnabled(objClass, MonitorLevel.ERROR))
     {
-      Logger logger = LoggerFactory.getLogger(objClass);
-      logger.error("[" + this.strName + "] " + strError);
-      if (this.checkLevelPass(MonitorLevel.ERROR))
-      {
-        this.arlErrorLog.add("(" + objClass.getName() + ") " + strError);
-      }
+      this.log(MonitorLevel.ERROR, objClass, strError);
+    }
+  }
+
+  /**
+   * Log an error using a certain class. The message is only formatted when the level is enabled.
+   * 
+   * @param objClass
+   *          The class from which the error is given.
+   * @param format
+   *          The message with a '{}' placeholder for the argument.
+   * @param arg
+   *          The argument.
+   */
+  public void error(Class<?> objClass, String format, Object arg)
+  {
+    if (this.isEnabled(objClass, MonitorLevel.ERROR))
+    {
+      this.log(MonitorLevel.ERROR, objClass, MessageFormatter.format(format, arg).getMessage());
+    }
+  }
+
+  /**
+   * Log an error using a certain class. The message is only formatted when the level is enabled.
+   * 
+   * @param objClass
+   *          The class from which the error is given.
+   * @param format
+   *          The message with a '{}' placeholder for each argument.
+   * @param arg1
+   *          The first argument.
+   * @param arg2
+   *          The second argument.
+   */
+  public void error(Class<?> objClass, String format, Object arg1, Object arg2)
+  {
+    if (this.isEnabled(objClass, MonitorLevel.ERROR))
+    {
+      this.log(MonitorLevel.ERROR, objClass, MessageFormatter.format(format, arg1, arg2).getMessage());
+    }
+  }
+
+  /**
+   * Log an error using a certain class. The message is only formatted when the level is enabled.
+   * 
+   * @param objClass
+   *          The class from which the error is given.
+   * @param format
+   *          The message with a '{}' placeholder for each argument.
+   * @param args
+   *          The arguments.
+   */
+  public void error(Class<?> objClass, String format, Object... args)
+  {
+    if (this.isEnabled(objClass, MonitorLevel.ERROR))
+    {
+      this.log(MonitorLevel.ERROR, objClass, MessageFormatter.arrayFormat(format, args).getMessage());
     }
   }
 
@@ -273,6 +609,49 @@ public class Monitor
         case MESSAGE_DISCARDED:
           this.intDiscardedMessages.addAndGet((Integer) data);
           break;
+        case CACHE_HIT:
+          this.intCacheHits.addAndGet((Integer) data);
+          break;
+        case CACHE_MISS:
+          this.intCacheMisses.addAndGet((Integer) data);
+          break;
+        case RECEIVE_HIGH_WATER:
+          this.intReceiveHighWater.addAndGet((Integer) data);
+          break;
+        case RECEIVE_LOW_WATER:
+          this.intReceiveLowWater.addAndGet((Integer) data);
+          break;
+        case RECEIVE_PAUSED:
+          this.intReceivePauses.addAndGet((Integer) data);
+          break;
+        case DISPATCH_QUEUE_DEPTH:
+          // A gauge, keeps the deepest queue seen since the last drain.
+          this.intDispatchQueueDepth.accumulateAndGet((Integer) data, Math::max);
+          break;
+        case DISPATCH_HANDLED:
+          this.intDispatchHandled.addAndGet((Integer) data);
+          break;
+        case DISPATCH_HANDLER_TIME:
+          this.intDispatchHandlerTime.addAndGet((Integer) data);
+          break;
+        case DISPATCH_REJECTED:
+          this.intDispatchRejected.addAndGet((Integer) data);
+          break;
+        case COMPRESS_BYTES_IN:
+          this.intCompressBytesIn.addAndGet((Integer) data);
+          break;
+        case COMPRESS_BYTES_OUT:
+          this.intCompressBytesOut.addAndGet((Integer) data);
+          break;
+        case COMPRESS_TIME:
+          this.intCompressTime.addAndGet((Integer) data);
+          break;
+        case DECOMPRESS_TIME:
+          this.intDecompressTime.addAndGet((Integer) data);
+          break;
+        case CHUNK_DROPPED:
+          this.intChunkDrops.addAndGet((Integer) data);
+          break;
         default:
           // Do Nothing
           break;
@@ -280,6 +659,80 @@ public class Monitor
     }
   }
 
+  /**
+   * Writes a log to the logger of the class and keeps it for the Zabbix Agent, as far as their levels allow.
+   * 
+   * @param level
+   *          The level of the log.
+   * @param objClass
+   *          The class from which the log is given.
+   * @param message
+   *          The log message as string.
+   */
+  private void log(MonitorLevel level, Class<?> objClass, String message)
+  {
+    if (!Validator.checkString(message, false, false))
+    {
+      return;
+    }
+
+    Logger logger = LOGGERS.get(objClass);
+    if (Monitor.isLoggerEnabled(logger, level))
+    {
+      String log = "[" + this.strName + "] " + message;
+      switch (level)
+      {
+        case TRACE:
+          logger.trace(log);
+          break;
+        case DEBUG:
+          logger.debug(log);
+          break;
+        case INFO:
+          logger.info(log);
+          break;
+        case WARN:
+          logger.warn(log);
+          break;
+        default:
+          logger.error(log);
+          break;
+      }
+    }
+    if (this.checkLevelPass(level))
+    {
+      this.addLog(level, "(" + objClass.getName() + ") " + message);
+    }
+  }
+
+  /**
+   * Checks if a logger writes logs of a certain level.
+   * 
+   * @param logger
+   *          The logger to be checked.
+   * @param level
+   *          Level to be checked against the logger.
+   * @return True if the logger writes the level, False if it doesn't.
+   */
+  private static boolean isLoggerEnabled(Logger logger, MonitorLevel level)
+  {
+    switch (level)
+    {
+      case TRACE:
+        return logger.isTraceEnabled();
+      case DEBUG:
+        return logger.isDebugEnabled();
+      case INFO:
+        return logger.isInfoEnabled();
+      case WARN:
+        return logger.isWarnEnabled();
+      case ERROR:
+        return logger.isErrorEnabled();
+      default:
+        return false;
+    }
+  }
+
   /**
    * Checks if a certain level passes the MonitorLevel setting.
    * 
@@ -317,26 +770,6 @@ public class Monitor
     }
   }
 
-  /**
-   * Converts a given ArrayList of logs to string.
-   * 
-   * @param logs
-   *          The ArrayList with logs.
-   * @return The logs as an string.
-   */
-  private String logsToString(CopyOnWriteArrayList<String> logs)
-  {
-    String strLog = "";
-
-    for (String log : logs)
-    {
-      strLog += log + "\n";
-    }
-    logs.clear();
-
-    return strLog;
-  }
-
   /**
    * Drains the logs into a string.
    * 
@@ -349,15 +782,15 @@ public class Monitor
     switch (level)
     {
       case ERROR:
-        return this.logsToString(this.arlErrorLog);
+        return this.objErrorLog.drain();
       case WARN:
-        return this.logsToString(this.arlWarnLog);
+        return this.objWarnLog.drain();
       case INFO:
-        return this.logsToString(this.arlInfoLog);
+        return this.objInfoLog.drain();
       case DEBUG:
-        return this.logsToString(this.arlDebugLog);
+        return this.objDebugLog.drain();
       case TRACE:
-        return this.logsToString(this.arlTraceLog);
+        return this.objTraceLog.drain();
       default:
         return "";
     }
@@ -387,6 +820,51 @@ public class Monitor
         tmpData = intDiscardedMessages.get();
         intDiscardedMessages.set(0);
         return tmpData;
+      case CACHE_HIT:
+        tmpData = intCacheHits.getAndSet(0);
+        return tmpData;
+      case CACHE_MISS:
+        tmpData = intCacheMisses.getAndSet(0);
+        return tmpData;
+      case RECEIVE_HIGH_WATER:
+        tmpData = intReceiveHighWater.getAndSet(0);
+        return tmpData;
+      case RECEIVE_LOW_WATER:
+        tmpData = intReceiveLowWater.getAndSet(0);
+        return tmpData;
+      case RECEIVE_PAUSED:
+        tmpData = intReceivePauses.getAndSet(0);
+        return tmpData;
+      case DISPATCH_QUEUE_DEPTH:
+        tmpData = intDispatchQueueDepth.getAndSet(0);
+        return tmpData;
+      case DISPATCH_HANDLED:
+        tmpData = intDispatchHandled.getAndSet(0);
+        return tmpData;
+      case DISPATCH_HANDLER_TIME:
+        tmpData = intDispatchHandlerTime.getAndSet(0);
+        return tmpData;
+      case DISPATCH_REJECTED:
+        tmpData = intDispatchRejected.getAndSet(0);
+        return tmpData;
+      case COMPRESS_BYTES_IN:
+        tmpData = intCompressBytesIn.getAndSet(0);
+        return tmpData;
+      case COMPRESS_BYTES_OUT:
+        tmpData = intCompressBytesOut.getAndSet(0);
+        return tmpData;
+      case COMPRESS_TIME:
+        tmpData = intCompressTime.getAndSet(0);
+        return tmpData;
+      case DECOMPRESS_TIME:
+        tmpData = intDecompressTime.getAndSet(0);
+        return tmpData;
+      case LOG_DROPPED:
+        tmpData = (int) (objErrorLog.drainDrops() + objWarnLog.drainDrops() + objInfoLog.drainDrops() + objDebugLog.drainDrops() + objTraceLog.drainDrops());
+        return tmpData;
+      case CHUNK_DROPPED:
+        tmpData = intChunkDrops.getAndSet(0);
+        return tmpData;
       default:
         return tmpData;
     }
@@ -407,19 +885,19 @@ public class Monitor
       switch (level)
       {
         case ERROR:
-          this.arlErrorLog.add(log);
+          this.objErrorLog.add(log);
           break;
         case WARN:
-          this.arlWarnLog.add(log);
+          this.objWarnLog.add(log);
           break;
         case INFO:
-          this.arlInfoLog.add(log);
+          this.objInfoLog.add(log);
           break;
         case DEBUG:
-          this.arlDebugLog.add(log);
+          this.objDebugLog.add(log);
           break;
         case TRACE:
-          this.arlTraceLog.add(log);
+          this.objTraceLog.add(log);
           break;
         default:
           // Do Nothing...
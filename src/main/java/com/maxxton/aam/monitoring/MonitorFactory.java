@@ -29,6 +29,7 @@ public class MonitorFactory extends AppenderSkeleton
   private static String strHostname;
   private static String strServerAddress;
   private static int intServerPort;
+  private static int intLogCapacity;
   private static boolean blnEnabled;
   private static boolean blnIsStarted;
   private static ZabbixAgent objAgent;
@@ -41,6 +42,7 @@ public class MonitorFactory extends AppenderSkeleton
     MonitorFactory.blnIsStarted = false;
     MonitorFactory.blnEnabled = false;
     MonitorFactory.enmMonitorLevel = MonitorLevel.ALL;
+    MonitorFactory.intLogCapacity = Monitor.DEFAULT_LOG_CAPACITY;
     MonitorFactory.loadConfiguration("/default.properties");
   }
 
@@ -59,7 +61,7 @@ public class MonitorFactory extends AppenderSkeleton
       instance = mapMonitors.get(key);
       if (Validator.checkObject(instance, true))
       {
-        instance = new Monitor(key, MonitorFactory.getEnabled());
+        instance = new Monitor(key, MonitorFactory.getEnabled(), MonitorFactory.getLogCapacity());
         mapMonitors.put(key, instance);
       }
     }
@@ -86,6 +88,9 @@ public class MonitorFactory extends AppenderSkeleton
         String strMonitorLvl = properties.getProperty("monitor.level", level.toString());
         MonitorFactory.setMonitorLevel(MonitorFactory.determineLevel(strMonitorLvl));
 
+        int logCapacity = properties.getProperty("monitor.logcapacity") == null ? MonitorFactory.getLogCapacity() : Integer.parseInt(properties.getProperty("monitor.logcapacity"));
+        MonitorFactory.setLogCapacity(logCapacity);
+
         String hostname = properties.getProperty("monitor.hostname", MonitorFactory.getHostname());
         MonitorFactory.setHostname(hostname);
 
@@ -140,6 +145,7 @@ public class MonitorFactory extends AppenderSkeleton
         Monitor monitor = MonitorFactory.mapMonitors.get(key);
         monitor.setEnabled(MonitorFactory.getEnabled());
         monitor.setMonitorLevel(MonitorFactory.getMonitorLevel());
+        monitor.setLogCapacity(MonitorFactory.getLogCapacity());
       }
     }
   }
@@ -250,6 +256,27 @@ public class MonitorFactory extends AppenderSkeleton
     MonitorFactory.enmMonitorLevel = level;
   }
 
+  /**
+   * Gets the maximum amount of log entries a Monitor keeps per level between drains.
+   * 
+   * @return the log capacity.
+   */
+  private static int getLogCapacity()
+  {
+    return MonitorFactory.intLogCapacity;
+  }
+
+  /**
+   * Sets the maximum amount of log entries a Monitor keeps per level between drains.
+   * 
+   * @param logCapacity
+   *          the log capacity.
+   */
+  private static void setLogCapacity(int logCapacity)
+  {
+    MonitorFactory.intLogCapacity = logCapacity;
+  }
+
   /**
    * Gets the hostname setting for the Zabbix Agent.
    * 
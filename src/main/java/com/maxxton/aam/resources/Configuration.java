@@ -2,9 +2,14 @@ package com.maxxton.aam.resources;
 
 import java.util.Arrays;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 
+import com.maxxton.aam.monitoring.Monitor;
+import com.maxxton.aam.monitoring.MonitorFactory;
+
 /**
  * Host class Holds the information required by the Messenger to be able to connect to the broker. This configuration can be loaded dynamically upon runtime by using a .property or .xml file.
  * 
@@ -13,17 +18,30 @@ import java.util.Properties;
  */
 public class Configuration
 {
+  private final static Monitor objMonitor = MonitorFactory.getMonitor("global");
+
   private String strName;
   private String strHost;
   private ArrayList<Integer> arlPorts;
   private String strUsername;
   private String strPassword;
 
+  private String strConnectionSharing;
+  private int intConnectionChannelCache;
+
   private String strQueuePrefix;
   private String strQueueSuffix;
   private boolean blnQueueDurability;
   private boolean blnQueueAutoDelete;
   private boolean blnQueueExclusive;
+  private int intQueueMaxPriority;
+  private String strQueueMode;
+  private long lngQueueMaxLength;
+  private long lngQueueMaxLengthBytes;
+  private String strQueueOverflow;
+  private long lngQueueMessageTtl;
+  private String strQueueDeadLetterExchange;
+  private String strQueueDeadLetterRoutingKey;
 
   private String strBindingPrefix;
   private String strBindingSuffix;
@@ -32,6 +50,36 @@ public class Configuration
   private int intCleanRate;
   private int intMaxElements;
   private int intMaxSize;
+  private int intExpiry;
+  private int intHighWater;
+  private int intLowWater;
+
+  private int intCacheTimeToLive;
+  private int intCacheNegativeTimeToLive;
+
+  private int intConfirmMaxPending;
+  private int intConfirmTimeout;
+
+  private String strMessageCodec;
+  private String strMessageCompressor;
+  private int intMessageCompressThreshold;
+  private int intMessageChunkSize;
+  private int intMessageChunkBuffer;
+  private int intMessageChunkTimeout;
+  private String strMessageIdGenerator;
+
+  private boolean blnRpcDirectReplyTo;
+
+  private int intListenerConcurrencyMin;
+  private int intListenerConcurrencyMax;
+  private int intListenerPrefetch;
+  private int intListenerTxSize;
+
+  private String strDispatchMode;
+  private int intDispatchThreads;
+  private int intDispatchQueueSize;
+  private String strDispatchRejection;
+  private String strDispatchOrderKey;
 
   /**
    * Constructor for the Host class.
@@ -69,11 +117,19 @@ public class Configuration
       this.setUsername(properties.getProperty("broker.username", this.getUsername()));
       this.setPassword(properties.getProperty("broker.password", this.getPassword()));
 
+      this.setConnectionSharing(properties.getProperty("connection.sharing", this.getConnectionSharing()));
+      this.setConnectionChannelCache(properties.getProperty("connection.channelcache") == null ? this.getConnectionChannelCache() : Integer.parseInt(properties.getProperty("connection.channelcache")));
+
       this.setQueuePrefix(properties.getProperty("queue.prefix", this.getQueuePrefix()));
       this.setQueueSuffix(properties.getProperty("queue.suffix", this.getQueueSuffix()));
       this.setQueueDurability(properties.getProperty("queue.durability") == null ? this.getQueueDurability() : Boolean.parseBoolean(properties.getProperty("queue.durability")));
       this.setQueueAutoDelete(properties.getProperty("queue.autodelete") == null ? this.getQueueAutoDelete() : Boolean.parseBoolean(properties.getProperty("queue.autodelete")));
       this.setQueueExclusive(properties.getProperty("queue.exclusive") == null ? this.getQueueExclusive() : Boolean.parseBoolean(properties.getProperty("queue.exclusive")));
+      this.setQueueMaxPriority(properties.getProperty("queue.maxpriority") == null ? this.getQueueMaxPriority() : Integer.parseInt(properties.getProperty("queue.maxpriority")));
+      if (properties.getProperty("queue.arguments") != null)
+      {
+        this.parseQueueArguments(properties.getProperty("queue.arguments"));
+      }
 
       this.setBindingPrefix(properties.getProperty("binding.prefix", this.getBindingPrefix()));
       this.setBindingSuffix(properties.getProperty("binding.suffix", this.getBindingSuffix()));
@@ -82,6 +138,36 @@ public class Configuration
       this.setDataCleanRate(properties.getProperty("data.cleanrate") == null ? this.getDataCleanRate() : Integer.parseInt(properties.getProperty("data.cleanrate")));
       this.setDataMaxElements(properties.getProperty("data.maxelements") == null ? this.getDataMaxElements() : Integer.parseInt(properties.getProperty("data.maxelements")));
       this.setDataMaxSize(properties.getProperty("data.maxsize") == null ? this.getDataMaxSize() : Integer.parseInt(properties.getProperty("data.maxsize")));
+      this.setDataExpiry(properties.getProperty("data.expiry") == null ? this.getDataExpiry() : Integer.parseInt(properties.getProperty("data.expiry")));
+      this.setDataHighWater(properties.getProperty("data.highwater") == null ? this.getDataHighWater() : Integer.parseInt(properties.getProperty("data.highwater")));
+      this.setDataLowWater(properties.getProperty("data.lowwater") == null ? this.getDataLowWater() : Integer.parseInt(properties.getProperty("data.lowwater")));
+
+      this.setCacheTimeToLive(properties.getProperty("cache.ttl") == null ? this.getCacheTimeToLive() : Integer.parseInt(properties.getProperty("cache.ttl")));
+      this.setCacheNegativeTimeToLive(properties.getProperty("cache.negativettl") == null ? this.getCacheNegativeTimeToLive() : Integer.parseInt(properties.getProperty("cache.negativettl")));
+
+      this.setConfirmMaxPending(properties.getProperty("confirm.maxpending") == null ? this.getConfirmMaxPending() : Integer.parseInt(properties.getProperty("confirm.maxpending")));
+      this.setConfirmTimeout(properties.getProperty("confirm.timeout") == null ? this.getConfirmTimeout() : Integer.parseInt(properties.getProperty("confirm.timeout")));
+
+      this.setMessageCodec(properties.getProperty("message.codec", this.getMessageCodec()));
+      this.setMessageCompressor(properties.getProperty("message.compressor", this.getMessageCompressor()));
+      this.setMessageCompressThreshold(properties.getProperty("message.compressthreshold") == null ? this.getMessageCompressThreshold() : Integer.parseInt(properties.getProperty("message.compressthreshold")));
+      this.setMessageChunkSize(properties.getProperty("message.chunksize") == null ? this.getMessageChunkSize() : Integer.parseInt(properties.getProperty("message.chunksize")));
+      this.setMessageChunkBuffer(properties.getProperty("message.chunkbuffer") == null ? this.getMessageChunkBuffer() : Integer.parseInt(properties.getProperty("message.chunkbuffer")));
+      this.setMessageChunkTimeout(properties.getProperty("message.chunktimeout") == null ? this.getMessageChunkTimeout() : Integer.parseInt(properties.getProperty("message.chunktimeout")));
+      this.setMessageIdGenerator(properties.getProperty("message.idgenerator", this.getMessageIdGenerator()));
+
+      this.setRpcDirectReplyTo(properties.getProperty("rpc.directreplyto") == null ? this.getRpcDirectReplyTo() : Boolean.parseBoolean(properties.getProperty("rpc.directreplyto")));
+
+      this.setListenerConcurrencyMin(properties.getProperty("listener.concurrency.min") == null ? this.getListenerConcurrencyMin() : Integer.parseInt(properties.getProperty("listener.concurrency.min")));
+      this.setListenerConcurrencyMax(properties.getProperty("listener.concurrency.max") == null ? this.getListenerConcurrencyMax() : Integer.parseInt(properties.getProperty("listener.concurrency.max")));
+      this.setListenerPrefetch(properties.getProperty("listener.prefetch") == null ? this.getListenerPrefetch() : Integer.parseInt(properties.getProperty("listener.prefetch")));
+      this.setListenerTxSize(properties.getProperty("listener.txsize") == null ? this.getListenerTxSize() : Integer.parseInt(properties.getProperty("listener.txsize")));
+
+      this.setDispatchMode(properties.getProperty("dispatch.mode", this.getDispatchMode()));
+      this.setDispatchThreads(properties.getProperty("dispatch.threads") == null ? this.getDispatchThreads() : Integer.parseInt(properties.getProperty("dispatch.threads")));
+      this.setDispatchQueueSize(properties.getProperty("dispatch.queuesize") == null ? this.getDispatchQueueSize() : Integer.parseInt(properties.getProperty("dispatch.queuesize")));
+      this.setDispatchRejection(properties.getProperty("dispatch.rejection", this.getDispatchRejection()));
+      this.setDispatchOrderKey(properties.getProperty("dispatch.orderkey", this.getDispatchOrderKey()));
     }
   }
 
@@ -443,4 +529,852 @@ public class Configuration
     return this.intMaxSize;
   }
 
+  /**
+   * Sets the time an identifier is kept by the DataContainer after it was added.
+   *
+   * @param expiry
+   *          the DataContainer expiry in seconds, 0 to keep identifiers until the max elements is reached.
+   */
+  public void setDataExpiry(int expiry)
+  {
+    this.intExpiry = expiry;
+  }
+
+  /**
+   * Gets the time an identifier is kept by the DataContainer after it was added.
+   *
+   * @return the DataContainer expiry in seconds.
+   */
+  public int getDataExpiry()
+  {
+    return this.intExpiry;
+  }
+
+  /**
+   * Sets the amount of received messages at which the DataContainer stops taking messages from the broker.
+   *
+   * @param highWater
+   *          the DataContainer high-water mark.
+   */
+  public void setDataHighWater(int highWater)
+  {
+    this.intHighWater = highWater;
+  }
+
+  /**
+   * Gets the amount of received messages at which the DataContainer stops taking messages from the broker.
+   *
+   * @return the DataContainer high-water mark.
+   */
+  public int getDataHighWater()
+  {
+    return this.intHighWater;
+  }
+
+  /**
+   * Sets the amount of received messages at which the DataContainer starts taking messages from the broker again.
+   *
+   * @param lowWater
+   *          the DataContainer low-water mark.
+   */
+  public void setDataLowWater(int lowWater)
+  {
+    this.intLowWater = lowWater;
+  }
+
+  /**
+   * Gets the amount of received messages at which the DataContainer starts taking messages from the broker again.
+   *
+   * @return the DataContainer low-water mark.
+   */
+  public int getDataLowWater()
+  {
+    return this.intLowWater;
+  }
+
+  /**
+   * Sets the time an existing receiver is cached by the SendController.
+   *
+   * @param timeToLive
+   *          the time to live in seconds, 0 disables caching.
+   */
+  public void setCacheTimeToLive(int timeToLive)
+  {
+    this.intCacheTimeToLive = timeToLive;
+  }
+
+  /**
+   * Gets the time an existing receiver is cached by the SendController.
+   *
+   * @return the time to live in seconds.
+   */
+  public int getCacheTimeToLive()
+  {
+    return this.intCacheTimeToLive;
+  }
+
+  /**
+   * Sets the time a missing receiver is cached by the SendController.
+   *
+   * @param negativeTimeToLive
+   *          the time to live in seconds, 0 disables caching.
+   */
+  public void setCacheNegativeTimeToLive(int negativeTimeToLive)
+  {
+    this.intCacheNegativeTimeToLive = negativeTimeToLive;
+  }
+
+  /**
+   * Gets the time a missing receiver is cached by the SendController.
+   *
+   * @return the time to live in seconds.
+   */
+  public int getCacheNegativeTimeToLive()
+  {
+    return this.intCacheNegativeTimeToLive;
+  }
+
+  /**
+   * Sets the maximum amount of messages waiting for a publisher confirm.
+   *
+   * @param confirmMaxPending
+   *          the maximum amount of unconfirmed messages, 0 for unbounded.
+   */
+  public void setConfirmMaxPending(int confirmMaxPending)
+  {
+    this.intConfirmMaxPending = confirmMaxPending;
+  }
+
+  /**
+   * Gets the maximum amount of messages waiting for a publisher confirm.
+   *
+   * @return the maximum amount of unconfirmed messages.
+   */
+  public int getConfirmMaxPending()
+  {
+    return this.intConfirmMaxPending;
+  }
+
+  /**
+   * Sets the time to wait for the publisher confirm of a batch.
+   *
+   * @param confirmTimeout
+   *          the timeout in milliseconds.
+   */
+  public void setConfirmTimeout(int confirmTimeout)
+  {
+    this.intConfirmTimeout = confirmTimeout;
+  }
+
+  /**
+   * Gets the time to wait for the publisher confirm of a batch.
+   *
+   * @return the timeout in milliseconds.
+   */
+  public int getConfirmTimeout()
+  {
+    return this.intConfirmTimeout;
+  }
+
+  /**
+   * Sets the class name of the MessageCodec used to encode the payload of messages.
+   *
+   * @param messageCodec
+   *          the fully qualified class name of the codec.
+   */
+  public void setMessageCodec(String messageCodec)
+  {
+    this.strMessageCodec = messageCodec;
+  }
+
+  /**
+   * Gets the class name of the MessageCodec used to encode the payload of messages.
+   *
+   * @return the fully qualified class name of the codec.
+   */
+  public String getMessageCodec()
+  {
+    return this.strMessageCodec;
+  }
+
+  /**
+   * Sets whether requests ask for their reply on the direct reply-to pseudo queue instead of the messenger's own queue.
+   *
+   * @param rpcDirectReplyTo
+   *          true to use direct reply-to, false to receive replies on the queue.
+   */
+  public void setRpcDirectReplyTo(boolean rpcDirectReplyTo)
+  {
+    this.blnRpcDirectReplyTo = rpcDirectReplyTo;
+  }
+
+  /**
+   * Gets whether requests ask for their reply on the direct reply-to pseudo queue.
+   *
+   * @return true if direct reply-to is used, false if not.
+   */
+  public boolean getRpcDirectReplyTo()
+  {
+    return this.blnRpcDirectReplyTo;
+  }
+
+  /**
+   * Sets the amount of consumers the listener container starts with.
+   *
+   * @param listenerConcurrencyMin
+   *          the minimum amount of consumers.
+   */
+  public void setListenerConcurrencyMin(int listenerConcurrencyMin)
+  {
+    this.intListenerConcurrencyMin = listenerConcurrencyMin;
+  }
+
+  /**
+   * Gets the amount of consumers the listener container starts with.
+   *
+   * @return the minimum amount of consumers.
+   */
+  public int getListenerConcurrencyMin()
+  {
+    return this.intListenerConcurrencyMin;
+  }
+
+  /**
+   * Sets the amount of consumers the listener container may scale up to while its consumers are busy.
+   *
+   * @param listenerConcurrencyMax
+   *          the maximum amount of consumers.
+   */
+  public void setListenerConcurrencyMax(int listenerConcurrencyMax)
+  {
+    this.intListenerConcurrencyMax = listenerConcurrencyMax;
+  }
+
+  /**
+   * Gets the amount of consumers the listener container may scale up to.
+   *
+   * @return the maximum amount of consumers.
+   */
+  public int getListenerConcurrencyMax()
+  {
+    return this.intListenerConcurrencyMax;
+  }
+
+  /**
+   * Sets the amount of unacknowledged messages the broker delivers to each consumer.
+   *
+   * @param listenerPrefetch
+   *          the prefetch count per consumer.
+   */
+  public void setListenerPrefetch(int listenerPrefetch)
+  {
+    this.intListenerPrefetch = listenerPrefetch;
+  }
+
+  /**
+   * Gets the amount of unacknowledged messages the broker delivers to each consumer.
+   *
+   * @return the prefetch count per consumer.
+   */
+  public int getListenerPrefetch()
+  {
+    return this.intListenerPrefetch;
+  }
+
+  /**
+   * Sets the amount of messages a consumer handles before acknowledging them at once.
+   *
+   * @param listenerTxSize
+   *          the amount of messages per acknowledgement.
+   */
+  public void setListenerTxSize(int listenerTxSize)
+  {
+    this.intListenerTxSize = listenerTxSize;
+  }
+
+  /**
+   * Gets the amount of messages a consumer handles before acknowledging them at once.
+   *
+   * @return the amount of messages per acknowledgement.
+   */
+  public int getListenerTxSize()
+  {
+    return this.intListenerTxSize;
+  }
+
+  /**
+   * Sets how received messages are dispatched to the callback: inline, fixed, workstealing or bounded.
+   *
+   * @param dispatchMode
+   *          the dispatch mode.
+   */
+  public void setDispatchMode(String dispatchMode)
+  {
+    this.strDispatchMode = dispatchMode;
+  }
+
+  /**
+   * Gets how received messages are dispatched to the callback.
+   *
+   * @return the dispatch mode.
+   */
+  public String getDispatchMode()
+  {
+    return this.strDispatchMode;
+  }
+
+  /**
+   * Sets the amount of threads calling the callback.
+   *
+   * @param dispatchThreads
+   *          the amount of dispatch threads.
+   */
+  public void setDispatchThreads(int dispatchThreads)
+  {
+    this.intDispatchThreads = dispatchThreads;
+  }
+
+  /**
+   * Gets the amount of threads calling the callback.
+   *
+   * @return the amount of dispatch threads.
+   */
+  public int getDispatchThreads()
+  {
+    return this.intDispatchThreads;
+  }
+
+  /**
+   * Sets the maximum amount of messages waiting for the callback. In bounded mode the rejection policy applies when it is reached, the other pooled modes block the listener thread until there is
+   * room.
+   *
+   * @param dispatchQueueSize
+   *          the dispatch queue size.
+   */
+  public void setDispatchQueueSize(int dispatchQueueSize)
+  {
+    this.intDispatchQueueSize = dispatchQueueSize;
+  }
+
+  /**
+   * Gets the maximum amount of messages waiting for the callback.
+   *
+   * @return the dispatch queue size.
+   */
+  public int getDispatchQueueSize()
+  {
+    return this.intDispatchQueueSize;
+  }
+
+  /**
+   * Sets what happens with a message when the bounded dispatch queue is full: callerruns, discard or abort.
+   *
+   * @param dispatchRejection
+   *          the rejection policy.
+   */
+  public void setDispatchRejection(String dispatchRejection)
+  {
+    this.strDispatchRejection = dispatchRejection;
+  }
+
+  /**
+   * Gets what happens with a message when the bounded dispatch queue is full.
+   *
+   * @return the rejection policy.
+   */
+  public String getDispatchRejection()
+  {
+    return this.strDispatchRejection;
+  }
+
+  /**
+   * Sets the message detail the ordered dispatcher keeps messages in order by.
+   *
+   * @param dispatchOrderKey
+   *          the key, either sender, receiver or type.
+   */
+  public void setDispatchOrderKey(String dispatchOrderKey)
+  {
+    this.strDispatchOrderKey = dispatchOrderKey;
+  }
+
+  /**
+   * Gets the message detail the ordered dispatcher keeps messages in order by.
+   *
+   * @return the key, either sender, receiver or type.
+   */
+  public String getDispatchOrderKey()
+  {
+    return this.strDispatchOrderKey;
+  }
+
+  /**
+   * Sets how broker connections are shared between messengers.
+   *
+   * @param connectionSharing
+   *          either jvm, messenger or split.
+   */
+  public void setConnectionSharing(String connectionSharing)
+  {
+    this.strConnectionSharing = connectionSharing;
+  }
+
+  /**
+   * Gets how broker connections are shared between messengers.
+   *
+   * @return either jvm, messenger or split.
+   */
+  public String getConnectionSharing()
+  {
+    return this.strConnectionSharing;
+  }
+
+  /**
+   * Sets the amount of channels kept open on a shared connection.
+   *
+   * @param connectionChannelCache
+   *          the amount of cached channels.
+   */
+  public void setConnectionChannelCache(int connectionChannelCache)
+  {
+    this.intConnectionChannelCache = connectionChannelCache;
+  }
+
+  /**
+   * Gets the amount of channels kept open on a shared connection.
+   *
+   * @return the amount of cached channels.
+   */
+  public int getConnectionChannelCache()
+  {
+    return this.intConnectionChannelCache;
+  }
+
+  /**
+   * Sets the highest priority the queue supports.
+   *
+   * @param queueMaxPriority
+   *          the highest priority, 0 to declare the queue without priorities.
+   */
+  public void setQueueMaxPriority(int queueMaxPriority)
+  {
+    this.intQueueMaxPriority = queueMaxPriority;
+  }
+
+  /**
+   * Gets the highest priority the queue supports.
+   *
+   * @return the highest priority, 0 if the queue has no priorities.
+   */
+  public int getQueueMaxPriority()
+  {
+    return this.intQueueMaxPriority;
+  }
+
+  /**
+   * Sets the queue mode.
+   *
+   * @param queueMode
+   *          either default or lazy.
+   */
+  public void setQueueMode(String queueMode)
+  {
+    this.strQueueMode = queueMode;
+  }
+
+  /**
+   * Gets the queue mode.
+   *
+   * @return either default or lazy.
+   */
+  public String getQueueMode()
+  {
+    return this.strQueueMode;
+  }
+
+  /**
+   * Sets the maximum amount of messages in the queue.
+   *
+   * @param queueMaxLength
+   *          the amount of messages, 0 for no maximum.
+   */
+  public void setQueueMaxLength(long queueMaxLength)
+  {
+    this.lngQueueMaxLength = queueMaxLength;
+  }
+
+  /**
+   * Gets the maximum amount of messages in the queue.
+   *
+   * @return the amount of messages, 0 for no maximum.
+   */
+  public long getQueueMaxLength()
+  {
+    return this.lngQueueMaxLength;
+  }
+
+  /**
+   * Sets the maximum total body size of the messages in the queue.
+   *
+   * @param queueMaxLengthBytes
+   *          the size in bytes, 0 for no maximum.
+   */
+  public void setQueueMaxLengthBytes(long queueMaxLengthBytes)
+  {
+    this.lngQueueMaxLengthBytes = queueMaxLengthBytes;
+  }
+
+  /**
+   * Gets the maximum total body size of the messages in the queue.
+   *
+   * @return the size in bytes, 0 for no maximum.
+   */
+  public long getQueueMaxLengthBytes()
+  {
+    return this.lngQueueMaxLengthBytes;
+  }
+
+  /**
+   * Sets what the broker does with new messages once the queue is full.
+   *
+   * @param queueOverflow
+   *          either drop-head, reject-publish or reject-publish-dlx.
+   */
+  public void setQueueOverflow(String queueOverflow)
+  {
+    this.strQueueOverflow = queueOverflow;
+  }
+
+  /**
+   * Gets what the broker does with new messages once the queue is full.
+   *
+   * @return either drop-head, reject-publish or reject-publish-dlx.
+   */
+  public String getQueueOverflow()
+  {
+    return this.strQueueOverflow;
+  }
+
+  /**
+   * Sets the time a message is kept in the queue.
+   *
+   * @param queueMessageTtl
+   *          the time in milliseconds, 0 to keep messages until they are consumed.
+   */
+  public void setQueueMessageTtl(long queueMessageTtl)
+  {
+    this.lngQueueMessageTtl = queueMessageTtl;
+  }
+
+  /**
+   * Gets the time a message is kept in the queue.
+   *
+   * @return the time in milliseconds, 0 to keep messages until they are consumed.
+   */
+  public long getQueueMessageTtl()
+  {
+    return this.lngQueueMessageTtl;
+  }
+
+  /**
+   * Sets the exchange expired, dropped and rejected messages are republished to.
+   *
+   * @param queueDeadLetterExchange
+   *          the name of the exchange, null for none.
+   */
+  public void setQueueDeadLetterExchange(String queueDeadLetterExchange)
+  {
+    this.strQueueDeadLetterExchange = queueDeadLetterExchange;
+  }
+
+  /**
+   * Gets the exchange expired, dropped and rejected messages are republished to.
+   *
+   * @return the name of the exchange, null for none.
+   */
+  public String getQueueDeadLetterExchange()
+  {
+    return this.strQueueDeadLetterExchange;
+  }
+
+  /**
+   * Sets the routing key dead lettered messages are republished with.
+   *
+   * @param queueDeadLetterRoutingKey
+   *          the routing key, null to keep the original routing key.
+   */
+  public void setQueueDeadLetterRoutingKey(String queueDeadLetterRoutingKey)
+  {
+    this.strQueueDeadLetterRoutingKey = queueDeadLetterRoutingKey;
+  }
+
+  /**
+   * Gets the routing key dead lettered messages are republished with.
+   *
+   * @return the routing key, null to keep the original routing key.
+   */
+  public String getQueueDeadLetterRoutingKey()
+  {
+    return this.strQueueDeadLetterRoutingKey;
+  }
+
+  /**
+   * Parses the queue arguments, a comma separated list of name=value pairs like 'x-queue-mode=lazy,x-max-length=100000'. Replaces all previously parsed queue arguments, unsupported or malformed
+   * arguments are skipped.
+   *
+   * @param arguments
+   *          the queue arguments as given in the configuration file.
+   */
+  private void parseQueueArguments(String arguments)
+  {
+    this.setQueueMode(null);
+    this.setQueueMaxLength(0);
+    this.setQueueMaxLengthBytes(0);
+    this.setQueueOverflow(null);
+    this.setQueueMessageTtl(0);
+    this.setQueueDeadLetterExchange(null);
+    this.setQueueDeadLetterRoutingKey(null);
+
+    for (String argument : arguments.split(","))
+    {
+      String[] pair = argument.split("=", 2);
+      if (pair.length != 2 || !Validator.checkString(pair[0].trim()))
+      {
+        if (Validator.checkString(argument.trim()))
+        {
+          objMonitor.warn(Configuration.class, "Skipping queue argument '{}'. Expected the format 'name=value'.", argument.trim());
+        }
+        continue;
+      }
+
+      String name = pair[0].trim();
+      String value = pair[1].trim();
+      try
+      {
+        switch (name)
+        {
+          case "x-queue-mode":
+            this.setQueueMode(this.checkChoice(name, value, "default", "lazy"));
+            break;
+          case "x-max-length":
+            this.setQueueMaxLength(Long.parseLong(value));
+            break;
+          case "x-max-length-bytes":
+            this.setQueueMaxLengthBytes(Long.parseLong(value));
+            break;
+          case "x-overflow":
+            this.setQueueOverflow(this.checkChoice(name, value, "drop-head", "reject-publish", "reject-publish-dlx"));
+            break;
+          case "x-message-ttl":
+            this.setQueueMessageTtl(Long.parseLong(value));
+            break;
+          case "x-dead-letter-exchange":
+            this.setQueueDeadLetterExchange(value);
+            break;
+          case "x-dead-letter-routing-key":
+            this.setQueueDeadLetterRoutingKey(value);
+            break;
+          default:
+            objMonitor.warn(Configuration.class, "Skipping unsupported queue argument '{}'.", name);
+            break;
+        }
+      }
+      catch (NumberFormatException e)
+      {
+        objMonitor.warn(Configuration.class, "Skipping queue argument '{}'. The value '{}' is not a number.", name, value);
+      }
+    }
+  }
+
+  /**
+   * Checks a queue argument against the values the broker accepts.
+   *
+   * @param name
+   *          the name of the argument.
+   * @param value
+   *          the configured value.
+   * @param choices
+   *          the accepted values.
+   * @return the value, null if it is not accepted.
+   */
+  private String checkChoice(String name, String value, String... choices)
+  {
+    if (Arrays.asList(choices).contains(value))
+    {
+      return value;
+    }
+    objMonitor.warn(Configuration.class, "Skipping queue argument '{}'. The value '{}' is not one of {}.", name, value, choices);
+    return null;
+  }
+
+  /**
+   * Gets the arguments the queue is declared with.
+   *
+   * @return the arguments by name, empty if none are configured.
+   */
+  public Map<String, Object> getQueueArguments()
+  {
+    Map<String, Object> arguments = new HashMap<String, Object>();
+    if (this.getQueueMode() != null)
+    {
+      arguments.put("x-queue-mode", this.getQueueMode());
+    }
+    if (this.getQueueMaxLength() > 0)
+    {
+      arguments.put("x-max-length", this.getQueueMaxLength());
+    }
+    if (this.getQueueMaxLengthBytes() > 0)
+    {
+      arguments.put("x-max-length-bytes", this.getQueueMaxLengthBytes());
+    }
+    if (this.getQueueOverflow() != null)
+    {
+      arguments.put("x-overflow", this.getQueueOverflow());
+    }
+    if (this.getQueueMessageTtl() > 0)
+    {
+      arguments.put("x-message-ttl", this.getQueueMessageTtl());
+    }
+    if (this.getQueueDeadLetterExchange() != null)
+    {
+      arguments.put("x-dead-letter-exchange", this.getQueueDeadLetterExchange());
+    }
+    if (this.getQueueDeadLetterRoutingKey() != null)
+    {
+      arguments.put("x-dead-letter-routing-key", this.getQueueDeadLetterRoutingKey());
+    }
+    if (this.getQueueMaxPriority() > 0)
+    {
+      // Priorities above 9 are never send, a higher maximum only costs the broker extra sub-queues.
+      arguments.put("x-max-priority", Math.min(this.getQueueMaxPriority(), 9));
+    }
+    return arguments;
+  }
+
+  /**
+   * Sets the class name of the MessageCompressor used for large messages.
+   *
+   * @param messageCompressor
+   *          the fully qualified class name of the compressor.
+   */
+  public void setMessageCompressor(String messageCompressor)
+  {
+    this.strMessageCompressor = messageCompressor;
+  }
+
+  /**
+   * Gets the class name of the MessageCompressor used for large messages.
+   *
+   * @return the fully qualified class name of the compressor.
+   */
+  public String getMessageCompressor()
+  {
+    return this.strMessageCompressor;
+  }
+
+  /**
+   * Sets the body size from which messages are compressed.
+   *
+   * @param messageCompressThreshold
+   *          the size in bytes, 0 to never compress.
+   */
+  public void setMessageCompressThreshold(int messageCompressThreshold)
+  {
+    this.intMessageCompressThreshold = messageCompressThreshold;
+  }
+
+  /**
+   * Gets the body size from which messages are compressed.
+   *
+   * @return the size in bytes, 0 if messages are never compressed.
+   */
+  public int getMessageCompressThreshold()
+  {
+    return this.intMessageCompressThreshold;
+  }
+
+  /**
+   * Sets the size above which message bodies are split into chunks.
+   *
+   * @param messageChunkSize
+   *          the chunk size in bytes, 0 to never split messages.
+   */
+  public void setMessageChunkSize(int messageChunkSize)
+  {
+    this.intMessageChunkSize = messageChunkSize;
+  }
+
+  /**
+   * Gets the size above which message bodies are split into chunks.
+   *
+   * @return the chunk size in bytes, 0 if messages are never split.
+   */
+  public int getMessageChunkSize()
+  {
+    return this.intMessageChunkSize;
+  }
+
+  /**
+   * Sets the maximum amount of bytes held while reassembling chunked messages.
+   *
+   * @param messageChunkBuffer
+   *          the maximum size of the reassembly buffer in bytes.
+   */
+  public void setMessageChunkBuffer(int messageChunkBuffer)
+  {
+    this.intMessageChunkBuffer = messageChunkBuffer;
+  }
+
+  /**
+   * Gets the maximum amount of bytes held while reassembling chunked messages.
+   *
+   * @return the maximum size of the reassembly buffer in bytes.
+   */
+  public int getMessageChunkBuffer()
+  {
+    return this.intMessageChunkBuffer;
+  }
+
+  /**
+   * Sets the time a partially received chunked message is kept.
+   *
+   * @param messageChunkTimeout
+   *          the time in seconds before an incomplete message is thrown away.
+   */
+  public void setMessageChunkTimeout(int messageChunkTimeout)
+  {
+    this.intMessageChunkTimeout = messageChunkTimeout;
+  }
+
+  /**
+   * Gets the time a partially received chunked message is kept.
+   *
+   * @return the time in seconds before an incomplete message is thrown away.
+   */
+  public int getMessageChunkTimeout()
+  {
+    return this.intMessageChunkTimeout;
+  }
+
+  /**
+   * Sets the class name of the IdGenerator used for correlation ids.
+   *
+   * @param messageIdGenerator
+   *          the fully qualified class name of the generator.
+   */
+  public void setMessageIdGenerator(String messageIdGenerator)
+  {
+    this.strMessageIdGenerator = messageIdGenerator;
+  }
+
+  /**
+   * Gets the class name of the IdGenerator used for correlation ids.
+   *
+   * @return the fully qualified class name of the generator.
+   */
+  public String getMessageIdGenerator()
+  {
+    return this.strMessageIdGenerator;
+  }
+
 }
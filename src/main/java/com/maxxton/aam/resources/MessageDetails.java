@@ -1,5 +1,7 @@
 package com.maxxton.aam.resources;
 
+import java.util.function.Supplier;
+
 import com.maxxton.aam.messages.MessageType;
 
 /**
@@ -14,7 +16,8 @@ public class MessageDetails
   private final String strSender;
   private final String strReceiver;
   private final MessageType objMessageType;
-  private final Object objPayload;
+  private Object objPayload;
+  private Supplier<?> objPayloadSupplier;
 
   /**
    * Constructor for the MessageDetials class.
@@ -39,6 +42,28 @@ public class MessageDetails
     this.objPayload = payload;
   }
 
+  /**
+   * Creates the details of a message with a payload which is only decoded on first access.
+   * 
+   * @param responseId
+   *          identifier created by the sender of the message.
+   * @param sender
+   *          name of the sender of the message.
+   * @param receiver
+   *          name of the receiver of the message.
+   * @param messageType
+   *          type of the message received.
+   * @param payload
+   *          supplier which decodes the payload of the message.
+   * @return the details of the message.
+   */
+  public static MessageDetails lazy(String responseId, String sender, String receiver, MessageType messageType, Supplier<?> payload)
+  {
+    MessageDetails details = new MessageDetails(responseId, sender, receiver, messageType, null);
+    details.objPayloadSupplier = payload;
+    return details;
+  }
+
   /**
    * Gets the response identifier.
    *
@@ -80,12 +105,17 @@ public class MessageDetails
   }
 
   /**
-   * Gets the payload object.
+   * Gets the payload object. A lazy payload is decoded on the first call.
    *
    * @return the object located in the payload of the message.
    */
-  public Object getPayload()
+  public synchronized Object getPayload()
   {
+    if (this.objPayloadSupplier != null)
+    {
+      this.objPayload = this.objPayloadSupplier.get();
+      this.objPayloadSupplier = null;
+    }
     return this.objPayload;
   }
 }
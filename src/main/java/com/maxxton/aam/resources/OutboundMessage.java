@@ -0,0 +1,92 @@
+package com.maxxton.aam.resources;
+
+import com.maxxton.aam.messages.MessageType;
+
+/**
+ * Data holding class describing a message to be send as part of a batch.
+ *
+ * @author Robin Hermans
+ * @copyright Maxxton 2015
+ */
+public class OutboundMessage
+{
+  private final MessageType objMessageType;
+  private final String strReceiver;
+  private final Object objPayload;
+  private final String strResponseTo;
+
+  /**
+   * Constructor for the OutboundMessage class.
+   *
+   * @param messageType
+   *          type of the message to be send.
+   * @param receiver
+   *          name of the receiver of the message.
+   * @param payload
+   *          object to be placed in the payload of the message.
+   */
+  public OutboundMessage(MessageType messageType, String receiver, Object payload)
+  {
+    this(messageType, receiver, payload, null);
+  }
+
+  /**
+   * Constructor for the OutboundMessage class.
+   *
+   * @param messageType
+   *          type of the message to be send.
+   * @param receiver
+   *          name of the receiver of the message.
+   * @param payload
+   *          object to be placed in the payload of the message.
+   * @param responseTo
+   *          correlationId where the message is a response to.
+   */
+  public OutboundMessage(MessageType messageType, String receiver, Object payload, String responseTo)
+  {
+    this.objMessageType = messageType;
+    this.strReceiver = receiver;
+    this.objPayload = payload;
+    this.strResponseTo = responseTo;
+  }
+
+  /**
+   * Gets the message type.
+   *
+   * @return the MessageType of this message.
+   */
+  public MessageType getMessageType()
+  {
+    return this.objMessageType;
+  }
+
+  /**
+   * Gets the receiver of the message.
+   *
+   * @return the receiver of the message as string.
+   */
+  public String getReceiver()
+  {
+    return this.strReceiver;
+  }
+
+  /**
+   * Gets the payload object.
+   *
+   * @return the object to be placed in the payload of the message.
+   */
+  public Object getPayload()
+  {
+    return this.objPayload;
+  }
+
+  /**
+   * Gets the correlationId where the message is a response to.
+   *
+   * @return the correlationId as string or null.
+   */
+  public String getResponseTo()
+  {
+    return this.strResponseTo;
+  }
+}
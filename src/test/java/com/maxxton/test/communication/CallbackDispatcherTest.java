@@ -0,0 +1,526 @@
+package com.maxxton.test.communication;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+import com.maxxton.aam.communication.CallbackDispatcher;
+import com.maxxton.aam.messages.MessageType;
+import com.maxxton.aam.monitoring.Monitor;
+import com.maxxton.aam.monitoring.Monitor.DataType;
+import com.maxxton.aam.monitoring.MonitorFactory;
+import com.maxxton.aam.resources.Configuration;
+import com.maxxton.aam.resources.MessageDetails;
+
+/**
+ * Run a list of tests against the CallbackDispatcher class.
+ *
+ * @author Robin Hermans
+ * @copyright Maxxton 2015
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class CallbackDispatcherTest
+{
+  private Configuration objConfig;
+  private CallbackDispatcher objDispatcher;
+  private MessageDetails objDetails;
+
+  /**
+   * Setup method called before running the tests to construct the testing environment.
+   */
+  @Before
+  public void setup()
+  {
+    this.objConfig = new Configuration();
+    this.objConfig.setName("test");
+    this.objConfig.setDispatchThreads(1);
+    this.objDetails = new MessageDetails("123456789", "other", "test", MessageType.GENERATION_MESSAGE, "payload");
+  }
+
+  /**
+   * Test that inline dispatching calls the callback on the listener thread.
+   *
+   * @throws Exception
+   *           reason of failure given by the test.
+   */
+  @Test
+  public void testInline() throws Exception
+  {
+    System.out.print("CallbackDispatcher : Testing inline dispatching...");
+
+    this.objConfig.setDispatchMode("inline");
+    this.objDispatcher = new CallbackDispatcher(this.objConfig, MonitorFactory.getMonitor("test"));
+    AtomicReference<Thread> handler = new AtomicReference<Thread>();
+    this.objDispatcher.dispatch((MessageDetails details) -> handler.set(Thread.currentThread()), this.objDetails);
+    assertEquals("The callback should be called on the listener thread.", Thread.currentThread(), handler.get());
+
+    System.out.println("done.");
+  }
+
+  /**
+   * Test that a fixed pool calls the callback on a dispatch thread.
+   *
+   * @throws Exception
+   *           reason of failure given by the test.
+   */
+  @Test
+  public void testFixed() throws Exception
+  {
+    System.out.print("CallbackDispatcher : Testing dispatching to a fixed pool...");
+
+    this.objConfig.setDispatchMode("fixed");
+    this.objDispatcher = new CallbackDispatcher(this.objConfig, MonitorFactory.getMonitor("test"));
+    this.assertDispatchedOffThread();
+
+    System.out.println("done.");
+  }
+
+  /**
+   * Test that a work stealing pool calls the callback on a dispatch thread.
+   *
+   * @throws Exception
+   *           reason of failure given by the test.
+   */
+  @Test
+  public void testWorkStealing() throws Exception
+  {
+    System.out.print("CallbackDispatcher : Testing dispatching to a work stealing pool...");
+
+    this.objConfig.setDispatchMode("workstealing");
+    this.objDispatcher = new CallbackDispatcher(this.objConfig, MonitorFactory.getMonitor("test"));
+    this.assertDispatchedOffThread();
+
+    System.out.println("done.");
+  }
+
+  /**
+   * Test that a full bounded queue lets the listener thread call the callback.
+   *
+   * @throws Exception
+   *           reason of failure given by the test.
+   */
+  @Test
+  public void testBoundedCallerRuns() throws Exception
+  {
+    System.out.print("CallbackDispatcher : Testing a full bounded queue with caller runs...");
+
+    this.objConfig.setDispatchMode("bounded");
+    this.objConfig.setDispatchQueueSize(1);
+    this.objConfig.setDispatchRejection("callerruns");
+    this.objDispatcher = new CallbackDispatcher(this.objConfig, MonitorFactory.getMonitor("test"));
+
+    CountDownLatch release = this.fillBoundedQueue();
+    AtomicReference<Thread> handler = new AtomicReference<Thread>();
+    this.objDispatcher.dispatch((MessageDetails details) -> handler.set(Thread.currentThread()), this.objDetails);
+    assertEquals("A rejected message should be handled on the listener thread.", Thread.currentThread(), handler.get());
+    release.countDown();
+
+    System.out.println("done.");
+  }
+
+  /**
+   * Test that a full bounded queue throws away messages with the discard policy.
+   *
+   * @throws Exception
+   *           reason of failure given by the test.
+   */
+  @Test
+  public void testBoundedDiscard() throws Exception
+  {
+    System.out.print("CallbackDispatcher : Testing a full bounded queue with discard...");
+
+    this.objConfig.setDispatchMode("bounded");
+    this.objConfig.setDispatchQueueSize(1);
+    this.objConfig.setDispatchRejection("discard");
+    this.objDispatcher = new CallbackDispatcher(this.objConfig, MonitorFactory.getMonitor("test"));
+
+    CountDownLatch release = this.fillBoundedQueue();
+    AtomicInteger handled = new AtomicInteger(0);
+    this.objDispatcher.dispatch((MessageDetails details) -> handled.incrementAndGet(), this.objDetails);
+    release.countDown();
+    Thread.sleep(100);
+    assertEquals("A rejected message should not be handled.", 0, handled.get());
+
+    System.out.println("done.");
+  }
+
+  /**
+   * Test that a message dispatched to a shut down fixed pool is counted as discarded.
+   *
+   * @throws Exception
+   *           reason of failure given by the test.
+   */
+  @Test
+  public void testFixedShutdown() throws Exception
+  {
+    System.out.print("CallbackDispatcher : Testing dispatching to a shut down fixed pool...");
+
+    Monitor monitor = new Monitor("dispatchshutdown", true);
+    this.objConfig.setDispatchMode("fixed");
+    this.objDispatcher = new CallbackDispatcher(this.objConfig, monitor);
+    this.objDispatcher.shutdown();
+
+    AtomicInteger handled = new AtomicInteger(0);
+    this.objDispatcher.dispatch((MessageDetails details) -> handled.incrementAndGet(), this.objDetails);
+    assertEquals("A message dispatched after shutdown should not be handled.", 0, handled.get());
+    assertEquals("The dropped message should be counted as rejected.", 1, monitor.drainData(DataType.DISPATCH_REJECTED));
+    assertEquals("The dropped message should be counted as discarded.", 1, monitor.drainData(DataType.MESSAGE_DISCARDED));
+
+    System.out.println("done.");
+  }
+
+  /**
+   * Test that a full fixed pool blocks the listener thread until there is room.
+   *
+   * @throws Exception
+   *           reason of failure given by the test.
+   */
+  @Test
+  public void testFixedBlocking() throws Exception
+  {
+    System.out.print("CallbackDispatcher : Testing a full fixed pool...");
+
+    this.objConfig.setDispatchMode("fixed");
+    this.objConfig.setDispatchQueueSize(1);
+    this.objDispatcher = new CallbackDispatcher(this.objConfig, MonitorFactory.getMonitor("test"));
+
+    CountDownLatch release = this.fillBoundedQueue();
+    this.assertBlocksUntilReleased(release);
+
+    System.out.println("done.");
+  }
+
+  /**
+   * Test that a full work stealing pool blocks the listener thread until there is room.
+   *
+   * @throws Exception
+   *           reason of failure given by the test.
+   */
+  @Test
+  public void testWorkStealingBlocking() throws Exception
+  {
+    System.out.print("CallbackDispatcher : Testing a full work stealing pool...");
+
+    this.objConfig.setDispatchMode("workstealing");
+    this.objConfig.setDispatchQueueSize(1);
+    this.objDispatcher = new CallbackDispatcher(this.objConfig, MonitorFactory.getMonitor("test"));
+
+    // One message is being handled and one is waiting, which uses up the queue size and the dispatch thread.
+    CountDownLatch release = new CountDownLatch(1);
+    for (int i = 0; i < 2; i++)
+    {
+      this.objDispatcher.dispatch((MessageDetails details) -> {
+        try
+        {
+          release.await(5, TimeUnit.SECONDS);
+        }
+        catch (InterruptedException e)
+        {
+          Thread.currentThread().interrupt();
+        }
+      }, this.objDetails);
+    }
+    this.assertBlocksUntilReleased(release);
+
+    System.out.println("done.");
+  }
+
+  /**
+   * Test that a full ordered lane blocks the listener thread until there is room.
+   *
+   * @throws Exception
+   *           reason of failure given by the test.
+   */
+  @Test
+  public void testOrderedBlocking() throws Exception
+  {
+    System.out.print("CallbackDispatcher : Testing a full ordered lane...");
+
+    this.objConfig.setDispatchMode("ordered");
+    this.objConfig.setDispatchQueueSize(1);
+    this.objDispatcher = new CallbackDispatcher(this.objConfig, MonitorFactory.getMonitor("test"));
+
+    CountDownLatch release = this.fillBoundedQueue();
+    this.assertBlocksUntilReleased(release);
+
+    System.out.println("done.");
+  }
+
+  /**
+   * Test that concurrent listeners keep the messages of every sender in order while different senders are handled in parallel.
+   *
+   * @throws Exception
+   *           reason of failure given by the test.
+   */
+  @Test
+  public void testOrdered() throws Exception
+  {
+    System.out.print("CallbackDispatcher : Testing ordered dispatching under concurrency...");
+
+    this.objConfig.setDispatchMode("ordered");
+    this.objConfig.setDispatchThreads(4);
+    this.objConfig.setDispatchOrderKey("sender");
+    this.objDispatcher = new CallbackDispatcher(this.objConfig, MonitorFactory.getMonitor("test"));
+
+    final int listeners = 4;
+    final int sendersPerListener = 8;
+    final int perSender = 2000;
+    final Map<String, Integer> lastSequence = new ConcurrentHashMap<String, Integer>();
+    final Map<String, Thread> senderThreads = new ConcurrentHashMap<String, Thread>();
+    final Set<Thread> handlerThreads = ConcurrentHashMap.newKeySet();
+    final AtomicBoolean outOfOrder = new AtomicBoolean(false);
+    final CountDownLatch handled = new CountDownLatch(listeners * sendersPerListener * perSender);
+
+    ExecutorService executor = Executors.newFixedThreadPool(listeners);
+    for (int l = 0; l < listeners; l++)
+    {
+      final int listener = l;
+      executor.execute(() -> {
+        // Every listener receives the traffic of its own senders, interleaved.
+        for (int i = 0; i < perSender; i++)
+        {
+          for (int s = 0; s < sendersPerListener; s++)
+          {
+            MessageDetails details = new MessageDetails(null, "sender-" + listener + "-" + s, "test", MessageType.GENERATION_MESSAGE, i);
+            this.objDispatcher.dispatch((MessageDetails received) -> {
+              int sequence = (Integer) received.getPayload();
+              Integer previous = lastSequence.put(received.getSender(), sequence);
+              if ((previous == null ? -1 : previous) != sequence - 1)
+              {
+                outOfOrder.set(true);
+              }
+              Thread previousThread = senderThreads.putIfAbsent(received.getSender(), Thread.currentThread());
+              if (previousThread != null && previousThread != Thread.currentThread())
+              {
+                outOfOrder.set(true);
+              }
+              handlerThreads.add(Thread.currentThread());
+              handled.countDown();
+            }, details);
+          }
+        }
+      });
+    }
+
+    assertTrue("The messages were not handled in time.", handled.await(30, TimeUnit.SECONDS));
+    executor.shutdown();
+    assertFalse("The messages of a sender should be handled in order on a single lane.", outOfOrder.get());
+    assertEquals("Every sender should have been handled.", listeners * sendersPerListener, lastSequence.size());
+    assertTrue("Different senders should be handled in parallel.", handlerThreads.size() > 1);
+
+    System.out.println("done.");
+  }
+
+  /**
+   * Test several listener threads dispatching messages of the same sender. The messages are never handled at the same time and the messages of every listener keep their order, but the order
+   * between listeners is the order in which dispatch was called, so the ordered mode limits the listener to one consumer.
+   *
+   * @throws Exception
+   *           reason of failure given by the test.
+   */
+  @Test
+  public void testOrderedSameSender() throws Exception
+  {
+    System.out.print("CallbackDispatcher : Testing ordered dispatching of one sender by several listeners...");
+
+    this.objConfig.setDispatchMode("ordered");
+    this.objConfig.setDispatchThreads(4);
+    this.objConfig.setDispatchOrderKey("sender");
+    this.objDispatcher = new CallbackDispatcher(this.objConfig, MonitorFactory.getMonitor("test"));
+
+    assertEquals("The ordered mode should allow a single consumer.", 1, this.objDispatcher.limitConsumers(4));
+    assertEquals("A single consumer should be kept.", 1, this.objDispatcher.limitConsumers(1));
+
+    final int listeners = 4;
+    final int perListener = 2000;
+    final int[] lastSequence = new int[listeners];
+    final AtomicInteger running = new AtomicInteger(0);
+    final AtomicBoolean overlapped = new AtomicBoolean(false);
+    final AtomicBoolean outOfOrder = new AtomicBoolean(false);
+    final CountDownLatch handled = new CountDownLatch(listeners * perListener);
+    Arrays.fill(lastSequence, -1);
+
+    ExecutorService executor = Executors.newFixedThreadPool(listeners);
+    for (int l = 0; l < listeners; l++)
+    {
+      final int listener = l;
+      executor.execute(() -> {
+        for (int i = 0; i < perListener; i++)
+        {
+          MessageDetails details = new MessageDetails(null, "sender", "test", MessageType.GENERATION_MESSAGE, new int[] { listener, i });
+          this.objDispatcher.dispatch((MessageDetails received) -> {
+            if (running.incrementAndGet() > 1)
+            {
+              overlapped.set(true);
+            }
+            int[] sequence = (int[]) received.getPayload();
+            if (lastSequence[sequence[0]] != sequence[1] - 1)
+            {
+              outOfOrder.set(true);
+            }
+            lastSequence[sequence[0]] = sequence[1];
+            running.decrementAndGet();
+            handled.countDown();
+          }, details);
+        }
+      });
+    }
+
+    assertTrue("The messages were not handled in time.", handled.await(30, TimeUnit.SECONDS));
+    executor.shutdown();
+    assertFalse("The messages of a sender should never be handled at the same time.", overlapped.get());
+    assertFalse("The messages of every listener should keep their order.", outOfOrder.get());
+
+    System.out.println("done.");
+  }
+
+  /**
+   * Test that the other modes keep the configured amount of consumers.
+   *
+   * @throws Exception
+   *           reason of failure given by the test.
+   */
+  @Test
+  public void testConsumers() throws Exception
+  {
+    System.out.print("CallbackDispatcher : Testing the amount of consumers...");
+
+    this.objConfig.setDispatchMode("fixed");
+    this.objDispatcher = new CallbackDispatcher(this.objConfig, MonitorFactory.getMonitor("test"));
+    assertEquals("The fixed mode should keep the consumers.", 4, this.objDispatcher.limitConsumers(4));
+
+    System.out.println("done.");
+  }
+
+  /**
+   * Test that a custom key extractor decides the lanes.
+   *
+   * @throws Exception
+   *           reason of failure given by the test.
+   */
+  @Test
+  public void testOrderedKeyExtractor() throws Exception
+  {
+    System.out.print("CallbackDispatcher : Testing ordered dispatching with a key extractor...");
+
+    this.objConfig.setDispatchMode("ordered");
+    this.objConfig.setDispatchThreads(4);
+    this.objDispatcher = new CallbackDispatcher(this.objConfig, MonitorFactory.getMonitor("test"));
+    this.objDispatcher.setKeyExtractor((MessageDetails details) -> "same");
+
+    final Set<Thread> handlerThreads = ConcurrentHashMap.newKeySet();
+    final CountDownLatch handled = new CountDownLatch(100);
+    for (int i = 0; i < 100; i++)
+    {
+      MessageDetails details = new MessageDetails(null, "sender-" + i, "test", MessageType.GENERATION_MESSAGE, i);
+      this.objDispatcher.dispatch((MessageDetails received) -> {
+        handlerThreads.add(Thread.currentThread());
+        handled.countDown();
+      }, details);
+    }
+
+    assertTrue("The messages were not handled in time.", handled.await(5, TimeUnit.SECONDS));
+    assertEquals("Messages with the same key should share a single lane.", 1, handlerThreads.size());
+
+    System.out.println("done.");
+  }
+
+  /**
+   * Dispatches a message and checks it was handled on another thread.
+   *
+   * @throws Exception
+   *           reason of failure given by the test.
+   */
+  private void assertDispatchedOffThread() throws Exception
+  {
+    CountDownLatch latch = new CountDownLatch(1);
+    AtomicReference<Thread> handler = new AtomicReference<Thread>();
+    this.objDispatcher.dispatch((MessageDetails details) -> {
+      handler.set(Thread.currentThread());
+      latch.countDown();
+    }, this.objDetails);
+    assertTrue("The callback was not called in time.", latch.await(5, TimeUnit.SECONDS));
+    assertNotEquals("The callback should not be called on the listener thread.", Thread.currentThread(), handler.get());
+  }
+
+  /**
+   * Dispatches a message from another listener thread and checks it waits until the full queue is released.
+   *
+   * @param release
+   *          the latch releasing the blocked dispatch thread.
+   * @throws Exception
+   *           reason of failure given by the test.
+   */
+  private void assertBlocksUntilReleased(CountDownLatch release) throws Exception
+  {
+    CountDownLatch dispatched = new CountDownLatch(1);
+    CountDownLatch handled = new CountDownLatch(1);
+    Thread listener = new Thread(() -> {
+      this.objDispatcher.dispatch((MessageDetails details) -> handled.countDown(), this.objDetails);
+      dispatched.countDown();
+    });
+    listener.start();
+
+    assertFalse("The listener should wait while the queue is full.", dispatched.await(200, TimeUnit.MILLISECONDS));
+    release.countDown();
+    assertTrue("The listener should continue once the queue has room.", dispatched.await(5, TimeUnit.SECONDS));
+    assertTrue("The waiting message should be handled.", handled.await(5, TimeUnit.SECONDS));
+  }
+
+  /**
+   * Blocks the single dispatch thread and fills the queue behind it.
+   *
+   * @return the latch releasing the blocked dispatch thread.
+   * @throws Exception
+   *           reason of failure given by the test.
+   */
+  private CountDownLatch fillBoundedQueue() throws Exception
+  {
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    this.objDispatcher.dispatch((MessageDetails details) -> {
+      started.countDown();
+      try
+      {
+        release.await(5, TimeUnit.SECONDS);
+      }
+      catch (InterruptedException e)
+      {
+        Thread.currentThread().interrupt();
+      }
+    }, this.objDetails);
+    assertTrue("The dispatch thread did not start in time.", started.await(5, TimeUnit.SECONDS));
+    this.objDispatcher.dispatch((MessageDetails details) -> {
+    }, this.objDetails);
+    assertEquals("The queue should be full.", 1, this.objDispatcher.getQueueDepth());
+    return release;
+  }
+
+  /**
+   * Cleanup method called after running the test.
+   */
+  @After
+  public void cleanup()
+  {
+    this.objDispatcher.shutdown();
+  }
+}
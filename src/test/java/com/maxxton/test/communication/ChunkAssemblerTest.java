@@ -0,0 +1,192 @@
+package com.maxxton.test.communication;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+
+import com.maxxton.aam.communication.ChunkAssembler;
+import com.maxxton.aam.communication.MessageHeaders;
+
+/**
+ * Run a list of tests against the ChunkAssembler class.
+ *
+ * @author Robin Hermans
+ * @copyright Maxxton 2015
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class ChunkAssemblerTest
+{
+  private ChunkAssembler objAssembler;
+  private byte[] arrBody;
+
+  /**
+   * Setup method called before running the tests to construct the testing environment.
+   */
+  @Before
+  public void setup()
+  {
+    this.objAssembler = new ChunkAssembler(1024, 60);
+    this.arrBody = new byte[250];
+    for (int i = 0; i < this.arrBody.length; i++)
+    {
+      this.arrBody[i] = (byte) i;
+    }
+  }
+
+  /**
+   * Test reassembling chunks which arrive out of order.
+   *
+   * @throws Exception
+   *           reason of failure given by the test.
+   */
+  @Test
+  public void testReassemble() throws Exception
+  {
+    System.out.print("ChunkAssembler : Testing reassembling chunks out of order...");
+
+    List<Message> chunks = this.split("123456789", "sender", this.arrBody, 100);
+    assertEquals("The body should be split in three chunks.", 3, chunks.size());
+    assertNull("The message is not complete yet.", this.objAssembler.add("123456789", chunks.get(2)));
+    assertNull("The message is not complete yet.", this.objAssembler.add("123456789", chunks.get(0)));
+    assertNull("A duplicate chunk should be ignored.", this.objAssembler.add("123456789", chunks.get(0)));
+    assertEquals("The whole body and the chunk flags should be reserved.", this.arrBody.length + chunks.size(), this.objAssembler.getBufferedBytes());
+
+    Message message = this.objAssembler.add("123456789", chunks.get(1));
+    assertNotNull("The message should be complete.", message);
+    assertArrayEquals("The reassembled body should equal the original.", this.arrBody, message.getBody());
+    assertEquals("The envelope headers should be kept.", "sender", MessageHeaders.getSender(message.getMessageProperties()));
+    assertFalse("The chunk headers should be removed.", MessageHeaders.isChunk(message.getMessageProperties()));
+    assertEquals("The assembler should be empty.", 0, this.objAssembler.size());
+    assertEquals("The buffer should be released.", 0, this.objAssembler.getBufferedBytes());
+
+    System.out.println("done.");
+  }
+
+  /**
+   * Test that chunks of different senders with the same correlation id are kept apart.
+   *
+   * @throws Exception
+   *           reason of failure given by the test.
+   */
+  @Test
+  public void testSenders() throws Exception
+  {
+    System.out.print("ChunkAssembler : Testing chunks of different senders...");
+
+    List<Message> first = this.split("123456789", "first", this.arrBody, 200);
+    List<Message> second = this.split("123456789", "second", new byte[300], 200);
+    assertNull("The message is not complete yet.", this.objAssembler.add("123456789", first.get(0)));
+    assertNull("The message is not complete yet.", this.objAssembler.add("123456789", second.get(0)));
+    assertEquals("Both messages should be reassembled.", 2, this.objAssembler.size());
+    assertArrayEquals("The first message should be complete.", this.arrBody, this.objAssembler.add("123456789", first.get(1)).getBody());
+
+    System.out.println("done.");
+  }
+
+  /**
+   * Test that messages which do not fit in the buffer are thrown away.
+   *
+   * @throws Exception
+   *           reason of failure given by the test.
+   */
+  @Test
+  public void testBufferFull() throws Exception
+  {
+    System.out.print("ChunkAssembler : Testing a full reassembly buffer...");
+
+    List<Message> large = this.split("large", "sender", new byte[900], 300);
+    List<Message> other = this.split("other", "sender", this.arrBody, 100);
+    assertNull("The message is not complete yet.", this.objAssembler.add("large", large.get(0)));
+    assertNull("The message does not fit in the buffer.", this.objAssembler.add("other", other.get(0)));
+    assertEquals("Only the first message should be reassembled.", 1, this.objAssembler.size());
+
+    MessageProperties invalid = new MessageProperties();
+    MessageHeaders.writeChunk(invalid, 3, 3, 0, 100);
+    assertNull("A chunk with invalid headers should be thrown away.", this.objAssembler.add("invalid", new Message(new byte[10], invalid)));
+    assertEquals("The invalid chunk should not be reassembled.", 1, this.objAssembler.size());
+
+    MessageProperties huge = new MessageProperties();
+    MessageHeaders.writeChunk(huge, 0, Integer.MAX_VALUE, 0, 100);
+    assertNull("A chunk count larger than the body should be thrown away.", this.objAssembler.add("huge", new Message(new byte[10], huge)));
+    assertEquals("The huge chunk count should not be reassembled.", 1, this.objAssembler.size());
+
+    System.out.println("done.");
+  }
+
+  /**
+   * Test that incomplete messages are thrown away after the timeout.
+   *
+   * @throws Exception
+   *           reason of failure given by the test.
+   */
+  @Test
+  public void testExpire() throws Exception
+  {
+    System.out.print("ChunkAssembler : Testing expiring incomplete messages...");
+
+    this.objAssembler.setTimeout(1);
+    List<Message> chunks = this.split("123456789", "sender", this.arrBody, 100);
+    this.objAssembler.add("123456789", chunks.get(0));
+    assertEquals("The message should not expire yet.", 0, this.objAssembler.expire());
+
+    Thread.sleep(1100);
+    assertEquals("The message should have expired.", 1, this.objAssembler.expire());
+    assertEquals("The buffer should be released.", 0, this.objAssembler.getBufferedBytes());
+    assertNull("A late chunk should start a new message.", this.objAssembler.add("123456789", chunks.get(1)));
+    assertEquals("Only the late chunk should be reassembled.", 1, this.objAssembler.size());
+
+    System.out.println("done.");
+  }
+
+  /**
+   * Splits a body into chunks the way a sending messenger does.
+   *
+   * @param correlationId
+   *          the correlation id of the message.
+   * @param sender
+   *          the sender of the message.
+   * @param body
+   *          the body to be split.
+   * @param chunkSize
+   *          the maximum size of a chunk.
+   * @return the chunks in sequence.
+   */
+  private List<Message> split(String correlationId, String sender, byte[] body, int chunkSize)
+  {
+    int count = (body.length - 1) / chunkSize + 1;
+    List<Message> chunks = new ArrayList<Message>(count);
+    for (int index = 0; index < count; index++)
+    {
+      int offset = index * chunkSize;
+      MessageProperties properties = new MessageProperties();
+      properties.setCorrelationId(correlationId.getBytes());
+      properties.setHeader(MessageHeaders.SENDER, sender);
+      MessageHeaders.writeChunk(properties, index, count, offset, body.length);
+      chunks.add(new Message(Arrays.copyOfRange(body, offset, Math.min(offset + chunkSize, body.length)), properties));
+    }
+    return chunks;
+  }
+
+  /**
+   * Cleanup method called after running the test.
+   */
+  @After
+  public void cleanup()
+  {
+    this.objAssembler.clear();
+  }
+}
@@ -2,6 +2,11 @@ package com.maxxton.test.communication;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 
 import org.junit.After;
 import org.junit.Before;
@@ -114,6 +119,33 @@ public class CommunicationControllerTest
     System.out.println("done.");
   }
 
+  /**
+   * Test that a message with a payload which cannot be serialized is reported as not send.
+   *
+   * @throws Exception
+   *           reason of failure given by the test.
+   */
+  @Test
+  public void testSendUnserializable() throws Exception
+  {
+    System.out.print("CommunicationController : Testing sending an unserializable payload...");
+
+    BaseMessage msgTest = new GenerationMessage();
+    msgTest.setPayload(new Object());
+
+    assertNull("An unserializable message cannot be send.", this.objCommunication.packAndSend("other", msgTest));
+    assertNull("An unserializable message cannot be send asynchronously.", this.objCommunication.packAndSendAsync("other", msgTest, null).get());
+    assertNull("An unserializable message cannot be requested.", this.objCommunication.packAndRequest("other", msgTest, 1000).get());
+
+    BaseMessage msgValid = new GenerationMessage();
+    msgValid.setPayload("Hello World");
+    List<String> uuids = this.objCommunication.packAndSend(Arrays.asList("other", "other"), Arrays.asList(msgTest, msgValid), Collections.<String> nCopies(2, null));
+    assertEquals("Every message of the batch should have an outcome.", 2, uuids.size());
+    assertNull("An unserializable message of a batch cannot be send.", uuids.get(0));
+
+    System.out.println("done.");
+  }
+
   /**
    * Static method called after running the test to cleanup.
    */
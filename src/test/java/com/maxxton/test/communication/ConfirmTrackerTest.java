@@ -0,0 +1,141 @@
+package com.maxxton.test.communication;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+import org.springframework.amqp.rabbit.support.CorrelationData;
+
+import com.maxxton.aam.communication.ConfirmTracker;
+
+/**
+ * Run a list of tests against the ConfirmTracker class.
+ *
+ * @author Robin Hermans
+ * @copyright Maxxton 2015
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class ConfirmTrackerTest
+{
+
+  private ConfirmTracker objTracker;
+
+  /**
+   * Setup method called before running the tests to construct the testing environment.
+   */
+  @Before
+  public void setup()
+  {
+    this.objTracker = new ConfirmTracker(1);
+  }
+
+  /**
+   * Test completing futures by positive and negative confirms.
+   *
+   * @throws Exception
+   *           reason of failure given by the test.
+   */
+  @Test
+  public void testConfirm() throws Exception
+  {
+    System.out.print("ConfirmTracker : Testing positive and negative confirms...");
+
+    CompletableFuture<Boolean> acked = new CompletableFuture<Boolean>();
+    CorrelationData correlation = this.objTracker.register(acked);
+    assertNotNull("The correlation data cannot be null.", correlation);
+    assertEquals("There should be one pending confirm.", 1, this.objTracker.getPendingCount());
+
+    this.objTracker.confirm(correlation, true, null);
+    assertTrue("The future should be completed by the confirm.", acked.get(1, TimeUnit.SECONDS));
+    assertEquals("There should be no pending confirms.", 0, this.objTracker.getPendingCount());
+
+    CompletableFuture<Boolean> nacked = new CompletableFuture<Boolean>();
+    correlation = this.objTracker.register(nacked);
+    this.objTracker.confirm(correlation, false, "test");
+    assertTrue("The future should be completed exceptionally.", nacked.isCompletedExceptionally());
+
+    System.out.println("done.");
+  }
+
+  /**
+   * Test that the acknowledgement of a returned message fails its future.
+   *
+   * @throws Exception
+   *           reason of failure given by the test.
+   */
+  @Test
+  public void testReturned() throws Exception
+  {
+    System.out.print("ConfirmTracker : Testing confirms of returned messages...");
+
+    CompletableFuture<Boolean> returned = new CompletableFuture<Boolean>();
+    CorrelationData correlation = this.objTracker.register(returned);
+    this.objTracker.returned(correlation.getId());
+    this.objTracker.confirm(correlation, true, null);
+    assertTrue("The future of a returned message should be completed exceptionally.", returned.isCompletedExceptionally());
+    assertEquals("There should be no pending confirms.", 0, this.objTracker.getPendingCount());
+
+    this.objTracker.returned("unknown");
+    CompletableFuture<Boolean> acked = new CompletableFuture<Boolean>();
+    correlation = this.objTracker.register(acked);
+    this.objTracker.confirm(correlation, true, null);
+    assertTrue("A return of an unknown message should not affect others.", acked.get(1, TimeUnit.SECONDS));
+
+    System.out.println("done.");
+  }
+
+  /**
+   * Test that a producer has to wait while the maximum of unconfirmed messages is reached.
+   *
+   * @throws Exception
+   *           reason of failure given by the test.
+   */
+  @Test
+  public void testMaxPending() throws Exception
+  {
+    System.out.print("ConfirmTracker : Testing the maximum of unconfirmed messages...");
+
+    CorrelationData first = this.objTracker.register(new CompletableFuture<Boolean>());
+
+    CountDownLatch registered = new CountDownLatch(1);
+    Thread producer = new Thread(() -> {
+      try
+      {
+        objTracker.register(new CompletableFuture<Boolean>());
+        registered.countDown();
+      }
+      catch (InterruptedException e)
+      {
+        Thread.currentThread().interrupt();
+      }
+    });
+    producer.start();
+
+    assertFalse("The producer should wait for a confirm.", registered.await(100, TimeUnit.MILLISECONDS));
+
+    this.objTracker.confirm(first, true, null);
+    assertTrue("The producer should continue after a confirm.", registered.await(1, TimeUnit.SECONDS));
+
+    System.out.println("done.");
+  }
+
+  /**
+   * Cleanup method called after running the test.
+   */
+  @After
+  public void cleanup()
+  {
+
+  }
+
+}
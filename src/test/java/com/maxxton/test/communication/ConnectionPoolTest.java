@@ -0,0 +1,142 @@
+package com.maxxton.test.communication;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+import org.springframework.amqp.rabbit.connection.CachingConnectionFactory;
+
+import com.maxxton.aam.communication.ConnectionPool;
+import com.maxxton.aam.resources.Configuration;
+
+/**
+ * Run a list of tests against the ConnectionPool class.
+ *
+ * @author Robin Hermans
+ * @copyright Maxxton 2015
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class ConnectionPoolTest
+{
+  private ConnectionPool objPool;
+
+  /**
+   * Setup method called before running the tests to construct the testing environment.
+   */
+  @Before
+  public void setup()
+  {
+    this.objPool = new ConnectionPool();
+  }
+
+  /**
+   * Test sharing a single connection between all messengers.
+   *
+   * @throws Exception
+   *           reason of failure given by the test.
+   */
+  @Test
+  public void testSharingJvm() throws Exception
+  {
+    System.out.print("ConnectionPool : Testing a connection per JVM...");
+
+    CachingConnectionFactory first = this.objPool.borrow(this.createConfiguration("test", "jvm"), ConnectionPool.ROLE_PUBLISH);
+    CachingConnectionFactory second = this.objPool.borrow(this.createConfiguration("other", "jvm"), ConnectionPool.ROLE_CONSUME);
+    assertSame("All messengers should share the connection.", first, second);
+    assertTrue("A shared connection should confirm publishes.", first.isPublisherConfirms());
+    assertEquals("The pool should hold a single connection.", 1, this.objPool.size());
+
+    System.out.println("done.");
+  }
+
+  /**
+   * Test sharing a connection between the sender and receiver of a messenger.
+   *
+   * @throws Exception
+   *           reason of failure given by the test.
+   */
+  @Test
+  public void testSharingMessenger() throws Exception
+  {
+    System.out.print("ConnectionPool : Testing a connection per messenger...");
+
+    CachingConnectionFactory publish = this.objPool.borrow(this.createConfiguration("test", "messenger"), ConnectionPool.ROLE_PUBLISH);
+    CachingConnectionFactory consume = this.objPool.borrow(this.createConfiguration("test", "messenger"), ConnectionPool.ROLE_CONSUME);
+    CachingConnectionFactory other = this.objPool.borrow(this.createConfiguration("other", "messenger"), ConnectionPool.ROLE_PUBLISH);
+    assertSame("The sender and receiver should share the connection.", publish, consume);
+    assertNotSame("Other messengers should use their own connection.", publish, other);
+    assertEquals("The pool should hold a connection per messenger.", 2, this.objPool.size());
+
+    System.out.println("done.");
+  }
+
+  /**
+   * Test sharing one connection for publishing and one for consuming.
+   *
+   * @throws Exception
+   *           reason of failure given by the test.
+   */
+  @Test
+  public void testSharingSplit() throws Exception
+  {
+    System.out.print("ConnectionPool : Testing a connection for publishing and one for consuming...");
+
+    CachingConnectionFactory publish = this.objPool.borrow(this.createConfiguration("test", "split"), ConnectionPool.ROLE_PUBLISH);
+    CachingConnectionFactory otherPublish = this.objPool.borrow(this.createConfiguration("other", "split"), ConnectionPool.ROLE_PUBLISH);
+    CachingConnectionFactory consume = this.objPool.borrow(this.createConfiguration("test", "split"), ConnectionPool.ROLE_CONSUME);
+    assertSame("Publishers should share the connection.", publish, otherPublish);
+    assertNotSame("Consumers should not use the publishing connection.", publish, consume);
+    assertTrue("The publishing connection should confirm publishes.", publish.isPublisherConfirms());
+    assertFalse("The consuming connection does not need publisher confirms.", consume.isPublisherConfirms());
+
+    System.out.println("done.");
+  }
+
+  /**
+   * Test that a connection is only closed once the last borrower released it.
+   *
+   * @throws Exception
+   *           reason of failure given by the test.
+   */
+  @Test
+  public void testRelease() throws Exception
+  {
+    System.out.print("ConnectionPool : Testing releasing connections...");
+
+    CachingConnectionFactory first = this.objPool.borrow(this.createConfiguration("test", "jvm"), ConnectionPool.ROLE_PUBLISH);
+    CachingConnectionFactory second = this.objPool.borrow(this.createConfiguration("other", "jvm"), ConnectionPool.ROLE_PUBLISH);
+
+    this.objPool.release(first);
+    assertEquals("The connection is still borrowed.", 1, this.objPool.size());
+    this.objPool.release(second);
+    assertEquals("The connection should be closed after the last release.", 0, this.objPool.size());
+
+    CachingConnectionFactory third = this.objPool.borrow(this.createConfiguration("test", "jvm"), ConnectionPool.ROLE_PUBLISH);
+    assertNotSame("A closed connection should not be handed out again.", first, third);
+
+    System.out.println("done.");
+  }
+
+  /**
+   * Creates the configuration of a messenger.
+   *
+   * @param name
+   *          the messenger name.
+   * @param sharing
+   *          the connection sharing mode.
+   * @return the configuration.
+   */
+  private Configuration createConfiguration(String name, String sharing)
+  {
+    Configuration config = new Configuration();
+    config.setName(name);
+    config.setConnectionSharing(sharing);
+    return config;
+  }
+}
@@ -0,0 +1,183 @@
+package com.maxxton.test.communication;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+import com.maxxton.aam.communication.CorrelationIndex;
+
+/**
+ * Run a list of tests against the CorrelationIndex class.
+ *
+ * @author Robin Hermans
+ * @copyright Maxxton 2015
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class CorrelationIndexTest
+{
+  private CorrelationIndex<String> objIndex;
+
+  /**
+   * Setup method called before running the tests to construct the testing environment.
+   */
+  @Before
+  public void setup()
+  {
+    this.objIndex = new CorrelationIndex<String>(0);
+  }
+
+  /**
+   * Test putting, getting and removing values.
+   *
+   * @throws Exception
+   *           reason of failure given by the test.
+   */
+  @Test
+  public void testPutGetRemove() throws Exception
+  {
+    System.out.print("CorrelationIndex : Testing put, get and remove...");
+
+    this.objIndex.put("one", "first");
+    this.objIndex.put("two", "second");
+    assertEquals("The index should contain two values.", 2, this.objIndex.size());
+    assertEquals("The value was not found by its id.", "first", this.objIndex.get(new String("one")));
+    assertTrue("The id should be contained.", this.objIndex.contains("two"));
+    assertFalse("An unknown id should not be contained.", this.objIndex.contains("three"));
+
+    assertFalse("A different value should not be removed.", this.objIndex.remove("one", "second"));
+    assertTrue("The matching value should be removed.", this.objIndex.remove("one", "first"));
+    assertEquals("The removed value should be returned.", "second", this.objIndex.remove("two"));
+    assertNull("A missing id should return null.", this.objIndex.remove("two"));
+    assertEquals("The index should be empty.", 0, this.objIndex.size());
+
+    System.out.println("done.");
+  }
+
+  /**
+   * Test trimming the oldest entries above the maximum.
+   *
+   * @throws Exception
+   *           reason of failure given by the test.
+   */
+  @Test
+  public void testTrimming() throws Exception
+  {
+    System.out.print("CorrelationIndex : Testing trimming of the oldest entries...");
+
+    for (int i = 0; i < 10; i++)
+    {
+      this.objIndex.put("id" + i, "value" + i);
+    }
+    this.objIndex.remove("id0");
+
+    assertEquals("Five entries should have been trimmed.", 4, this.objIndex.expire(5));
+    assertEquals("The index should contain five values.", 5, this.objIndex.size());
+    assertFalse("The oldest entries should be trimmed.", this.objIndex.contains("id4"));
+    assertTrue("The newest entries should be kept.", this.objIndex.contains("id5"));
+    assertTrue("The newest entries should be kept.", this.objIndex.contains("id9"));
+
+    System.out.println("done.");
+  }
+
+  /**
+   * Test the expiry of entries after their time to live.
+   *
+   * @throws Exception
+   *           reason of failure given by the test.
+   */
+  @Test
+  public void testExpiry() throws Exception
+  {
+    System.out.print("CorrelationIndex : Testing expiry of entries...");
+
+    this.objIndex.setTimeToLive(1);
+    this.objIndex.put("old", "value");
+    assertTrue("A fresh entry should be contained.", this.objIndex.contains("old"));
+
+    Thread.sleep(1100);
+    this.objIndex.put("new", "value");
+    assertFalse("An expired entry should not be returned.", this.objIndex.contains("old"));
+
+    this.objIndex.put("old", "value");
+    Thread.sleep(1100);
+    this.objIndex.put("newest", "value");
+    assertEquals("The expired entries should be removed.", 2, this.objIndex.expire(Integer.MAX_VALUE));
+    assertEquals("Only the newest entry should be left.", 1, this.objIndex.size());
+
+    System.out.println("done.");
+  }
+
+  /**
+   * Test concurrent producers and consumers.
+   *
+   * @throws Exception
+   *           reason of failure given by the test.
+   */
+  @Test
+  public void testConcurrency() throws Exception
+  {
+    System.out.print("CorrelationIndex : Testing concurrent producers and consumers...");
+
+    final int threads = 4;
+    final int perThread = 10000;
+    final AtomicInteger removed = new AtomicInteger(0);
+    final CountDownLatch latch = new CountDownLatch(threads * 2);
+    ExecutorService executor = Executors.newFixedThreadPool(threads * 2);
+    for (int t = 0; t < threads; t++)
+    {
+      final int thread = t;
+      executor.execute(() -> {
+        for (int i = 0; i < perThread; i++)
+        {
+          objIndex.put(thread + "-" + i, "value");
+        }
+        latch.countDown();
+      });
+      executor.execute(() -> {
+        int i = 0;
+        while (i < perThread)
+        {
+          if (objIndex.remove(thread + "-" + i) != null)
+          {
+            removed.incrementAndGet();
+            i++;
+          }
+        }
+        latch.countDown();
+      });
+    }
+
+    assertTrue("The producers and consumers did not finish in time.", latch.await(30, TimeUnit.SECONDS));
+    executor.shutdown();
+    assertEquals("Every value should have been removed once.", threads * perThread, removed.get());
+    assertEquals("The index should be empty.", 0, this.objIndex.size());
+
+    this.objIndex.expire(0);
+    this.objIndex.put("last", "value");
+    assertEquals("The remaining entry should be kept.", 0, this.objIndex.expire(1));
+
+    System.out.println("done.");
+  }
+
+  /**
+   * Cleanup method called after running the test.
+   */
+  @After
+  public void cleanup()
+  {
+    this.objIndex.clear();
+  }
+}
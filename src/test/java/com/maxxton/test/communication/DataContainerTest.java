@@ -4,12 +4,20 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.junit.After;
 import org.junit.Before;
@@ -19,7 +27,12 @@ import org.junit.runners.MethodSorters;
 import org.springframework.amqp.core.Message;
 import org.springframework.amqp.core.MessageProperties;
 
+import com.maxxton.aam.communication.CorrelationIndex;
 import com.maxxton.aam.communication.DataContainer;
+import com.maxxton.aam.communication.MessageHeaders;
+import com.maxxton.aam.messages.MessageType;
+import com.maxxton.aam.resources.MessageDetails;
+import com.maxxton.aam.resources.Resources;
 
 /**
  * Run a list of tests against the DataContainer class.
@@ -98,13 +111,10 @@ public class DataContainerTest
   {
     System.out.print("DataContainer : Testing if an id is owned by the datacontainer...");
 
-    ConcurrentSkipListMap<Integer, String> ids = new ConcurrentSkipListMap<Integer, String>();
     String idOne = "0123456789";
     String idTwo = "9876543210";
-    ids.put(0, idOne);
-    ids.put(1, idTwo);
-
-    this.objContainer.setIdentifiers(ids);
+    this.objContainer.addIdentifier(idOne);
+    this.objContainer.addIdentifier(idTwo);
 
     boolean owned = this.objContainer.isOwnedByMe(idOne);
     assertTrue("The id should be owned by the datacontainer class.", owned);
@@ -130,33 +140,30 @@ public class DataContainerTest
   {
     System.out.print("DataContainer : Testing getting, setting and removal of identifiers..");
 
-    ConcurrentSkipListMap<Integer, String> ids = new ConcurrentSkipListMap<Integer, String>();
-    ConcurrentSkipListMap<Integer, String> alterIds = new ConcurrentSkipListMap<Integer, String>();
-    for (int i = 0; i < 10; i++)
+    CorrelationIndex<String> ids = new CorrelationIndex<String>(0);
+    String[] uuids = new String[10];
+    for (int i = 0; i < uuids.length; i++)
     {
-      String uuid = this.objContainer.getUniqueId();
-      ids.put(i, uuid);
-      alterIds.put(i, uuid);
+      uuids[i] = UUID.randomUUID().toString();
+      ids.put(uuids[i], uuids[i]);
     }
 
     this.objContainer.setIdentifiers(ids);
-    ConcurrentSkipListMap<Integer, String> idsOther = this.objContainer.getIdentifiers();
+    CorrelationIndex<String> idsOther = this.objContainer.getIdentifiers();
 
     assertNotNull("The set with identifiers cannot be Null", idsOther);
     assertEquals("The sets with ids are not the same.", ids, idsOther);
+    assertEquals("The amount of identifiers is not the same.", uuids.length, idsOther.size());
 
-    // Testing removal
-    String removedId = ids.get(0);
-    ids.remove(0);
-    this.objContainer.removeIdentifier(removedId);
+    // Testing removal, using an equal but not identical string.
+    this.objContainer.removeIdentifier(new String(uuids[0]));
 
     idsOther = this.objContainer.getIdentifiers();
 
     assertNotNull("The set with identifiers cannot be Null", idsOther);
-    assertNotEquals("The sets with identifiers are not the same.", alterIds, idsOther);
-
-    alterIds.remove(0);
-    assertEquals("The sets with identifiers are not the same.", alterIds, idsOther);
+    assertEquals("The amount of identifiers is not the same.", uuids.length - 1, idsOther.size());
+    assertFalse("The removed id should not be owned by the datacontainer class.", this.objContainer.isOwnedByMe(uuids[0]));
+    assertTrue("The other ids should still be owned by the datacontainer class.", this.objContainer.isOwnedByMe(uuids[1]));
 
     System.out.println("done.");
   }
@@ -176,26 +183,24 @@ public class DataContainerTest
     properties.setCorrelationId(new String("1234567890").getBytes());
     Message msgOne = new Message("Hello First World".getBytes(), properties);
 
-    properties.setCorrelationId(new String("1234567890").getBytes());
+    properties = new MessageProperties();
+    properties.setCorrelationId(new String("0987654321").getBytes());
     Message msgTwo = new Message("Hello Second World".getBytes(), properties);
 
     this.objContainer.addSendMessage(msgOne);
     this.objContainer.addSendMessage(msgTwo);
 
-    ConcurrentSkipListMap<Integer, Message> sendMessages = new ConcurrentSkipListMap<Integer, Message>();
-    sendMessages.put(0, msgOne);
-    sendMessages.put(1, msgTwo);
-
-    ConcurrentSkipListMap<Integer, Message> otherMessages = this.objContainer.getSendMessages();
+    CorrelationIndex<Message> otherMessages = this.objContainer.getSendMessages();
 
     assertNotNull("The set with message cannot be Null.", otherMessages);
-    assertEquals("The sets with messages where not the same.", otherMessages.size(), sendMessages.size());
+    assertEquals("The sets with messages where not the same.", 2, otherMessages.size());
+    assertEquals("The message was not found by its id.", msgTwo, this.objContainer.getSendMessage("0987654321"));
 
     this.objContainer.removeSendMessage(msgOne);
-    assertNotEquals("The sets with messages cannot be the same.", otherMessages.size(), sendMessages.size());
+    assertEquals("The sets with messages where not the same.", 1, otherMessages.size());
 
-    sendMessages.remove(0);
-    assertEquals("The sets with messages where not the same.", otherMessages.size(), sendMessages.size());
+    this.objContainer.removeSendMessageById(new String("0987654321"));
+    assertEquals("The sets with messages where not the same.", 0, otherMessages.size());
 
     System.out.println("done.");
   }
@@ -221,7 +226,7 @@ public class DataContainerTest
     receivedMessages.add(msgOne);
     receivedMessages.add(msgTwo);
 
-    ConcurrentLinkedQueue<Message> otherMessages = this.objContainer.getReceivedMessages();
+    Collection<Message> otherMessages = this.objContainer.getReceivedMessages();
 
     assertNotNull("The set with message cannot be Null.", otherMessages);
     assertEquals("The sets with messages where not the same.", otherMessages.size(), receivedMessages.size());
@@ -235,6 +240,186 @@ public class DataContainerTest
     System.out.println("done.");
   }
 
+  /**
+   * Test waiting for a received message.
+   *
+   * @throws Exception
+   *           reason of failure given by the test.
+   */
+  @Test
+  public void testTakeReceivedMessage() throws Exception
+  {
+    System.out.print("DataContainer : Testing waiting for a received message...");
+
+    long start = System.nanoTime();
+    assertNull("No message should be received.", this.objContainer.takeReceivedMessage(50));
+    assertTrue("The take should wait for the timeout.", System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(45));
+
+    final Message msg = new Message("Hello World".getBytes(), new MessageProperties());
+    new Thread(() -> {
+      try
+      {
+        Thread.sleep(50);
+      }
+      catch (InterruptedException e)
+      {
+        return;
+      }
+      objContainer.addReceivedMessage(msg);
+    }).start();
+
+    start = System.nanoTime();
+    assertEquals("The added message should be received.", msg, this.objContainer.takeReceivedMessage(5000));
+    assertTrue("The take should return when the message arrives.", System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2));
+
+    System.out.println("done.");
+  }
+
+  /**
+   * Test that received messages are handed out by priority, and in arrival order within a priority.
+   *
+   * @throws Exception
+   *           reason of failure given by the test.
+   */
+  @Test
+  public void testReceivePriority() throws Exception
+  {
+    System.out.print("DataContainer : Testing the priority order of received messages...");
+
+    Message lowFirst = this.createPriorityMessage("Low first", 1);
+    Message lowSecond = this.createPriorityMessage("Low second", 1);
+    Message high = this.createPriorityMessage("High", 9);
+    Message legacy = new Message("Legacy".getBytes(), new MessageProperties());
+    legacy.getMessageProperties().setPriority(5);
+
+    this.objContainer.putReceivedMessage(lowFirst);
+    this.objContainer.putReceivedMessage(lowSecond);
+    this.objContainer.addReceivedMessage(legacy);
+    this.objContainer.putReceivedMessage(high);
+
+    assertEquals("The highest priority should be received first.", high, this.objContainer.popReceivedMessage());
+    assertEquals("The AMQP priority should be used without a priority header.", legacy, this.objContainer.takeReceivedMessage(100));
+    assertEquals("Messages with the same priority should keep their order.", lowFirst, this.objContainer.popReceivedMessage());
+    assertEquals("Messages with the same priority should keep their order.", lowSecond, this.objContainer.popReceivedMessage());
+    assertNull("No message should be left.", this.objContainer.popReceivedMessage());
+    assertEquals("The arrival order should not be written into the headers.", 1, lowFirst.getMessageProperties().getHeaders().size());
+
+    System.out.println("done.");
+  }
+
+  /**
+   * Creates a received message carrying a priority header.
+   *
+   * @param body
+   *          the body of the message.
+   * @param priority
+   *          the priority of the message.
+   * @return the message.
+   */
+  private Message createPriorityMessage(String body, int priority)
+  {
+    MessageProperties properties = new MessageProperties();
+    properties.setHeader(MessageHeaders.PRIORITY, priority);
+    return new Message(body.getBytes(), properties);
+  }
+
+  /**
+   * Test pausing and resuming consumption around the high- and low-water marks.
+   *
+   * @throws Exception
+   *           reason of failure given by the test.
+   */
+  @Test
+  public void testBackpressure() throws Exception
+  {
+    System.out.print("DataContainer : Testing backpressure on the received messages...");
+
+    Resources resources = new Resources();
+    resources.getConfiguration().setName("test");
+    resources.getConfiguration().setDataHighWater(3);
+    resources.getConfiguration().setDataLowWater(1);
+    this.objContainer.setResources(resources);
+
+    for (int i = 0; i < 3; i++)
+    {
+      this.objContainer.putReceivedMessage(new Message(("Message " + i).getBytes(), new MessageProperties()));
+    }
+    assertFalse("Consumption should not be paused below the high-water mark.", this.objContainer.isReceivePaused());
+
+    Thread listener = new Thread(() -> {
+      objContainer.putReceivedMessage(new Message("Message 3".getBytes(), new MessageProperties()));
+    });
+    listener.start();
+    listener.join(200);
+    assertTrue("The listener should wait at the high-water mark.", listener.isAlive());
+    assertTrue("Consumption should be paused at the high-water mark.", this.objContainer.isReceivePaused());
+
+    assertNotNull("A message should be received.", this.objContainer.popReceivedMessage());
+    listener.join(200);
+    assertTrue("The listener should wait until the low-water mark is reached.", listener.isAlive());
+
+    assertNotNull("A message should be received.", this.objContainer.popReceivedMessage());
+    listener.join(2000);
+    assertFalse("The listener should resume at the low-water mark.", listener.isAlive());
+    assertFalse("Consumption should be resumed at the low-water mark.", this.objContainer.isReceivePaused());
+    assertEquals("No message should be dropped.", 2, this.objContainer.getReceivedMessages().size());
+
+    System.out.println("done.");
+  }
+
+  /**
+   * Test that concurrent listener threads never fill the received messages beyond the high-water mark.
+   *
+   * @throws Exception
+   *           reason of failure given by the test.
+   */
+  @Test
+  public void testBackpressureConcurrent() throws Exception
+  {
+    System.out.print("DataContainer : Testing backpressure with concurrent listeners...");
+
+    Resources resources = new Resources();
+    resources.getConfiguration().setName("test");
+    resources.getConfiguration().setDataHighWater(3);
+    resources.getConfiguration().setDataLowWater(1);
+    this.objContainer.setResources(resources);
+
+    final int listeners = 8;
+    final CountDownLatch start = new CountDownLatch(1);
+    for (int i = 0; i < listeners; i++)
+    {
+      final int index = i;
+      new Thread(() -> {
+        try
+        {
+          start.await();
+        }
+        catch (InterruptedException e)
+        {
+          return;
+        }
+        objContainer.putReceivedMessage(new Message(("Message " + index).getBytes(), new MessageProperties()));
+      }).start();
+    }
+    start.countDown();
+    Thread.sleep(200);
+    assertEquals("The received messages should stop at the high-water mark.", 3, this.objContainer.getReceivedMessages().size());
+
+    int received = 0;
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (received < listeners && System.nanoTime() < deadline)
+    {
+      assertTrue("The received messages should never exceed the high-water mark.", this.objContainer.getReceivedMessages().size() <= 3);
+      if (this.objContainer.takeReceivedMessage(10) != null)
+      {
+        received++;
+      }
+    }
+    assertEquals("Every message should be received.", listeners, received);
+
+    System.out.println("done.");
+  }
+
   /**
    * Test the getting, setting and removal of odd messages.
    *
@@ -270,6 +455,60 @@ public class DataContainerTest
     System.out.println("done.");
   }
 
+  /**
+   * Test completing and timing out pending requests.
+   *
+   * @throws Exception
+   *           reason of failure given by the test.
+   */
+  @Test
+  public void testPendingRequests() throws Exception
+  {
+    System.out.print("DataContainer : Testing completion and timeout of pending requests...");
+
+    CompletableFuture<MessageDetails> answered = this.objContainer.addPendingRequest("1234567890", 5000);
+    CompletableFuture<MessageDetails> unanswered = this.objContainer.addPendingRequest("0987654321", 50);
+    assertEquals("Two requests should be pending.", 2, this.objContainer.getPendingRequestCount());
+    assertTrue("The request should be pending.", this.objContainer.hasPendingRequest("1234567890"));
+    assertTrue("A pending request should be owned by the datacontainer class.", this.objContainer.isOwnedByMe("1234567890"));
+
+    MessageDetails details = new MessageDetails("1234567890", "other", "test", MessageType.RESPONSE_MESSAGE, "Hello World");
+    assertTrue("The pending request should be completed.", this.objContainer.completePendingRequest(new String("1234567890"), details));
+    assertEquals("The request should complete with the reply.", details, answered.get(1, TimeUnit.SECONDS));
+    assertFalse("A request should only be completed once.", this.objContainer.completePendingRequest("1234567890", details));
+
+    try
+    {
+      unanswered.get(5, TimeUnit.SECONDS);
+      fail("The unanswered request should have timed out.");
+    }
+    catch (ExecutionException e)
+    {
+      assertTrue("The request should fail with a TimeoutException.", e.getCause() instanceof TimeoutException);
+    }
+    assertEquals("No requests should be pending.", 0, this.objContainer.getPendingRequestCount());
+
+    System.out.println("done.");
+  }
+
+  /**
+   * Test remembering the reply-to address of a request.
+   *
+   * @throws Exception
+   *           reason of failure given by the test.
+   */
+  @Test
+  public void testReplyAddresses() throws Exception
+  {
+    System.out.print("DataContainer : Testing reply addresses...");
+
+    this.objContainer.addReplyAddress("1234567890", "amq.rabbitmq.reply-to.abc");
+    assertEquals("The reply address should be returned.", "amq.rabbitmq.reply-to.abc", this.objContainer.removeReplyAddress("1234567890"));
+    assertNull("The reply address should only be returned once.", this.objContainer.removeReplyAddress("1234567890"));
+
+    System.out.println("done.");
+  }
+
   @Test
   public void testName() throws Exception
   {
@@ -0,0 +1,150 @@
+package com.maxxton.test.communication;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+import com.maxxton.aam.communication.EnvelopeCodec;
+import com.maxxton.aam.communication.MessageCodecs;
+import com.maxxton.aam.communication.MessageSerializer;
+import com.maxxton.aam.messages.BaseMessage;
+import com.maxxton.aam.messages.GenerationMessage;
+import com.maxxton.aam.messages.StatusMessage;
+
+/**
+ * Run a list of tests against the EnvelopeCodec class.
+ *
+ * @author Robin Hermans
+ * @copyright Maxxton 2015
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class EnvelopeCodecTest
+{
+
+  private EnvelopeCodec objCodec;
+
+  /**
+   * Setup method called before running the tests to construct the testing environment.
+   */
+  @Before
+  public void setup()
+  {
+    this.objCodec = new EnvelopeCodec(MessageCodecs.getDefault());
+  }
+
+  /**
+   * Test encoding and decoding of messages.
+   *
+   * @throws Exception
+   *           reason of failure given by the test.
+   */
+  @Test
+  public void testEncodeAndDecode() throws Exception
+  {
+    System.out.print("EnvelopeCodec : Testing encoding and decoding of messages...");
+
+    BaseMessage message = new GenerationMessage();
+    message.setSender("test");
+    message.setReceiver("other");
+    message.setPriority(7);
+    message.setPayload("Hello World");
+
+    BaseMessage other = (BaseMessage) this.objCodec.decode(this.objCodec.encode(message));
+    assertNotNull("The decoded message cannot be null.", other);
+    assertEquals("The messages are not the same.", message, other);
+
+    BaseMessage empty = new StatusMessage();
+    other = (BaseMessage) this.objCodec.decode(this.objCodec.encode(empty));
+    assertEquals("The messages without payload are not the same.", empty, other);
+    assertNull("The payload should be null.", other.getPayload());
+
+    System.out.println("done.");
+  }
+
+  /**
+   * Test that the envelope is smaller than a fully serialized message.
+   *
+   * @throws Exception
+   *           reason of failure given by the test.
+   */
+  @Test
+  public void testSize() throws Exception
+  {
+    System.out.print("EnvelopeCodec : Testing the size of encoded messages...");
+
+    BaseMessage message = new GenerationMessage();
+    message.setSender("test");
+    message.setReceiver("other");
+
+    int envelope = this.objCodec.encode(message).length;
+    int serialized = MessageSerializer.serialize(message).length;
+    assertTrue("The envelope should be smaller than a serialized message.", envelope < serialized);
+    assertTrue("The envelope without payload should be a few dozen bytes.", envelope < 48);
+
+    System.out.println("done.");
+  }
+
+  /**
+   * Test decoding of malformed envelopes and content types.
+   *
+   * @throws Exception
+   *           reason of failure given by the test.
+   */
+  @Test
+  public void testMalformed() throws Exception
+  {
+    System.out.print("EnvelopeCodec : Testing malformed envelopes...");
+
+    assertNull("A malformed envelope should not be decoded.", this.objCodec.decode(new byte[] { 1, 0, 1, 0, 0, 99 }));
+    assertNull("An unknown version should not be decoded.", this.objCodec.decode(new byte[] { 9 }));
+    assertNull("Only messages can be encoded.", this.objCodec.encode("Hello World"));
+
+    assertEquals("The decoder should be resolved by the payload content type.", this.objCodec.getContentType(), MessageCodecs.getDecoder(this.objCodec.getContentType(), null).getContentType());
+
+    System.out.println("done.");
+  }
+
+  /**
+   * Test that names which do not fit the length prefix are not encoded.
+   *
+   * @throws Exception
+   *           reason of failure given by the test.
+   */
+  @Test
+  public void testNameTooLong() throws Exception
+  {
+    System.out.print("EnvelopeCodec : Testing names longer than the length prefix...");
+
+    char[] name = new char[70000];
+    Arrays.fill(name, 'a');
+    BaseMessage message = new GenerationMessage();
+    message.setSender(new String(name));
+    message.setReceiver("receiver");
+    assertNull("A sender longer than 65535 bytes should not be encoded.", this.objCodec.encode(message));
+
+    message.setSender("sender");
+    message.setReceiver(new String(name, 0, 65535));
+    assertNotNull("A receiver of exactly 65535 bytes should be encoded.", this.objCodec.encode(message));
+
+    System.out.println("done.");
+  }
+
+  /**
+   * Cleanup method called after running the test.
+   */
+  @After
+  public void cleanup()
+  {
+
+  }
+
+}
@@ -0,0 +1,94 @@
+package com.maxxton.test.communication;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+
+import com.maxxton.aam.communication.JavaSerializationCodec;
+import com.maxxton.aam.communication.MessageCodec;
+import com.maxxton.aam.communication.MessageCodecs;
+
+/**
+ * Run a list of tests against the MessageCodecs class.
+ *
+ * @author Robin Hermans
+ * @copyright Maxxton 2015
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class MessageCodecsTest
+{
+
+  /**
+   * Setup method called before running the tests to construct the testing environment.
+   */
+  @Before
+  public void setup()
+  {
+
+  }
+
+  /**
+   * Test getting codecs by class name.
+   *
+   * @throws Exception
+   *           reason of failure given by the test.
+   */
+  @Test
+  public void testGetCodec() throws Exception
+  {
+    System.out.print("MessageCodecs : Testing getting codecs by class name...");
+
+    MessageCodec codec = MessageCodecs.getCodec(JavaSerializationCodec.class.getName());
+    assertNotNull("The codec cannot be null.", codec);
+    assertEquals("The codec should be the default codec.", MessageCodecs.getDefault(), codec);
+
+    codec = MessageCodecs.getCodec("com.maxxton.aam.communication.UnknownCodec");
+    assertEquals("An unknown codec should fall back to the default codec.", MessageCodecs.getDefault(), codec);
+
+    codec = MessageCodecs.getCodec(String.class.getName());
+    assertEquals("A class which is no codec should fall back to the default codec.", MessageCodecs.getDefault(), codec);
+
+    System.out.println("done.");
+  }
+
+  /**
+   * Test decoding messages by their content type.
+   *
+   * @throws Exception
+   *           reason of failure given by the test.
+   */
+  @Test
+  public void testDecode() throws Exception
+  {
+    System.out.print("MessageCodecs : Testing decoding messages by content type...");
+
+    MessageCodec codec = MessageCodecs.getDefault();
+    MessageProperties properties = new MessageProperties();
+    properties.setContentType(codec.getContentType());
+    Message message = new Message(codec.encode("Hello World"), properties);
+
+    assertEquals("The decoder should match the content type.", codec, MessageCodecs.getDecoder(codec.getContentType(), null));
+    assertEquals("The decoded payload should equal 'Hello World'.", "Hello World", MessageCodecs.decode(message, null));
+
+    assertEquals("An unknown content type should use the fallback.", codec, MessageCodecs.getDecoder("text/unknown", codec));
+
+    System.out.println("done.");
+  }
+
+  /**
+   * Cleanup method called after running the test.
+   */
+  @After
+  public void cleanup()
+  {
+
+  }
+
+}
@@ -0,0 +1,153 @@
+package com.maxxton.test.communication;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+
+import com.maxxton.aam.communication.GzipCompressor;
+import com.maxxton.aam.communication.MessageCodecs;
+import com.maxxton.aam.communication.MessageCompressor;
+import com.maxxton.aam.communication.MessageCompressors;
+import com.maxxton.aam.monitoring.Monitor;
+import com.maxxton.aam.monitoring.Monitor.DataType;
+import com.maxxton.aam.monitoring.MonitorFactory;
+
+/**
+ * Run a list of tests against the MessageCompressors class.
+ *
+ * @author Robin Hermans
+ * @copyright Maxxton 2015
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class MessageCompressorsTest
+{
+  private Monitor objMonitor;
+  private byte[] arrBody;
+
+  /**
+   * Setup method called before running the tests to construct the testing environment.
+   */
+  @Before
+  public void setup()
+  {
+    this.objMonitor = MonitorFactory.getMonitor("test");
+    this.objMonitor.setEnabled(true);
+    this.arrBody = new byte[64 * 1024];
+    Arrays.fill(this.arrBody, (byte) 'a');
+  }
+
+  /**
+   * Test getting compressors by class name and content encoding.
+   *
+   * @throws Exception
+   *           reason of failure given by the test.
+   */
+  @Test
+  public void testGetCompressor() throws Exception
+  {
+    System.out.print("MessageCompressors : Testing getting compressors...");
+
+    MessageCompressor compressor = MessageCompressors.getCompressor(GzipCompressor.class.getName());
+    assertSame("The compressor should be the default compressor.", MessageCompressors.getDefault(), compressor);
+    assertSame("An unknown compressor should fall back to the default compressor.", MessageCompressors.getDefault(), MessageCompressors.getCompressor("com.maxxton.aam.communication.UnknownCompressor"));
+    assertSame("The compressor should be found by its encoding.", compressor, MessageCompressors.getDecompressor(GzipCompressor.ENCODING));
+    assertNull("An unknown encoding should have no compressor.", MessageCompressors.getDecompressor("UTF-8"));
+
+    System.out.println("done.");
+  }
+
+  /**
+   * Test compressing above the threshold and restoring the body.
+   *
+   * @throws Exception
+   *           reason of failure given by the test.
+   */
+  @Test
+  public void testCompressAndRestore() throws Exception
+  {
+    System.out.print("MessageCompressors : Testing compressing and restoring bodies...");
+
+    this.objMonitor.drainData(DataType.COMPRESS_BYTES_IN);
+    this.objMonitor.drainData(DataType.COMPRESS_BYTES_OUT);
+
+    MessageProperties properties = new MessageProperties();
+    byte[] compressed = MessageCompressors.compress(this.arrBody, properties, MessageCompressors.getDefault(), 1024, this.objMonitor);
+    assertTrue("The body should be compressed.", compressed.length < this.arrBody.length);
+    assertEquals("The content encoding should be set.", GzipCompressor.ENCODING, properties.getContentEncoding());
+    assertEquals("The original size should be recorded.", this.arrBody.length, this.objMonitor.drainData(DataType.COMPRESS_BYTES_IN));
+    assertEquals("The compressed size should be recorded.", compressed.length, this.objMonitor.drainData(DataType.COMPRESS_BYTES_OUT));
+
+    assertArrayEquals("The restored body should equal the original.", this.arrBody, MessageCompressors.decompress(compressed, properties, this.objMonitor));
+
+    System.out.println("done.");
+  }
+
+  /**
+   * Test that small, incompressible and not compressed bodies are passed as is.
+   *
+   * @throws Exception
+   *           reason of failure given by the test.
+   */
+  @Test
+  public void testPassThrough() throws Exception
+  {
+    System.out.print("MessageCompressors : Testing bodies which are not compressed...");
+
+    MessageProperties properties = new MessageProperties();
+    assertSame("A body below the threshold should not be compressed.", this.arrBody, MessageCompressors.compress(this.arrBody, properties, MessageCompressors.getDefault(), this.arrBody.length + 1, this.objMonitor));
+    assertSame("A threshold of 0 should disable compression.", this.arrBody, MessageCompressors.compress(this.arrBody, properties, MessageCompressors.getDefault(), 0, this.objMonitor));
+
+    byte[] random = new byte[4096];
+    new Random(42).nextBytes(random);
+    assertSame("A body which grows should not be compressed.", random, MessageCompressors.compress(random, properties, MessageCompressors.getDefault(), 1, this.objMonitor));
+    assertNull("No content encoding should be set.", properties.getContentEncoding());
+
+    properties.setContentEncoding("UTF-8");
+    assertSame("A character set encoding should be passed as is.", this.arrBody, MessageCompressors.decompress(this.arrBody, properties, this.objMonitor));
+
+    System.out.println("done.");
+  }
+
+  /**
+   * Test decoding a compressed message through the codecs.
+   *
+   * @throws Exception
+   *           reason of failure given by the test.
+   */
+  @Test
+  public void testDecodeCompressed() throws Exception
+  {
+    System.out.print("MessageCompressors : Testing decoding a compressed message...");
+
+    String payload = new String(this.arrBody, "UTF-8");
+    MessageProperties properties = new MessageProperties();
+    properties.setContentType(MessageCodecs.getDefault().getContentType());
+    byte[] body = MessageCompressors.compress(MessageCodecs.getDefault().encode(payload), properties, MessageCompressors.getDefault(), 1024, this.objMonitor);
+
+    assertEquals("The decoded payload should equal the original.", payload, MessageCodecs.decode(new Message(body, properties), MessageCodecs.getDefault(), this.objMonitor));
+
+    System.out.println("done.");
+  }
+
+  /**
+   * Cleanup method called after running the test.
+   */
+  @After
+  public void cleanup()
+  {
+
+  }
+}
@@ -0,0 +1,98 @@
+package com.maxxton.test.communication;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+import org.springframework.amqp.core.MessageProperties;
+
+import com.maxxton.aam.communication.MessageHeaders;
+import com.maxxton.aam.messages.BaseMessage;
+import com.maxxton.aam.messages.MessageType;
+import com.maxxton.aam.messages.ResponseMessage;
+
+/**
+ * Run a list of tests against the MessageHeaders class.
+ *
+ * @author Robin Hermans
+ * @copyright Maxxton 2015
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class MessageHeadersTest
+{
+
+  /**
+   * Setup method called before running the tests to construct the testing environment.
+   */
+  @Before
+  public void setup()
+  {
+
+  }
+
+  /**
+   * Test writing and reading the envelope headers.
+   *
+   * @throws Exception
+   *           reason of failure given by the test.
+   */
+  @Test
+  public void testWriteAndRead() throws Exception
+  {
+    System.out.print("MessageHeaders : Testing writing and reading of headers...");
+
+    BaseMessage message = new ResponseMessage();
+    message.setSender("test");
+    message.setReceiver("other");
+    message.setPriority(5);
+
+    MessageProperties properties = new MessageProperties();
+    MessageHeaders.write(properties, message);
+
+    assertTrue("The headers should contain an envelope.", MessageHeaders.hasEnvelope(properties));
+    assertEquals("The message types should be the same.", MessageType.RESPONSE_MESSAGE, MessageHeaders.getMessageType(properties));
+    assertEquals("The senders should be the same.", "test", MessageHeaders.getSender(properties));
+    assertEquals("The receivers should be the same.", "other", MessageHeaders.getReceiver(properties));
+    assertEquals("The priorities should be the same.", 5, MessageHeaders.getPriority(properties));
+    assertEquals("The AMQP priority should be set.", Integer.valueOf(5), properties.getPriority());
+
+    System.out.println("done.");
+  }
+
+  /**
+   * Test reading headers of messages without an envelope.
+   *
+   * @throws Exception
+   *           reason of failure given by the test.
+   */
+  @Test
+  public void testMissing() throws Exception
+  {
+    System.out.print("MessageHeaders : Testing reading of missing headers...");
+
+    MessageProperties properties = new MessageProperties();
+    assertFalse("The headers should not contain an envelope.", MessageHeaders.hasEnvelope(properties));
+    assertNull("The sender should be null.", MessageHeaders.getSender(properties));
+
+    properties.setHeader(MessageHeaders.TYPE, "UNKNOWN_MESSAGE");
+    assertNull("An unknown message type should be null.", MessageHeaders.getMessageType(properties));
+
+    System.out.println("done.");
+  }
+
+  /**
+   * Cleanup method called after running the test.
+   */
+  @After
+  public void cleanup()
+  {
+
+  }
+
+}
@@ -0,0 +1,175 @@
+package com.maxxton.test.communication;
+
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectOutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Before;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+import com.maxxton.aam.communication.EnvelopeCodec;
+import com.maxxton.aam.communication.MessageSerializer;
+import com.maxxton.aam.messages.BaseMessage;
+import com.maxxton.aam.messages.GenerationMessage;
+
+/**
+ * Measures the heap allocated per encoded message, the same figure JMH reports as gc.alloc.rate.norm, for the reusable serialization buffers and for the former ByteArrayOutputStream based encoding.
+ * Not part of the regular test run, start it with "mvn -Dtest=MessageSerializerBenchmark test".
+ *
+ * @author Robin Hermans
+ * @copyright Maxxton 2015
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class MessageSerializerBenchmark
+{
+  private static final int WARMUP = 20000;
+  private static final int MESSAGES = 100000;
+
+  private com.sun.management.ThreadMXBean objThreads;
+  private EnvelopeCodec objEnvelope;
+  private long lngEncodedBytes;
+
+  /**
+   * Setup method called before running the benchmark to construct the testing environment.
+   */
+  @Before
+  public void setup()
+  {
+    this.objThreads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    this.objEnvelope = new EnvelopeCodec();
+  }
+
+  /**
+   * Compares the allocation of serializing a small and a large payload.
+   *
+   * @throws Exception
+   *           reason of failure given by the benchmark.
+   */
+  @Test
+  public void testSerialize() throws Exception
+  {
+    for (Object payload : new Object[] { "Hello World", new byte[16 * 1024] })
+    {
+      String name = payload instanceof String ? "small" : "16 KB";
+      long before = this.measure("serialize " + name + " before", () -> MessageSerializerBenchmark.serializeBefore(payload));
+      long after = this.measure("serialize " + name + " after", () -> MessageSerializer.serialize(payload));
+      assertTrue("Serializing should not allocate more than before.", after <= before);
+    }
+  }
+
+  /**
+   * Compares the allocation of encoding an envelope with a small and a large payload.
+   *
+   * @throws Exception
+   *           reason of failure given by the benchmark.
+   */
+  @Test
+  public void testEnvelope() throws Exception
+  {
+    for (Object payload : new Object[] { "Hello World", new byte[16 * 1024] })
+    {
+      String name = payload instanceof String ? "small" : "16 KB";
+      BaseMessage message = new GenerationMessage();
+      message.setSender("sender");
+      message.setReceiver("receiver");
+      message.setPayload(payload);
+      long before = this.measure("envelope " + name + " before", () -> MessageSerializerBenchmark.envelopeBefore(message));
+      long after = this.measure("envelope " + name + " after", () -> this.objEnvelope.encode(message));
+      assertTrue("Encoding an envelope should not allocate more than before.", after <= before);
+    }
+  }
+
+  /**
+   * Encodes messages on the current thread and prints the allocated bytes per message.
+   *
+   * @param name
+   *          the name of the measured path.
+   * @param encoder
+   *          the encoding to be measured.
+   * @return the allocated bytes per message.
+   * @throws Exception
+   *           reason of failure given by the benchmark.
+   */
+  private long measure(String name, Encoder encoder) throws Exception
+  {
+    long thread = Thread.currentThread().getId();
+    int size = 0;
+    for (int i = 0; i < WARMUP; i++)
+    {
+      size += encoder.encode().length;
+    }
+
+    long allocated = this.objThreads.getThreadAllocatedBytes(thread);
+    long start = System.nanoTime();
+    for (int i = 0; i < MESSAGES; i++)
+    {
+      size += encoder.encode().length;
+    }
+    long nanos = System.nanoTime() - start;
+    long perMessage = (this.objThreads.getThreadAllocatedBytes(thread) - allocated) / MESSAGES;
+    // Keep the encoded sizes, so the encoding cannot be optimized away.
+    this.lngEncodedBytes += size;
+
+    System.out.println(String.format("MessageSerializer : %-24s %8d B/op gc.alloc.rate.norm, %6d ns/op", name, perMessage, nanos / MESSAGES));
+    return perMessage;
+  }
+
+  /**
+   * Serializes an object the way the JavaSerializationCodec did before the buffers were reused.
+   *
+   * @param object
+   *          the object to be serialized.
+   * @return the serialized object.
+   * @throws Exception
+   *           reason of failure given by the benchmark.
+   */
+  private static byte[] serializeBefore(Object object) throws Exception
+  {
+    ByteArrayOutputStream byteStream = new ByteArrayOutputStream();
+    ObjectOutputStream objectStream = new ObjectOutputStream(byteStream);
+    objectStream.writeObject(object);
+    return byteStream.toByteArray();
+  }
+
+  /**
+   * Encodes an envelope the way the EnvelopeCodec did before the buffers were reused.
+   *
+   * @param message
+   *          the message to be encoded.
+   * @return the encoded envelope.
+   * @throws Exception
+   *           reason of failure given by the benchmark.
+   */
+  private static byte[] envelopeBefore(BaseMessage message) throws Exception
+  {
+    byte[] sender = message.getSender().getBytes(StandardCharsets.UTF_8);
+    byte[] receiver = message.getReceiver().getBytes(StandardCharsets.UTF_8);
+    byte[] payload = MessageSerializerBenchmark.serializeBefore(message.getPayload());
+
+    ByteBuffer buffer = ByteBuffer.allocate(8 + sender.length + receiver.length + payload.length);
+    buffer.put((byte) 1);
+    buffer.put((byte) message.getMessageType().ordinal());
+    buffer.put((byte) message.getPriority());
+    buffer.put((byte) 1);
+    buffer.putShort((short) sender.length);
+    buffer.put(sender);
+    buffer.putShort((short) receiver.length);
+    buffer.put(receiver);
+    buffer.put(payload);
+    return buffer.array();
+  }
+
+  /**
+   * An encoding path to be measured.
+   */
+  private interface Encoder
+  {
+    byte[] encode() throws Exception;
+  }
+}
@@ -3,6 +3,10 @@ package com.maxxton.test.communication;
 import static org.junit.Assert.*;
 
 import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
 import org.junit.AfterClass;
 import org.junit.Before;
 import org.junit.FixMethodOrder;
@@ -15,6 +19,7 @@ import com.maxxton.aam.messages.MessageType;
 import com.maxxton.aam.resources.Callback;
 import com.maxxton.aam.resources.Configuration;
 import com.maxxton.aam.resources.MessageDetails;
+import com.maxxton.aam.resources.OutboundMessage;
 import com.maxxton.aam.resources.Resources;
 
 /**
@@ -96,6 +101,86 @@ public class MessengerTest
     System.out.println("done.");
   }
 
+  /**
+   * Test sending a batch of messages as given by the Messenger class.
+   * 
+   * @throws Exception
+   *           reason of failure given by the test.
+   */
+  @Test
+  public void testSendMessages() throws Exception
+  {
+    System.out.print("Messenger : Testing sending a batch of messages...");
+    Messenger receiver = new Messenger("other", "/test.properties");
+
+    List<OutboundMessage> batch = new ArrayList<OutboundMessage>();
+    batch.add(new OutboundMessage(MessageType.GENERATION_MESSAGE, "other", "Hello First World"));
+    batch.add(new OutboundMessage(MessageType.GENERATION_MESSAGE, "none", "Hello Second World"));
+    batch.add(new OutboundMessage(MessageType.GENERATION_MESSAGE, "other", "Hello Third World"));
+
+    List<String> results = this.objMessenger.sendMessages(batch);
+    assertEquals("There should be a result for every message.", batch.size(), results.size());
+    assertNotNull("The first message should be send.", results.get(0));
+    assertNull("The second message should not be send.", results.get(1));
+    assertNotNull("The third message should be send.", results.get(2));
+
+    MessageDetails details = receiver.receiveMessage(1000);
+    assertNotNull("No message has been received.", details);
+    assertEquals("The payload should equal 'Hello First World'", details.getPayload(), "Hello First World");
+
+    System.out.println("done.");
+  }
+
+  /**
+   * Test a request waiting for its reply on the direct reply-to channel.
+   *
+   * @throws Exception
+   *           reason of failure given by the test.
+   */
+  @Test
+  public void testRequestDirectReplyTo() throws Exception
+  {
+    System.out.print("Messenger : Testing request and direct reply...");
+    final Messenger receiver = new Messenger("other", "/test.properties");
+    receiver.setReceiveCallback((MessageDetails details) -> {
+      receiver.sendMessage(MessageType.RESPONSE_MESSAGE, details.getSender(), "Hello " + details.getPayload(), details.getResponseId());
+    });
+
+    this.objMessenger.getResources().getConfiguration().setRpcDirectReplyTo(true);
+    MessageDetails details = this.objMessenger.request(MessageType.GENERATION_MESSAGE, "other", "World", 5000).get(10, TimeUnit.SECONDS);
+    assertNotNull("No reply has been received.", details);
+    assertEquals("The payload should equal 'Hello World'", "Hello World", details.getPayload());
+
+    System.out.println("done.");
+  }
+
+  /**
+   * Test a request waiting for its reply.
+   *
+   * @throws Exception
+   *           reason of failure given by the test.
+   */
+  @Test
+  public void testRequest() throws Exception
+  {
+    System.out.print("Messenger : Testing request and reply...");
+    final Messenger receiver = new Messenger("other", "/test.properties");
+    receiver.setReceiveCallback((MessageDetails details) -> {
+      receiver.sendMessage(MessageType.RESPONSE_MESSAGE, details.getSender(), "Hello " + details.getPayload(), details.getResponseId());
+    });
+
+    CompletableFuture<MessageDetails> reply = this.objMessenger.request(MessageType.GENERATION_MESSAGE, "other", "World", 5000);
+    MessageDetails details = reply.get(10, TimeUnit.SECONDS);
+    assertNotNull("No reply has been received.", details);
+    assertEquals("The reply should be a response message.", MessageType.RESPONSE_MESSAGE, details.getMessageType());
+    assertEquals("The payload should equal 'Hello World'", "Hello World", details.getPayload());
+
+    reply = this.objMessenger.request(MessageType.GENERATION_MESSAGE, "none", "World", 5000);
+    assertNull("A request to an unknown receiver should complete with null.", reply.get(10, TimeUnit.SECONDS));
+
+    System.out.println("done.");
+  }
+
   /**
    * Test loading a configuration file.
    * 
@@ -0,0 +1,104 @@
+package com.maxxton.test.communication;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+import com.maxxton.aam.communication.NodeIdGenerator;
+
+/**
+ * Run a list of tests against the NodeIdGenerator class.
+ *
+ * @author Robin Hermans
+ * @copyright Maxxton 2015
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class NodeIdGeneratorTest
+{
+  private NodeIdGenerator objGenerator;
+
+  /**
+   * Setup method called before running the tests to construct the testing environment.
+   */
+  @Before
+  public void setup()
+  {
+    this.objGenerator = new NodeIdGenerator();
+  }
+
+  /**
+   * Test the format of the generated ids.
+   *
+   * @throws Exception
+   *           reason of failure given by the test.
+   */
+  @Test
+  public void testFormat() throws Exception
+  {
+    System.out.print("NodeIdGenerator : Testing the format of the ids...");
+
+    String id = new String(new NodeIdGenerator(0xABCL).nextId(), StandardCharsets.US_ASCII);
+    assertTrue("The id should consist of 40 hexadecimal characters.", id.matches("^[0-9a-f]{40}$"));
+    assertTrue("The id should start with the node id.", id.startsWith("000000000abc"));
+    assertTrue("The first id should end with the first counter value.", id.endsWith("0000000000000000"));
+
+    System.out.println("done.");
+  }
+
+  /**
+   * Test that concurrent threads never get the same id.
+   *
+   * @throws Exception
+   *           reason of failure given by the test.
+   */
+  @Test
+  public void testUnique() throws Exception
+  {
+    System.out.print("NodeIdGenerator : Testing unique ids under concurrency...");
+
+    final int threads = 4;
+    final int perThread = 50000;
+    final Set<String> ids = ConcurrentHashMap.newKeySet();
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    for (int t = 0; t < threads; t++)
+    {
+      executor.execute(() -> {
+        for (int i = 0; i < perThread; i++)
+        {
+          ids.add(new String(this.objGenerator.nextId(), StandardCharsets.US_ASCII));
+        }
+      });
+    }
+    executor.shutdown();
+    assertTrue("The ids were not generated in time.", executor.awaitTermination(30, TimeUnit.SECONDS));
+    assertEquals("Every id should be unique.", threads * perThread, ids.size());
+
+    String other = new String(new NodeIdGenerator().nextId(), StandardCharsets.US_ASCII);
+    String first = new String(new NodeIdGenerator().nextId(), StandardCharsets.US_ASCII);
+    assertNotEquals("Generators on other nodes should not create the same ids.", first, other);
+
+    System.out.println("done.");
+  }
+
+  /**
+   * Cleanup method called after running the test.
+   */
+  @After
+  public void cleanup()
+  {
+
+  }
+}
@@ -0,0 +1,217 @@
+package com.maxxton.test.communication;
+
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+
+import com.maxxton.aam.communication.EnvelopeCodec;
+import com.maxxton.aam.communication.JavaSerializationCodec;
+import com.maxxton.aam.communication.MessageCodec;
+import com.maxxton.aam.communication.MessageCodecs;
+import com.maxxton.aam.communication.MessageHeaders;
+import com.maxxton.aam.communication.ReceiveController;
+import com.maxxton.aam.messages.BaseMessage;
+import com.maxxton.aam.messages.GenerationMessage;
+import com.maxxton.aam.resources.MessageDetails;
+import com.maxxton.aam.resources.Resources;
+
+/**
+ * Measures the decode work per message on the callback receive path of the ReceiveController. Not part of the regular test run, start it with "mvn -Dtest=ReceiveControllerBenchmark test".
+ *
+ * @author Robin Hermans
+ * @copyright Maxxton 2015
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class ReceiveControllerBenchmark
+{
+  private static final int MESSAGES = 20000;
+
+  private CountingCodec objCodec;
+  private ReceiveController objReceiver;
+
+  /**
+   * Setup method called before running the benchmark to construct the testing environment.
+   */
+  @Before
+  public void setup()
+  {
+    this.objCodec = new CountingCodec();
+    MessageCodecs.register(this.objCodec);
+
+    Resources resources = new Resources();
+    resources.getConfiguration().loadConfiguration("/test.properties");
+    resources.getConfiguration().setName("benchmark");
+    this.objReceiver = new ReceiveController(resources);
+    this.objReceiver.setCallback((MessageDetails details) -> details.getPayload());
+  }
+
+  /**
+   * Baseline: the receive path before the refactoring decoded the whole body once to classify the message and once more to build the MessageDetails.
+   *
+   * @throws Exception
+   *           reason of failure given by the benchmark.
+   */
+  @Test
+  public void testBaseline() throws Exception
+  {
+    Message message = this.createLegacyMessage();
+    this.objCodec.reset();
+
+    long start = System.nanoTime();
+    for (int i = 0; i < MESSAGES; i++)
+    {
+      MessageCodecs.decode(message, null);
+      MessageCodecs.decode(message, null);
+    }
+    this.report("baseline (two full decodes)", System.nanoTime() - start);
+  }
+
+  /**
+   * Messages with envelope headers are classified without decoding, the callback decodes the payload once.
+   *
+   * @throws Exception
+   *           reason of failure given by the benchmark.
+   */
+  @Test
+  public void testEnvelopeHeaders() throws Exception
+  {
+    Message message = this.createEnvelopeMessage();
+    this.objCodec.reset();
+
+    long start = System.nanoTime();
+    for (int i = 0; i < MESSAGES; i++)
+    {
+      this.objReceiver.onMessage(message);
+    }
+    double decodes = this.report("envelope headers", System.nanoTime() - start);
+    assertTrue("Each message should be decoded at most once.", decodes <= 1.0);
+  }
+
+  /**
+   * Messages without envelope headers are decoded once to classify them, the result is reused for the callback.
+   *
+   * @throws Exception
+   *           reason of failure given by the benchmark.
+   */
+  @Test
+  public void testLegacyMessages() throws Exception
+  {
+    Message message = this.createLegacyMessage();
+    this.objCodec.reset();
+
+    long start = System.nanoTime();
+    for (int i = 0; i < MESSAGES; i++)
+    {
+      this.objReceiver.onMessage(message);
+    }
+    double decodes = this.report("legacy messages", System.nanoTime() - start);
+    assertTrue("Each message should be decoded at most once.", decodes <= 1.0);
+  }
+
+  /**
+   * Prints the decode work per message.
+   *
+   * @param name
+   *          the name of the measured path.
+   * @param nanos
+   *          the total time spent.
+   * @return the amount of decodes per message.
+   */
+  private double report(String name, long nanos)
+  {
+    double decodes = (double) this.objCodec.getDecodes() / MESSAGES;
+    System.out.println(String.format("ReceiveController : %-28s %.2f decodes/message, %8d ns/message", name, decodes, nanos / MESSAGES));
+    return decodes;
+  }
+
+  /**
+   * Creates a message as send by the current CommunicationController.
+   *
+   * @return the message with envelope headers.
+   */
+  private Message createEnvelopeMessage()
+  {
+    BaseMessage baseMsg = this.createBaseMessage();
+    EnvelopeCodec envelope = new EnvelopeCodec(this.objCodec);
+    MessageProperties props = new MessageProperties();
+    props.setCorrelationId("benchmark".getBytes());
+    props.setContentType(envelope.getContentType());
+    MessageHeaders.write(props, baseMsg);
+    return new Message(envelope.encode(baseMsg), props);
+  }
+
+  /**
+   * Creates a message as send by messengers without envelope headers.
+   *
+   * @return the fully serialized message.
+   */
+  private Message createLegacyMessage()
+  {
+    MessageProperties props = new MessageProperties();
+    props.setCorrelationId("benchmark".getBytes());
+    props.setContentType(this.objCodec.getContentType());
+    return new Message(this.objCodec.encode(this.createBaseMessage()), props);
+  }
+
+  /**
+   * Creates the message used throughout the benchmark.
+   *
+   * @return a GenerationMessage with a small payload.
+   */
+  private BaseMessage createBaseMessage()
+  {
+    BaseMessage baseMsg = new GenerationMessage();
+    baseMsg.setSender("other");
+    baseMsg.setReceiver("benchmark");
+    baseMsg.setPayload("Hello World");
+    return baseMsg;
+  }
+
+  /**
+   * Cleanup method called after running the benchmark.
+   */
+  @After
+  public void cleanup()
+  {
+    this.objReceiver.getListener().stop();
+  }
+
+  /**
+   * Java serialization codec which counts the amount of decodes.
+   */
+  private static class CountingCodec extends JavaSerializationCodec implements MessageCodec
+  {
+    private AtomicInteger intDecodes = new AtomicInteger(0);
+
+    @Override
+    public String getContentType()
+    {
+      return "application/x-counting-serialized-object";
+    }
+
+    @Override
+    public Object decode(byte[] bytes)
+    {
+      this.intDecodes.incrementAndGet();
+      return super.decode(bytes);
+    }
+
+    public int getDecodes()
+    {
+      return this.intDecodes.get();
+    }
+
+    public void reset()
+    {
+      this.intDecodes.set(0);
+    }
+  }
+}
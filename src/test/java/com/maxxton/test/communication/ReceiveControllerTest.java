@@ -2,6 +2,13 @@ package com.maxxton.test.communication;
 
 import static org.junit.Assert.*;
 
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
 import org.junit.After;
 import org.junit.Before;
 import org.junit.FixMethodOrder;
@@ -11,6 +18,7 @@ import org.springframework.amqp.core.Message;
 import org.springframework.amqp.core.MessageProperties;
 
 import com.maxxton.aam.communication.DataContainer;
+import com.maxxton.aam.communication.MessageHeaders;
 import com.maxxton.aam.communication.MessageSerializer;
 import com.maxxton.aam.communication.Messenger;
 import com.maxxton.aam.communication.ReceiveController;
@@ -18,6 +26,9 @@ import com.maxxton.aam.communication.SendController;
 import com.maxxton.aam.messages.BaseMessage;
 import com.maxxton.aam.messages.GenerationMessage;
 import com.maxxton.aam.messages.MessageType;
+import com.maxxton.aam.monitoring.Monitor;
+import com.maxxton.aam.monitoring.Monitor.DataType;
+import com.maxxton.aam.monitoring.MonitorFactory;
 import com.maxxton.aam.resources.Callback;
 import com.maxxton.aam.resources.MessageDetails;
 import com.maxxton.aam.resources.Resources;
@@ -165,6 +176,142 @@ public class ReceiveControllerTest
     System.out.println("done.");
   }
 
+  /**
+   * Test the consumer concurrency of the listener container.
+   *
+   * @throws Exception
+   *           reason of failure given by the test.
+   */
+  @Test
+  public void testListenerConcurrency() throws Exception
+  {
+    System.out.print("ReceiveController : Testing consumer concurrency of the listener...");
+
+    Resources resources = new Resources();
+    resources.getConfiguration().loadConfiguration("/test.properties");
+    resources.getConfiguration().setName("concurrent");
+    resources.getConfiguration().setListenerConcurrencyMin(2);
+    resources.getConfiguration().setListenerConcurrencyMax(4);
+    resources.getConfiguration().setListenerPrefetch(10);
+    ReceiveController receiver = new ReceiveController(resources);
+
+    assertTrue("The listener should be running.", receiver.getListener().isRunning());
+    assertEquals("The listener should start the minimum amount of consumers.", 2, receiver.getListener().getActiveConsumerCount());
+    receiver.getListener().stop();
+
+    System.out.println("done.");
+  }
+
+  /**
+   * Test the handoff latency from the listener to a thread waiting in receiveMessage.
+   *
+   * @throws Exception
+   *           reason of failure given by the test.
+   */
+  @Test
+  public void testReceiveLatency() throws Exception
+  {
+    System.out.print("ReceiveController : Testing handoff latency to a waiting receiver...");
+
+    while (this.objReceiver.getDataContainer().popReceivedMessage() != null)
+    {
+      // Drain messages left by other tests.
+    }
+
+    MessageProperties props = new MessageProperties();
+    props.setCorrelationId("1234567890".getBytes());
+    props.setHeader(MessageHeaders.TYPE, MessageType.GENERATION_MESSAGE.name());
+    Message msg = new Message(new byte[0], props);
+
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    long[] latencies = new long[200];
+    for (int i = 0; i < latencies.length; i++)
+    {
+      Future<Long> received = executor.submit(() -> {
+        Message receivedMsg = this.objReceiver.receiveMessage(1000);
+        assertNotNull("The received message cannot be null.", receivedMsg);
+        return System.nanoTime();
+      });
+      Thread.sleep(2);
+
+      long start = System.nanoTime();
+      this.objReceiver.onMessage(msg);
+      latencies[i] = received.get(2, TimeUnit.SECONDS) - start;
+    }
+    executor.shutdown();
+
+    Arrays.sort(latencies);
+    long median = latencies[latencies.length / 2];
+    assertTrue("The median handoff took " + median + " ns, it should be below a millisecond.", median < TimeUnit.MILLISECONDS.toNanos(1));
+
+    System.out.println("done.");
+  }
+
+  /**
+   * Test that a message which cannot be decoded is decoded once and thrown away.
+   *
+   * @throws Exception
+   *           reason of failure given by the test.
+   */
+  @Test
+  public void testUndecodable() throws Exception
+  {
+    System.out.print("ReceiveController : Testing receiving a message which cannot be decoded...");
+
+    DataContainer container = this.objReceiver.getDataContainer();
+    while (container.popReceivedMessage() != null)
+    {
+      // Drain messages left by other tests.
+    }
+    Monitor monitor = MonitorFactory.getMonitor("test");
+    monitor.setEnabled(true);
+    monitor.drainData(DataType.MESSAGE_DISCARDED);
+
+    CompletableFuture<MessageDetails> reply = container.addPendingRequest("undecodable", 5000);
+    MessageProperties props = new MessageProperties();
+    props.setCorrelationId("undecodable".getBytes());
+    this.objReceiver.onMessage(new Message("no message".getBytes(), props));
+
+    assertTrue("The waiting request should fail.", reply.isCompletedExceptionally());
+    assertEquals("The message should be thrown away once.", 1, monitor.drainData(DataType.MESSAGE_DISCARDED));
+    assertNull("The message should not be buffered.", container.popReceivedMessage());
+
+    System.out.println("done.");
+  }
+
+  /**
+   * Test that a direct reply arriving after its request timed out is thrown away instead of buffered.
+   *
+   * @throws Exception
+   *           reason of failure given by the test.
+   */
+  @Test
+  public void testLateDirectReply() throws Exception
+  {
+    System.out.print("ReceiveController : Testing receiving a late direct reply...");
+
+    DataContainer container = this.objReceiver.getDataContainer();
+    while (container.popReceivedMessage() != null)
+    {
+      // Drain messages left by other tests.
+    }
+    Monitor monitor = MonitorFactory.getMonitor("test");
+    monitor.setEnabled(true);
+    monitor.drainData(DataType.MESSAGE_DISCARDED);
+
+    MessageProperties props = new MessageProperties();
+    props.setCorrelationId("latereply".getBytes());
+    props.setReceivedRoutingKey("amq.rabbitmq.reply-to.test");
+    props.setHeader(MessageHeaders.TYPE, MessageType.RESPONSE_MESSAGE.name());
+    container.addIdentifier("latereply");
+    this.objReceiver.onMessage(new Message(new byte[0], props));
+
+    assertEquals("The late reply should be thrown away.", 1, monitor.drainData(DataType.MESSAGE_DISCARDED));
+    assertNull("The late reply should not be buffered.", container.popReceivedMessage());
+
+    System.out.println("done.");
+  }
+
   /**
    * Cleanup method called after running the test to cleanup.
    */
@@ -0,0 +1,120 @@
+package com.maxxton.test.communication;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+import com.maxxton.aam.communication.ReceiverCache;
+
+/**
+ * Run a list of tests against the ReceiverCache class.
+ *
+ * @author Robin Hermans
+ * @copyright Maxxton 2015
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class ReceiverCacheTest
+{
+
+  private ReceiverCache objCache;
+
+  /**
+   * Setup method called before running the tests to construct the testing environment.
+   */
+  @Before
+  public void setup()
+  {
+    this.objCache = new ReceiverCache(30, 5);
+  }
+
+  /**
+   * Test storing and looking up existing and missing receivers.
+   *
+   * @throws Exception
+   *           reason of failure given by the test.
+   */
+  @Test
+  public void testLookup() throws Exception
+  {
+    System.out.print("ReceiverCache : Testing storing and looking up receivers...");
+
+    assertNull("An unknown receiver should not be cached.", this.objCache.lookup("other"));
+
+    this.objCache.store("other", true);
+    this.objCache.store("none", false);
+
+    Boolean exists = this.objCache.lookup("other");
+    assertNotNull("The existing receiver should be cached.", exists);
+    assertTrue("The existing receiver should be cached as existing.", exists);
+
+    exists = this.objCache.lookup("none");
+    assertNotNull("The missing receiver should be cached.", exists);
+    assertFalse("The missing receiver should be cached as missing.", exists);
+
+    System.out.println("done.");
+  }
+
+  /**
+   * Test the invalidation of cached receivers.
+   *
+   * @throws Exception
+   *           reason of failure given by the test.
+   */
+  @Test
+  public void testInvalidate() throws Exception
+  {
+    System.out.print("ReceiverCache : Testing invalidation of receivers...");
+
+    this.objCache.store("other", true);
+    this.objCache.store("none", false);
+    assertEquals("The cache should contain two receivers.", 2, this.objCache.size());
+
+    this.objCache.invalidate("other");
+    assertNull("The invalidated receiver should not be cached.", this.objCache.lookup("other"));
+    assertNotNull("The other receiver should still be cached.", this.objCache.lookup("none"));
+
+    this.objCache.invalidateAll();
+    assertEquals("The cache should be empty.", 0, this.objCache.size());
+
+    System.out.println("done.");
+  }
+
+  /**
+   * Test that nothing is cached when the time to live is zero.
+   *
+   * @throws Exception
+   *           reason of failure given by the test.
+   */
+  @Test
+  public void testDisabled() throws Exception
+  {
+    System.out.print("ReceiverCache : Testing a disabled cache...");
+
+    ReceiverCache cache = new ReceiverCache(0, 0);
+    cache.store("other", true);
+    cache.store("none", false);
+
+    assertNull("No receiver should be cached.", cache.lookup("other"));
+    assertNull("No receiver should be cached.", cache.lookup("none"));
+
+    System.out.println("done.");
+  }
+
+  /**
+   * Cleanup method called after running the test.
+   */
+  @After
+  public void cleanup()
+  {
+    this.objCache.invalidateAll();
+  }
+
+}
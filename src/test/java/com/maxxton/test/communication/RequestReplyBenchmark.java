@@ -0,0 +1,131 @@
+package com.maxxton.test.communication;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+import com.maxxton.aam.communication.Messenger;
+import com.maxxton.aam.messages.MessageType;
+import com.maxxton.aam.resources.MessageDetails;
+
+/**
+ * Compares the round trip latency of requests replied through the queue of the requester with requests replied through direct reply-to. Not part of the regular test run, start it with
+ * "mvn -Dtest=RequestReplyBenchmark test".
+ *
+ * @author Robin Hermans
+ * @copyright Maxxton 2015
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class RequestReplyBenchmark
+{
+  private static final int WARMUP = 200;
+  private static final int REQUESTS = 2000;
+
+  private Messenger objRequester;
+  private Messenger objResponder;
+
+  /**
+   * Setup method called before running the benchmark to construct the testing environment.
+   */
+  @Before
+  public void setup()
+  {
+    this.objRequester = new Messenger("test", "/test.properties");
+    this.objResponder = new Messenger("other", "/test.properties");
+    this.objResponder.setReceiveCallback((MessageDetails details) -> {
+      this.objResponder.sendMessage(MessageType.RESPONSE_MESSAGE, details.getSender(), details.getPayload(), details.getResponseId());
+    });
+  }
+
+  /**
+   * Replies are routed through the binding exchange into the queue of the requester.
+   *
+   * @throws Exception
+   *           reason of failure given by the benchmark.
+   */
+  @Test
+  public void testQueueReplies() throws Exception
+  {
+    this.objRequester.getResources().getConfiguration().setRpcDirectReplyTo(false);
+    this.measure("queue replies");
+  }
+
+  /**
+   * Replies are delivered on the direct reply-to channel of the requester.
+   *
+   * @throws Exception
+   *           reason of failure given by the benchmark.
+   */
+  @Test
+  public void testDirectReplies() throws Exception
+  {
+    this.objRequester.getResources().getConfiguration().setRpcDirectReplyTo(true);
+    this.measure("direct reply-to");
+  }
+
+  /**
+   * Sends requests one after another and prints the latency distribution.
+   *
+   * @param name
+   *          the name of the measured path.
+   * @throws Exception
+   *           reason of failure given by the benchmark.
+   */
+  private void measure(String name) throws Exception
+  {
+    for (int i = 0; i < WARMUP; i++)
+    {
+      this.roundTrip(i);
+    }
+
+    long[] latencies = new long[REQUESTS];
+    for (int i = 0; i < REQUESTS; i++)
+    {
+      latencies[i] = this.roundTrip(i);
+    }
+    Arrays.sort(latencies);
+
+    long total = 0;
+    for (long latency : latencies)
+    {
+      total += latency;
+    }
+    System.out.println(String.format("RequestReply : %-16s avg %6d us, p50 %6d us, p99 %6d us", name, TimeUnit.NANOSECONDS.toMicros(total / REQUESTS),
+        TimeUnit.NANOSECONDS.toMicros(latencies[REQUESTS / 2]), TimeUnit.NANOSECONDS.toMicros(latencies[REQUESTS * 99 / 100])));
+  }
+
+  /**
+   * Sends a single request and waits for its reply.
+   *
+   * @param sequence
+   *          the sequence number used as payload.
+   * @return the round trip time in nanoseconds.
+   * @throws Exception
+   *           reason of failure given by the benchmark.
+   */
+  private long roundTrip(int sequence) throws Exception
+  {
+    long start = System.nanoTime();
+    MessageDetails reply = this.objRequester.request(MessageType.GENERATION_MESSAGE, "other", sequence, 5000).get(10, TimeUnit.SECONDS);
+    long latency = System.nanoTime() - start;
+    assertEquals("The reply should carry the payload of the request.", sequence, reply.getPayload());
+    return latency;
+  }
+
+  /**
+   * Cleanup method called after running the benchmark.
+   */
+  @After
+  public void cleanup()
+  {
+    this.objRequester.getCommunication().getReceiver().getListener().stop();
+    this.objResponder.getCommunication().getReceiver().getListener().stop();
+  }
+}
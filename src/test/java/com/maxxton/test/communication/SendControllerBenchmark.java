@@ -0,0 +1,134 @@
+package com.maxxton.test.communication;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+import com.maxxton.aam.communication.Messenger;
+import com.maxxton.aam.messages.MessageType;
+
+/**
+ * Measures the publish throughput of a single messenger sending from a growing amount of threads to different receivers. Not part of the regular test run, start it with
+ * "mvn -Dtest=SendControllerBenchmark test".
+ *
+ * @author Robin Hermans
+ * @copyright Maxxton 2015
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class SendControllerBenchmark
+{
+  private static final int MESSAGES = 20000;
+  private static final int[] THREADS = { 1, 2, 4, 8 };
+  private static final String[] RECEIVERS = { "other", "test" };
+
+  private Messenger objSender;
+  private Messenger objOther;
+  private Messenger objTest;
+
+  /**
+   * Setup method called before running the benchmark to construct the testing environment.
+   */
+  @Before
+  public void setup()
+  {
+    this.objSender = new Messenger("sender", "/test.properties");
+    this.objOther = new Messenger("other", "/test.properties");
+    this.objTest = new Messenger("test", "/test.properties");
+    this.objOther.setReceiveCallback(details -> {
+    });
+    this.objTest.setReceiveCallback(details -> {
+    });
+  }
+
+  /**
+   * Sends the same amount of messages with every amount of threads and prints the throughput.
+   *
+   * @throws Exception
+   *           reason of failure given by the benchmark.
+   */
+  @Test
+  public void testConcurrentSends() throws Exception
+  {
+    this.measure(1, MESSAGES / 10);
+    for (int threads : THREADS)
+    {
+      long nanos = this.measure(threads, MESSAGES);
+      System.out.println(String.format("SendController : %d thread(s) %8d msg/s", threads, (long) MESSAGES * TimeUnit.SECONDS.toNanos(1) / nanos));
+    }
+  }
+
+  /**
+   * Sends messages from a given amount of threads, alternating between the receivers.
+   *
+   * @param threads
+   *          the amount of sending threads.
+   * @param messages
+   *          the total amount of messages.
+   * @return the time it took in nanoseconds.
+   * @throws Exception
+   *           reason of failure given by the benchmark.
+   */
+  private long measure(int threads, int messages) throws Exception
+  {
+    final int perThread = messages / threads;
+    final AtomicInteger sent = new AtomicInteger(0);
+    final CountDownLatch start = new CountDownLatch(1);
+    final CountDownLatch done = new CountDownLatch(threads);
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    for (int t = 0; t < threads; t++)
+    {
+      final int thread = t;
+      executor.execute(() -> {
+        try
+        {
+          start.await();
+          for (int i = 0; i < perThread; i++)
+          {
+            if (this.objSender.sendMessage(MessageType.GENERATION_MESSAGE, RECEIVERS[(thread + i) % RECEIVERS.length], i) != null)
+            {
+              sent.incrementAndGet();
+            }
+          }
+        }
+        catch (InterruptedException e)
+        {
+          Thread.currentThread().interrupt();
+        }
+        finally
+        {
+          done.countDown();
+        }
+      });
+    }
+
+    long begin = System.nanoTime();
+    start.countDown();
+    assertTrue("The senders did not finish in time.", done.await(5, TimeUnit.MINUTES));
+    long nanos = System.nanoTime() - begin;
+    executor.shutdown();
+    assertEquals("Every message should have been send.", perThread * threads, sent.get());
+    return nanos;
+  }
+
+  /**
+   * Cleanup method called after running the benchmark.
+   */
+  @After
+  public void cleanup()
+  {
+    this.objSender.getCommunication().getReceiver().getListener().stop();
+    this.objOther.getCommunication().getReceiver().getListener().stop();
+    this.objTest.getCommunication().getReceiver().getListener().stop();
+  }
+}
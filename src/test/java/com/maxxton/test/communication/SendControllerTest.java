@@ -5,12 +5,20 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.After;
 import org.junit.Before;
 import org.junit.FixMethodOrder;
 import org.junit.Test;
 import org.junit.runners.MethodSorters;
+import org.springframework.amqp.AmqpException;
 import org.springframework.amqp.core.Message;
 import org.springframework.amqp.core.MessageProperties;
 
@@ -110,6 +118,74 @@ public class SendControllerTest
     System.out.println("done.");
   }
 
+  /**
+   * Test that an asynchronous send to an unroutable receiver is not reported as confirmed.
+   *
+   * @throws Exception
+   *           reason of failure given by the test.
+   */
+  @Test
+  public void testSendingUnroutable() throws Exception
+  {
+    System.out.print("SendController : Testing sending a message to an unroutable receiver...");
+
+    // Pretend the receiver exists, so the message is published and returned by the broker.
+    this.objController.getReceiverCache().store("unroutable", true);
+
+    MessageProperties props = new MessageProperties();
+    props.setCorrelationId(this.objController.generateUniqueId().getBytes());
+    BaseMessage baseMsg = new GenerationMessage();
+    baseMsg.setPayload("Hello World");
+    Message msg = new Message(MessageSerializer.serialize(baseMsg), props);
+    CompletableFuture<Boolean> future = this.objController.sendMessageAsync("unroutable", msg);
+
+    try
+    {
+      future.get(5, TimeUnit.SECONDS);
+      fail("The returned message should not be confirmed.");
+    }
+    catch (ExecutionException e)
+    {
+      assertTrue("The message should be reported as returned.", e.getCause() instanceof AmqpException);
+    }
+    assertFalse("The receiver should be removed from the cache.", Boolean.TRUE.equals(this.objController.getReceiverCache().lookup("unroutable")));
+
+    System.out.println("done.");
+  }
+
+  /**
+   * Test that a message of a batch returned as unroutable is not reported as send.
+   *
+   * @throws Exception
+   *           reason of failure given by the test.
+   */
+  @Test
+  public void testSendingBatchUnroutable() throws Exception
+  {
+    System.out.print("SendController : Testing sending a batch with an unroutable receiver...");
+
+    Resources otherResources = new Resources();
+    otherResources.getConfiguration().loadConfiguration("/test.properties");
+    otherResources.getConfiguration().setName("other");
+    new ReceiveController(otherResources);
+
+    // Pretend the receiver exists, so the message is published and returned by the broker.
+    this.objController.getReceiverCache().store("unroutable", true);
+
+    BaseMessage baseMsg = new GenerationMessage();
+    baseMsg.setPayload("Hello World");
+    Message first = new Message(MessageSerializer.serialize(baseMsg), new MessageProperties());
+    Message second = new Message(MessageSerializer.serialize(baseMsg), new MessageProperties());
+    first.getMessageProperties().setCorrelationId(this.objController.generateUniqueId().getBytes());
+    second.getMessageProperties().setCorrelationId(this.objController.generateUniqueId().getBytes());
+    List<Boolean> results = this.objController.sendMessages(Arrays.asList("other", "unroutable"), Arrays.asList(first, second));
+
+    assertTrue("The routable message should be send.", results.get(0));
+    assertFalse("The returned message should not be send.", results.get(1));
+
+    System.out.println("done.");
+  }
+
   /**
    * Test the generation of an unique identifier.
    *
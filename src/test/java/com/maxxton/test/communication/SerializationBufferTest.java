@@ -0,0 +1,102 @@
+package com.maxxton.test.communication;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+import com.maxxton.aam.communication.JavaSerializationCodec;
+import com.maxxton.aam.communication.SerializationBuffer;
+
+/**
+ * Run a list of tests against the SerializationBuffer class.
+ *
+ * @author Robin Hermans
+ * @copyright Maxxton 2015
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class SerializationBufferTest
+{
+  private SerializationBuffer objBuffer;
+
+  /**
+   * Setup method called before running the tests to construct the testing environment.
+   */
+  @Before
+  public void setup()
+  {
+    this.objBuffer = SerializationBuffer.acquire();
+  }
+
+  /**
+   * Test writing beyond the initial capacity.
+   *
+   * @throws Exception
+   *           reason of failure given by the test.
+   */
+  @Test
+  public void testWrite() throws Exception
+  {
+    System.out.print("SerializationBuffer : Testing writing and growing...");
+
+    byte[] expected = new byte[5000];
+    for (int i = 0; i < expected.length; i++)
+    {
+      expected[i] = (byte) i;
+    }
+    this.objBuffer.write(expected[0]);
+    this.objBuffer.write(expected, 1, expected.length - 1);
+    assertEquals("All bytes should be written.", expected.length, this.objBuffer.size());
+    assertArrayEquals("The written bytes should be kept in order.", expected, this.objBuffer.toByteArray());
+
+    this.objBuffer.release();
+    this.objBuffer = SerializationBuffer.acquire();
+    this.objBuffer.writeShort(0x1234);
+    assertArrayEquals("A short should be written big endian.", new byte[] { 0x12, 0x34 }, this.objBuffer.toByteArray());
+
+    System.out.println("done.");
+  }
+
+  /**
+   * Test that a thread reuses its buffer and gets a separate one while it is in use.
+   *
+   * @throws Exception
+   *           reason of failure given by the test.
+   */
+  @Test
+  public void testReuse() throws Exception
+  {
+    System.out.print("SerializationBuffer : Testing reusing the buffer of a thread...");
+
+    SerializationBuffer nested = SerializationBuffer.acquire();
+    assertNotSame("A buffer in use should not be handed out again.", this.objBuffer, nested);
+    nested.release();
+
+    this.objBuffer.write(1);
+    this.objBuffer.release();
+    SerializationBuffer reused = SerializationBuffer.acquire();
+    assertSame("A released buffer should be reused by the thread.", this.objBuffer, reused);
+    assertEquals("A reused buffer should be empty.", 0, reused.size());
+
+    byte[] encoded = new JavaSerializationCodec().encode("Hello World");
+    assertEquals("Encoding while the buffer is in use should not touch it.", 0, reused.size());
+    assertEquals("The encoded object should be restored.", "Hello World", new JavaSerializationCodec().decode(encoded));
+
+    System.out.println("done.");
+  }
+
+  /**
+   * Cleanup method called after running the test.
+   */
+  @After
+  public void cleanup()
+  {
+    this.objBuffer.release();
+  }
+}
@@ -0,0 +1,195 @@
+package com.maxxton.test.monitoring;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+import com.maxxton.aam.monitoring.LogBuffer;
+import com.maxxton.aam.monitoring.Monitor;
+import com.maxxton.aam.monitoring.Monitor.DataType;
+import com.maxxton.aam.monitoring.Monitor.MonitorLevel;
+
+/**
+ * Run a list of tests against the LogBuffer class.
+ *
+ * @author Robin Hermans
+ * @copyright Maxxton 2015
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class LogBufferTest
+{
+  private LogBuffer objBuffer;
+
+  /**
+   * Setup method called before running the tests to construct the testing environment.
+   */
+  @Before
+  public void setup()
+  {
+    this.objBuffer = new LogBuffer(4);
+  }
+
+  /**
+   * Test that entries are drained in the order they were added.
+   *
+   * @throws Exception
+   *           reason of failure given by the test.
+   */
+  @Test
+  public void testDrain() throws Exception
+  {
+    System.out.print("LogBuffer : Testing draining entries in order...");
+
+    assertEquals("The capacity should be rounded up to a power of two.", 4, new LogBuffer(3).getCapacity());
+    this.objBuffer.add("first");
+    this.objBuffer.add("second");
+    this.objBuffer.add("third");
+    assertEquals("The entries should be drained in order.", "first\nsecond\nthird\n", this.objBuffer.drain());
+    assertEquals("The buffer should be empty after draining.", "", this.objBuffer.drain());
+
+    this.objBuffer.add("fourth");
+    assertEquals("Only the new entry should be drained.", "fourth\n", this.objBuffer.drain());
+    assertEquals("No entries should be dropped.", 0, this.objBuffer.drainDrops());
+
+    System.out.println("done.");
+  }
+
+  /**
+   * Test that the oldest entries are overwritten and counted when the buffer is full.
+   *
+   * @throws Exception
+   *           reason of failure given by the test.
+   */
+  @Test
+  public void testOverwrite() throws Exception
+  {
+    System.out.print("LogBuffer : Testing overwriting a full buffer...");
+
+    for (int i = 0; i < 10; i++)
+    {
+      this.objBuffer.add("entry " + i);
+    }
+    assertEquals("The latest entries should be kept.", "entry 6\nentry 7\nentry 8\nentry 9\n", this.objBuffer.drain());
+    assertEquals("The overwritten entries should be counted.", 6, this.objBuffer.drainDrops());
+    assertEquals("The drop count should be reset.", 0, this.objBuffer.drainDrops());
+
+    System.out.println("done.");
+  }
+
+  /**
+   * Test that no entries are lost or duplicated while threads log and drain concurrently.
+   *
+   * @throws Exception
+   *           reason of failure given by the test.
+   */
+  @Test
+  public void testConcurrent() throws Exception
+  {
+    System.out.print("LogBuffer : Testing concurrent logging and draining...");
+
+    final LogBuffer buffer = new LogBuffer(256);
+    final int threads = 4;
+    final int entries = 20000;
+    final CountDownLatch start = new CountDownLatch(1);
+    List<Thread> producers = new ArrayList<Thread>();
+    for (int t = 0; t < threads; t++)
+    {
+      Thread producer = new Thread(new Runnable()
+      {
+        @Override
+        public void run()
+        {
+          try
+          {
+            start.await();
+          }
+          catch (InterruptedException e)
+          {
+            return;
+          }
+          for (int i = 0; i < entries; i++)
+          {
+            buffer.add("entry");
+          }
+        }
+      });
+      producer.start();
+      producers.add(producer);
+    }
+
+    long drained = 0;
+    start.countDown();
+    for (Thread producer : producers)
+    {
+      while (producer.isAlive())
+      {
+        drained += this.count(buffer.drain());
+      }
+    }
+    drained += this.count(buffer.drain());
+
+    assertEquals("Every entry should be either drained or dropped.", (long) threads * entries, drained + buffer.drainDrops());
+
+    System.out.println("done.");
+  }
+
+  /**
+   * Test the log capacity and dropped entries of the Monitor.
+   *
+   * @throws Exception
+   *           reason of failure given by the test.
+   */
+  @Test
+  public void testMonitor() throws Exception
+  {
+    System.out.print("LogBuffer : Testing the log capacity of the Monitor...");
+
+    Monitor monitor = new Monitor("logbuffer", true, 2);
+    monitor.addLog(MonitorLevel.WARN, "first");
+    monitor.addLog(MonitorLevel.WARN, "second");
+    monitor.addLog(MonitorLevel.WARN, "third");
+    monitor.addLog(MonitorLevel.ERROR, "error");
+    assertEquals("The latest warnings should be kept.", "second\nthird\n", monitor.drainLogs(MonitorLevel.WARN));
+    assertEquals("The error should be kept.", "error\n", monitor.drainLogs(MonitorLevel.ERROR));
+    assertEquals("The overwritten warning should be counted.", 1, monitor.drainData(DataType.LOG_DROPPED));
+
+    System.out.println("done.");
+  }
+
+  /**
+   * Counts the entries in a drained log.
+   *
+   * @param log
+   *          the drained log.
+   * @return the amount of entries.
+   */
+  private int count(String log)
+  {
+    int count = 0;
+    for (int i = 0; i < log.length(); i++)
+    {
+      if (log.charAt(i) == '\n')
+      {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Cleanup method called after running the test.
+   */
+  @After
+  public void cleanup()
+  {
+
+  }
+}
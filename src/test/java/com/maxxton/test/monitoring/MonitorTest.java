@@ -0,0 +1,101 @@
+package com.maxxton.test.monitoring;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+import com.maxxton.aam.monitoring.Monitor;
+import com.maxxton.aam.monitoring.Monitor.MonitorLevel;
+
+/**
+ * Run a list of tests against the Monitor class.
+ *
+ * @author Robin Hermans
+ * @copyright Maxxton 2015
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class MonitorTest
+{
+  private Monitor objMonitor;
+
+  /**
+   * Setup method called before running the tests to construct the testing environment.
+   */
+  @Before
+  public void setup()
+  {
+    this.objMonitor = new Monitor("monitortest", true);
+  }
+
+  /**
+   * Test that parameterized logs are formatted and kept.
+   *
+   * @throws Exception
+   *           reason of failure given by the test.
+   */
+  @Test
+  public void testFormat() throws Exception
+  {
+    System.out.print("Monitor : Testing parameterized logs...");
+
+    this.objMonitor.setMonitorLevel(MonitorLevel.WARN);
+    this.objMonitor.warn(MonitorTest.class, "Receiver '{}' is unknown.", "receiver");
+    this.objMonitor.warn(MonitorTest.class, "Chunk {} of message '{}'.", 3, "123456789");
+    this.objMonitor.error(MonitorTest.class, "{}, {} and {}.", "one", "two", "three");
+    assertEquals("The warnings should be formatted.", "(" + MonitorTest.class.getName() + ") Receiver 'receiver' is unknown.\n(" + MonitorTest.class.getName()
+        + ") Chunk 3 of message '123456789'.\n", this.objMonitor.drainLogs(MonitorLevel.WARN));
+    assertEquals("The error should be formatted.", "(" + MonitorTest.class.getName() + ") one, two and three.\n", this.objMonitor.drainLogs(MonitorLevel.ERROR));
+
+    System.out.println("done.");
+  }
+
+  /**
+   * Test that logs of a disabled level are not formatted.
+   *
+   * @throws Exception
+   *           reason of failure given by the test.
+   */
+  @Test
+  public void testLevelGuard() throws Exception
+  {
+    System.out.print("Monitor : Testing logs of a disabled level...");
+
+    final int[] formatted = new int[1];
+    Object argument = new Object()
+    {
+      @Override
+      public String toString()
+      {
+        formatted[0]++;
+        return "argument";
+      }
+    };
+
+    this.objMonitor.setMonitorLevel(MonitorLevel.WARN);
+    assertFalse("Trace should be disabled.", this.objMonitor.isEnabled(MonitorTest.class, MonitorLevel.TRACE));
+    assertTrue("Warn should be enabled.", this.objMonitor.isEnabled(MonitorTest.class, MonitorLevel.WARN));
+    this.objMonitor.trace(MonitorTest.class, "Skipped {}.", argument);
+    assertEquals("The argument should not be formatted.", 0, formatted[0]);
+    assertEquals("The trace should not be kept.", "", this.objMonitor.drainLogs(MonitorLevel.TRACE));
+
+    this.objMonitor.warn(MonitorTest.class, "Kept {}.", argument);
+    assertEquals("The argument should be formatted once.", 1, formatted[0]);
+
+    System.out.println("done.");
+  }
+
+  /**
+   * Cleanup method called after running the test.
+   */
+  @After
+  public void cleanup()
+  {
+
+  }
+}
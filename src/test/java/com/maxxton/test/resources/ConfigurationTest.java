@@ -1,6 +1,7 @@
 package com.maxxton.test.resources;
 
 import java.util.ArrayList;
+import java.util.Map;
 
 import org.junit.After;
 
@@ -90,6 +91,39 @@ public class ConfigurationTest
     System.out.println("done.");
   }
 
+  /**
+   * Test parsing the queue arguments into typed settings.
+   * 
+   * @throws Exception
+   *           reason of failure given by the test.
+   */
+  @Test
+  public void testQueueArguments() throws Exception
+  {
+    System.out.print("Configuration : Testing queue arguments parsing...");
+
+    assertTrue("No queue arguments should be configured by default.", this.objConfiguration.getQueueArguments().isEmpty());
+
+    this.objConfiguration.loadConfiguration("/queue.properties");
+    assertEquals("The queue mode should be lazy.", "lazy", this.objConfiguration.getQueueMode());
+    assertEquals("The maximum length should be parsed.", 100000L, this.objConfiguration.getQueueMaxLength());
+    assertEquals("An invalid number should not replace a valid one.", 52428800L, this.objConfiguration.getQueueMaxLengthBytes());
+    assertEquals("The overflow behaviour should be parsed.", "reject-publish", this.objConfiguration.getQueueOverflow());
+    assertEquals("The message ttl should be parsed.", 60000L, this.objConfiguration.getQueueMessageTtl());
+    assertEquals("The dead letter exchange should be parsed.", "aam.dead", this.objConfiguration.getQueueDeadLetterExchange());
+
+    Map<String, Object> arguments = this.objConfiguration.getQueueArguments();
+    assertEquals("Only the valid arguments should be declared.", 6, arguments.size());
+    assertEquals("The maximum length should be declared as a number.", 100000L, arguments.get("x-max-length"));
+    assertFalse("Unsupported arguments should not be declared.", arguments.containsKey("x-unknown"));
+
+    this.objConfiguration.setQueueMaxPriority(20);
+    assertEquals("The maximum priority should be capped.", 9, this.objConfiguration.getQueueArguments().get("x-max-priority"));
+    this.objConfiguration.setQueueMaxPriority(0);
+
+    System.out.println("done.");
+  }
+
   @After
   public void cleanup()
   {
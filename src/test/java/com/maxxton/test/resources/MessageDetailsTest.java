@@ -1,5 +1,8 @@
 package com.maxxton.test.resources;
 
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
 import org.junit.After;
 
 import static org.junit.Assert.*;
@@ -133,6 +136,35 @@ public class MessageDetailsTest
     System.out.println("done.");
   }
 
+  /**
+   * Test that a lazy payload is decoded only once, on first access.
+   * 
+   * @throws Exception
+   *           reason of failure given by the test.
+   */
+  @Test
+  public void testLazyPayload() throws Exception
+  {
+    System.out.print("MessageDetails : Testing the lazy Payload getter...");
+
+    AtomicInteger decodes = new AtomicInteger(0);
+    MessageDetails objDetails = MessageDetails.lazy(null, null, null, null, () -> {
+      decodes.incrementAndGet();
+      return "Hello World";
+    });
+    assertEquals("The payload should not be decoded before it is requested.", 0, decodes.get());
+
+    assertEquals("The payload should be the same.", "Hello World", objDetails.getPayload());
+    assertEquals("The payload should be the same.", "Hello World", objDetails.getPayload());
+    assertEquals("The payload should be decoded only once.", 1, decodes.get());
+
+    Supplier<String> supplier = () -> "Hello World";
+    assertEquals("A supplier given as payload should be kept as is.", supplier, new MessageDetails(null, null, null, null, supplier).getPayload());
+    assertNull("A null payload should be kept as is.", new MessageDetails(null, null, null, null, null).getPayload());
+
+    System.out.println("done.");
+  }
+
   @After
   public void cleanup()
   {